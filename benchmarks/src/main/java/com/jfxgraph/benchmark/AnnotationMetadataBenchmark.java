@@ -0,0 +1,82 @@
+package com.jfxgraph.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jfxgraph.asm.ClassReader;
+import com.jfxgraph.benchmark.support.BenchComponent;
+import com.jfxgraph.benchmark.support.Corpus;
+import com.jfxgraph.scanner.io.loader.DefaultResourceLoader;
+import com.jfxgraph.scanner.reader.AnnotationConstantPoolPrefilter;
+import com.jfxgraph.scanner.visitor.AnnotationMetadataReadingVisitor;
+import com.jfxgraph.scanner.visitor.AnnotationTypeIntrospector;
+import com.jfxgraph.scanner.visitor.BytecodeAnnotationTypeIntrospector;
+import com.jfxgraph.scanner.visitor.CachingAnnotationTypeIntrospector;
+import com.jfxgraph.scanner.visitor.ReflectionAnnotationTypeIntrospector;
+
+/**
+ * 注解元数据读取基准: 对生成的类(带注解、带元注解或不带注解)读取完整的注解元数据, 以及只做常量池预筛选.
+ * 注解类型描述在预热阶段即进入缓存, 因此测得的是稳态下每个类的开销.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnotationMetadataBenchmark
+{
+    /** component: 直接带注解; service: 通过元注解; plain: 不带注解 */
+    @Param({ "component", "service", "plain" })
+    public String kind;
+
+    @Param({ "reflection", "bytecode" })
+    public String introspection;
+
+    private byte[] classFile;
+
+    private AnnotationTypeIntrospector introspector;
+
+    private AnnotationConstantPoolPrefilter prefilter;
+
+    @Setup
+    public void setUp()
+    {
+        int index = ("component".equals(this.kind) ? 10 : ("service".equals(this.kind) ? 15 : 11));
+        this.classFile = Corpus.generateClass(index);
+        ClassLoader classLoader = AnnotationMetadataBenchmark.class.getClassLoader();
+        AnnotationTypeIntrospector target = ("bytecode".equals(this.introspection) ? new BytecodeAnnotationTypeIntrospector(
+                new DefaultResourceLoader(classLoader)) : new ReflectionAnnotationTypeIntrospector(classLoader));
+        this.introspector = new CachingAnnotationTypeIntrospector(target);
+        this.prefilter = new AnnotationConstantPoolPrefilter(Collections.singleton(BenchComponent.class.getName()), this.introspector);
+    }
+
+    @Benchmark
+    public AnnotationMetadataReadingVisitor readMetadata()
+    {
+        AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(this.introspector);
+        new ClassReader(this.classFile).accept(visitor, ClassReader.SKIP_DEBUG);
+        return visitor;
+    }
+
+    @Benchmark
+    public boolean prefilter()
+    {
+        return this.prefilter.mayMatch(new ClassReader(this.classFile));
+    }
+}
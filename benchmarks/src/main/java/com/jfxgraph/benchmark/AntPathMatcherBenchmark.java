@@ -0,0 +1,133 @@
+package com.jfxgraph.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jfxgraph.benchmark.support.Corpus;
+import com.jfxgraph.scanner.util.AntPathMatcher;
+import com.jfxgraph.scanner.util.PathPattern;
+
+/**
+ * {@link AntPathMatcher}的匹配基准: 扫描中常见的模式与一组路径(生成的类路径及其它常见资源路径)两两匹配,
+ * 分别直接调用{@link AntPathMatcher}和使用预先编译的{@link PathPattern}.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AntPathMatcherBenchmark
+{
+    private static final String[] PATTERNS = { "**/*.class", "com/jfxgraph/**/*.class", "com/*/service/**/*Service.class",
+            "bench/gen/p?/Gen*.class", "META-INF/**/*.xml", "**/sub/**/Impl*.class" };
+
+    private static final String[] OTHER_PATHS = { "com/jfxgraph/scanner/ClassPathAnnotationScanner.class",
+            "com/jfxgraph/scanner/io/loader/PathMatchingResourcePatternResolver.class", "com/foo/service/order/OrderService.class",
+            "com/foo/service/order/impl/OrderServiceImpl.class", "META-INF/spring/context.xml", "META-INF/MANIFEST.MF",
+            "org/foo/sub/a/b/ImplFoo.class", "org/foo/sub/a/b/Foo.class", "com/jfxgraph/", "com/jfxgraph/scanner/" };
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private String[] paths;
+
+    private PathPattern[] compiledPatterns;
+
+    @Setup
+    public void setUp()
+    {
+        int generated = 40;
+        this.paths = new String[generated + OTHER_PATHS.length];
+        for (int i = 0; i < generated; i++)
+        {
+            this.paths[i] = Corpus.internalName(i * 7) + ".class";
+        }
+        System.arraycopy(OTHER_PATHS, 0, this.paths, generated, OTHER_PATHS.length);
+        this.compiledPatterns = new PathPattern[PATTERNS.length];
+        for (int i = 0; i < PATTERNS.length; i++)
+        {
+            this.compiledPatterns[i] = this.pathMatcher.compile(PATTERNS[i]);
+        }
+    }
+
+    @Benchmark
+    public int match()
+    {
+        int matches = 0;
+        for (String pattern : PATTERNS)
+        {
+            for (String path : this.paths)
+            {
+                if (this.pathMatcher.match(pattern, path))
+                {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int matchStart()
+    {
+        int matches = 0;
+        for (String pattern : PATTERNS)
+        {
+            for (String path : this.paths)
+            {
+                if (this.pathMatcher.matchStart(pattern, path))
+                {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int compiledMatch()
+    {
+        int matches = 0;
+        for (PathPattern pattern : this.compiledPatterns)
+        {
+            for (String path : this.paths)
+            {
+                if (pattern.match(path))
+                {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int compiledMatchStart()
+    {
+        int matches = 0;
+        for (PathPattern pattern : this.compiledPatterns)
+        {
+            for (String path : this.paths)
+            {
+                if (pattern.matchStart(path))
+                {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,161 @@
+package com.jfxgraph.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jfxgraph.asm.ClassReader;
+import com.jfxgraph.benchmark.support.Corpus;
+import com.jfxgraph.benchmark.support.CountingClassVisitor;
+import com.jfxgraph.scanner.io.FileSystemResource;
+import com.jfxgraph.scanner.io.Resource;
+import com.jfxgraph.scanner.reader.ClassReaderUtils;
+
+/**
+ * 逐个解析一组类时的分配基准: 每个类新建{@link ClassReader}与{@link ClassReader#reset 重用}同一个ClassReader, 以及从文件读取时
+ * {@link ClassReaderUtils#readClass(Resource)}与使用线程缓冲区的{@link ClassReaderUtils#acquireClassReader}.
+ * 以"-prof gc"运行, 比较各方法的gc.alloc.rate.norm(每次调用分配的字节数).
+ *
+ * @author Albert
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassReaderAllocationBenchmark
+{
+    private static final int FILE_COUNT = 500;
+
+    private static final int FLAGS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+    private byte[][] classes;
+
+    private ClassReader reader;
+
+    private final CountingClassVisitor visitor = new CountingClassVisitor();
+
+    private File root;
+
+    private Resource[] resources;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        this.classes = Corpus.sampleClasses();
+        this.reader = new ClassReader(this.classes[0]);
+
+        File tempFile = File.createTempFile("class-reader-benchmark", "");
+        if (!tempFile.delete() || !tempFile.mkdirs())
+        {
+            throw new IOException("Cannot create directory " + tempFile);
+        }
+        this.root = tempFile;
+        List<Resource> resources = new ArrayList<Resource>(FILE_COUNT);
+        collect(Corpus.writeDirectory(new File(tempFile, "classes"), FILE_COUNT), resources);
+        this.resources = resources.toArray(new Resource[resources.size()]);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        Corpus.delete(this.root);
+    }
+
+    private static void collect(File dir, List<Resource> resources)
+    {
+        File[] files = dir.listFiles();
+        if (files == null)
+        {
+            return;
+        }
+        for (File file : files)
+        {
+            if (file.isDirectory())
+            {
+                collect(file, resources);
+            } else if (file.getName().endsWith(".class"))
+            {
+                resources.add(new FileSystemResource(file));
+            }
+        }
+    }
+
+    /**
+     * 每个类新建ClassReader.
+     */
+    @Benchmark
+    public int newReader()
+    {
+        for (byte[] b : this.classes)
+        {
+            new ClassReader(b).accept(this.visitor, FLAGS);
+        }
+        return this.visitor.getCount();
+    }
+
+    /**
+     * 所有类共用一个ClassReader.
+     */
+    @Benchmark
+    public int reusedReader()
+    {
+        for (byte[] b : this.classes)
+        {
+            this.reader.reset(b, 0, b.length);
+            this.reader.accept(this.visitor, FLAGS);
+        }
+        return this.visitor.getCount();
+    }
+
+    /**
+     * 每个类文件读入新的数组并新建ClassReader.
+     */
+    @Benchmark
+    public int readFiles() throws IOException
+    {
+        int items = 0;
+        for (Resource resource : this.resources)
+        {
+            items += ClassReaderUtils.readClass(resource).getItemCount();
+        }
+        return items;
+    }
+
+    /**
+     * 类文件读入线程缓冲区, 由线程的ClassReader重新解析.
+     */
+    @Benchmark
+    public int readFilesPooled() throws IOException
+    {
+        int items = 0;
+        for (Resource resource : this.resources)
+        {
+            ClassReader classReader = ClassReaderUtils.acquireClassReader(resource);
+            try
+            {
+                items += classReader.getItemCount();
+            } finally
+            {
+                ClassReaderUtils.releaseClassReader(classReader);
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,80 @@
+package com.jfxgraph.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jfxgraph.asm.ClassReader;
+import com.jfxgraph.benchmark.support.Corpus;
+import com.jfxgraph.benchmark.support.CountingClassVisitor;
+import com.jfxgraph.benchmark.support.Flags;
+
+/**
+ * {@link ClassReader}的解析基准: 对一组实际类分别只解析常量池, 以及按不同解析选项完整访问.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassReaderBenchmark
+{
+    @Param({ "0", "SKIP_CODE", "SKIP_DEBUG", "SKIP_FRAMES" })
+    public String parsingOptions;
+
+    private byte[][] classes;
+
+    private int flags;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        this.classes = Corpus.sampleClasses();
+        this.flags = Flags.parsingOptions(this.parsingOptions);
+    }
+
+    /**
+     * 只构造ClassReader(解析常量池索引), 与解析选项无关.
+     */
+    @Benchmark
+    public int construct()
+    {
+        int items = 0;
+        for (byte[] b : this.classes)
+        {
+            items += new ClassReader(b).getItemCount();
+        }
+        return items;
+    }
+
+    /**
+     * 构造ClassReader并按解析选项访问类的全部内容.
+     */
+    @Benchmark
+    public int accept()
+    {
+        int count = 0;
+        for (byte[] b : this.classes)
+        {
+            CountingClassVisitor visitor = new CountingClassVisitor();
+            new ClassReader(b).accept(visitor, this.flags);
+            count += visitor.getCount();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,107 @@
+package com.jfxgraph.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jfxgraph.asm.ByteVector;
+import com.jfxgraph.asm.ClassReader;
+import com.jfxgraph.asm.ClassWriter;
+import com.jfxgraph.asm.TypeHierarchy;
+import com.jfxgraph.benchmark.support.Corpus;
+import com.jfxgraph.benchmark.support.Flags;
+import com.jfxgraph.scanner.reader.MetadataTypeHierarchy;
+
+/**
+ * {@link ClassWriter}的往返基准: 读取一组实际类并原样写回. 计算栈帧时读取端跳过原有栈帧;
+ * copyPool为true时把ClassReader传给ClassWriter, 复制常量池并直接复制未修改的方法.
+ * typeHierarchy为metadata时, 计算栈帧所需的公共父类由所有调用共用的{@link MetadataTypeHierarchy}读取类文件得到, 而不是加载类.
+ * roundTripRecycled将类写入每个线程回收使用的{@link ByteVector}, 以"-prof gc"与roundTrip比较每次调用分配的字节数.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassWriterBenchmark
+{
+    @Param({ "0", "COMPUTE_MAXS", "COMPUTE_FRAMES" })
+    public String writerFlags;
+
+    @Param({ "false", "true" })
+    public boolean copyPool;
+
+    @Param({ "reflection", "metadata" })
+    public String typeHierarchy;
+
+    private byte[][] classes;
+
+    private int flags;
+
+    private int parsingOptions;
+
+    private TypeHierarchy hierarchy;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        this.classes = Corpus.sampleClasses();
+        this.flags = Flags.writerFlags(this.writerFlags);
+        this.parsingOptions = ((this.flags & ClassWriter.COMPUTE_FRAMES) != 0 ? ClassReader.SKIP_FRAMES : 0);
+        this.hierarchy = ("metadata".equals(this.typeHierarchy) ? new MetadataTypeHierarchy(ClassWriterBenchmark.class.getClassLoader()) : null);
+    }
+
+    @Benchmark
+    public int roundTrip()
+    {
+        int size = 0;
+        for (byte[] b : this.classes)
+        {
+            ClassReader cr = new ClassReader(b);
+            ClassWriter cw = (this.copyPool ? new ClassWriter(cr, this.flags) : new ClassWriter(this.flags));
+            cw.setTypeHierarchy(this.hierarchy);
+            cr.accept(cw, this.parsingOptions);
+            size += cw.toByteArray().length;
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int roundTripRecycled(Buffer buffer)
+    {
+        int size = 0;
+        for (byte[] b : this.classes)
+        {
+            ClassReader cr = new ClassReader(b);
+            ClassWriter cw = (this.copyPool ? new ClassWriter(cr, this.flags) : new ClassWriter(this.flags));
+            cw.setTypeHierarchy(this.hierarchy);
+            cr.accept(cw, this.parsingOptions);
+            size += cw.toByteVector(buffer.out).size();
+        }
+        return size;
+    }
+
+    /**
+     * 每个线程回收使用的输出缓冲区.
+     */
+    @State(Scope.Thread)
+    public static class Buffer
+    {
+        final ByteVector out = new ByteVector();
+    }
+}
@@ -0,0 +1,99 @@
+package com.jfxgraph.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jfxgraph.benchmark.support.BenchComponent;
+import com.jfxgraph.benchmark.support.Corpus;
+import com.jfxgraph.scanner.ClassPathAnnotationScanner;
+import com.jfxgraph.scanner.beans.ScannedGenericBeanDefinition;
+import com.jfxgraph.scanner.type.filter.AnnotationTypeFilter;
+
+/**
+ * 端到端扫描基准: 在目录或jar中生成指定数量的类, 每次调用新建扫描器(元数据缓存不跨调用)并扫描{@value Corpus#BASE_PACKAGE}包.
+ * 生成的类中1/10直接带{@link BenchComponent}, 1/10通过元注解匹配.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScannerBenchmark
+{
+    @Param({ "1000", "10000", "50000" })
+    public int classCount;
+
+    @Param({ "directory", "jar" })
+    public String layout;
+
+    private File root;
+
+    private URLClassLoader classLoader;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        File tempFile = File.createTempFile("scanner-benchmark", "");
+        if (!tempFile.delete() || !tempFile.mkdirs())
+        {
+            throw new IOException("Cannot create directory " + tempFile);
+        }
+        this.root = tempFile;
+        File classPath = ("jar".equals(this.layout) ? Corpus.writeJar(new File(tempFile, "corpus.jar"), this.classCount)
+                : Corpus.writeDirectory(new File(tempFile, "classes"), this.classCount));
+        this.classLoader = new URLClassLoader(new URL[] { classPath.toURI().toURL() }, ScannerBenchmark.class.getClassLoader());
+
+        int expected = (this.classCount + 9) / 10 + (this.classCount + 4) / 10;
+        int found = scan().size();
+        if (found != expected)
+        {
+            throw new IllegalStateException("Expected " + expected + " components but found " + found);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        this.classLoader.close();
+        Corpus.delete(this.root);
+    }
+
+    @Benchmark
+    public Set<ScannedGenericBeanDefinition> scan()
+    {
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        // 扫描器的资源加载器在创建时取线程上下文类加载器.
+        thread.setContextClassLoader(this.classLoader);
+        try
+        {
+            ClassPathAnnotationScanner scanner = new ClassPathAnnotationScanner();
+            scanner.addIncludeFilter(new AnnotationTypeFilter(BenchComponent.class));
+            return scanner.findAnnotationDefinition(Corpus.BASE_PACKAGE);
+        } finally
+        {
+            thread.setContextClassLoader(original);
+        }
+    }
+}
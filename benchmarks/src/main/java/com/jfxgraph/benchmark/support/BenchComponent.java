@@ -0,0 +1,25 @@
+package com.jfxgraph.benchmark.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 基准测试语料中的组件注解, 扫描时以其为包含过滤条件.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+@Target({ ElementType.TYPE, ElementType.ANNOTATION_TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface BenchComponent
+{
+    String value() default "";
+
+    Scope scope() default Scope.SINGLETON;
+
+    int[] order() default {};
+}
@@ -0,0 +1,21 @@
+package com.jfxgraph.benchmark.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 基准测试语料中的方法注解.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BenchMarker
+{
+    String value() default "";
+
+    Class<?> type() default Object.class;
+}
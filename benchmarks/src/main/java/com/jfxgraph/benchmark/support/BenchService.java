@@ -0,0 +1,22 @@
+package com.jfxgraph.benchmark.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 以{@link BenchComponent}为元注解的注解, 用于覆盖元注解匹配.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@BenchComponent("service")
+public @interface BenchService
+{
+    String value() default "";
+}
@@ -0,0 +1,244 @@
+package com.jfxgraph.benchmark.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import com.jfxgraph.asm.AnnotationVisitor;
+import com.jfxgraph.asm.ClassWriter;
+import com.jfxgraph.asm.FieldVisitor;
+import com.jfxgraph.asm.MethodVisitor;
+import com.jfxgraph.asm.Opcodes;
+import com.jfxgraph.asm.Type;
+
+/**
+ * 基准测试语料: 用ASM生成的类文件, 以及读取已有类的字节码.
+ * <p>
+ * 生成的类位于{@value #BASE_PACKAGE}包下的64个子包中; 每10个类中有1个带{@link BenchComponent}, 另有1个带{@link BenchService}
+ * (通过元注解匹配), 其余不带注解, 接近实际工程中被扫描的类的分布.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public final class Corpus
+{
+    /** 生成的类所在的基础包 */
+    public static final String BASE_PACKAGE = "bench.gen";
+
+    private static final int PACKAGES = 64;
+
+    private static final int METHODS = 8;
+
+    private static final String COMPONENT_DESC = Type.getDescriptor(BenchComponent.class);
+
+    private static final String SERVICE_DESC = Type.getDescriptor(BenchService.class);
+
+    private static final String MARKER_DESC = Type.getDescriptor(BenchMarker.class);
+
+    private static final String SCOPE_DESC = Type.getDescriptor(Scope.class);
+
+    private Corpus()
+    {
+    }
+
+    /**
+     * 返回第index个生成类的内部名, 例如"bench/gen/p3/Gen67".
+     */
+    public static String internalName(int index)
+    {
+        return BASE_PACKAGE.replace('.', '/') + "/p" + (index % PACKAGES) + "/Gen" + index;
+    }
+
+    /**
+     * 生成第index个类的字节码.
+     */
+    public static byte[] generateClass(int index)
+    {
+        String name = internalName(index);
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", new String[] { "java/io/Serializable" });
+        cw.visitSource("Gen" + index + ".java", null);
+
+        boolean component = (index % 10 == 0);
+        boolean service = (index % 10 == 5);
+        if (component)
+        {
+            AnnotationVisitor av = cw.visitAnnotation(COMPONENT_DESC, true);
+            av.visit("value", "gen" + index);
+            av.visitEnum("scope", SCOPE_DESC, (index % 20 == 0 ? "SINGLETON" : "PROTOTYPE"));
+            AnnotationVisitor order = av.visitArray("order");
+            order.visit(null, Integer.valueOf(index));
+            order.visit(null, Integer.valueOf(index + 1));
+            order.visitEnd();
+            av.visitEnd();
+        } else if (service)
+        {
+            AnnotationVisitor av = cw.visitAnnotation(SERVICE_DESC, true);
+            av.visit("value", "service" + index);
+            av.visitEnd();
+        }
+
+        for (int i = 0; i < 4; i++)
+        {
+            FieldVisitor fv = cw.visitField(Opcodes.ACC_PRIVATE, "field" + i, (i % 2 == 0 ? "Ljava/lang/String;" : "I"), null, null);
+            fv.visitEnd();
+        }
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        for (int i = 0; i < METHODS; i++)
+        {
+            mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "method" + i, "(I)I", null, null);
+            if ((component || service) && i == 0)
+            {
+                AnnotationVisitor av = mv.visitAnnotation(MARKER_DESC, true);
+                av.visit("value", "m" + index);
+                av.visit("type", Type.getType("Ljava/lang/String;"));
+                av.visitEnd();
+            }
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitIntInsn(Opcodes.SIPUSH, index % Short.MAX_VALUE);
+            mv.visitInsn(Opcodes.IADD);
+            mv.visitIntInsn(Opcodes.BIPUSH, i);
+            mv.visitInsn(Opcodes.IMUL);
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * 在目录下生成classCount个类文件.
+     *
+     * @return 类目录
+     */
+    public static File writeDirectory(File root, int classCount) throws IOException
+    {
+        for (int i = 0; i < classCount; i++)
+        {
+            File file = new File(root, internalName(i) + ".class");
+            File dir = file.getParentFile();
+            if (!dir.isDirectory() && !dir.mkdirs())
+            {
+                throw new IOException("Cannot create directory " + dir);
+            }
+            OutputStream out = new FileOutputStream(file);
+            try
+            {
+                out.write(generateClass(i));
+            } finally
+            {
+                out.close();
+            }
+        }
+        return root;
+    }
+
+    /**
+     * 生成包含classCount个类文件的jar(压缩存储). 目录条目也写入jar, 以便类加载器能找到包目录.
+     *
+     * @return jar文件
+     */
+    public static File writeJar(File jar, int classCount) throws IOException
+    {
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try
+        {
+            String basePath = BASE_PACKAGE.replace('.', '/') + "/";
+            for (int i = 0, index = 0; (index = basePath.indexOf('/', i)) != -1; i = index + 1)
+            {
+                out.putNextEntry(new JarEntry(basePath.substring(0, index + 1)));
+                out.closeEntry();
+            }
+            for (int i = 0; i < Math.min(classCount, PACKAGES); i++)
+            {
+                out.putNextEntry(new JarEntry(basePath + "p" + i + "/"));
+                out.closeEntry();
+            }
+            for (int i = 0; i < classCount; i++)
+            {
+                out.putNextEntry(new JarEntry(internalName(i) + ".class"));
+                out.write(generateClass(i));
+                out.closeEntry();
+            }
+        } finally
+        {
+            out.close();
+        }
+        return jar;
+    }
+
+    /**
+     * 返回作为ClassReader/ClassWriter语料的实际类(本工程中较大的类)的字节码.
+     */
+    public static byte[][] sampleClasses() throws IOException
+    {
+        String[] classNames = { "com.jfxgraph.asm.ClassReader", "com.jfxgraph.asm.ClassWriter", "com.jfxgraph.asm.MethodWriter",
+                "com.jfxgraph.asm.Frame", "com.jfxgraph.asm.Type", "com.jfxgraph.scanner.util.AntPathMatcher",
+                "com.jfxgraph.scanner.io.loader.PathMatchingResourcePatternResolver", "com.jfxgraph.scanner.ClassPathAnnotationScanner",
+                "com.jfxgraph.scanner.visitor.AnnotationMetadataReadingVisitor", "com.jfxgraph.scanner.reader.CachingMetadataReaderFactory" };
+        byte[][] result = new byte[classNames.length][];
+        for (int i = 0; i < classNames.length; i++)
+        {
+            result[i] = bytesOf(classNames[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 读取类加载器中已有类的字节码.
+     */
+    public static byte[] bytesOf(String className) throws IOException
+    {
+        String resource = className.replace('.', '/') + ".class";
+        InputStream is = Corpus.class.getClassLoader().getResourceAsStream(resource);
+        if (is == null)
+        {
+            throw new IOException("Class file not found: " + resource);
+        }
+        try
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = is.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally
+        {
+            is.close();
+        }
+    }
+
+    /**
+     * 递归删除文件或目录.
+     */
+    public static void delete(File file)
+    {
+        File[] children = file.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,168 @@
+package com.jfxgraph.benchmark.support;
+
+import com.jfxgraph.asm.AnnotationVisitor;
+import com.jfxgraph.asm.ClassVisitor;
+import com.jfxgraph.asm.FieldVisitor;
+import com.jfxgraph.asm.Label;
+import com.jfxgraph.asm.MethodVisitor;
+import com.jfxgraph.asm.Opcodes;
+
+/**
+ * 访问类的全部内容(字段、方法及其指令、注解)并计数的ClassVisitor, 使ClassReader.accept不会因访问器返回{@code null}而跳过内容.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class CountingClassVisitor extends ClassVisitor
+{
+    private int count;
+
+    private final AnnotationVisitor annotationVisitor = new AnnotationVisitor(Opcodes.ASM4)
+    {
+        @Override
+        public void visit(String name, Object value)
+        {
+            count++;
+        }
+
+        @Override
+        public void visitEnum(String name, String desc, String value)
+        {
+            count++;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String desc)
+        {
+            count++;
+            return this;
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name)
+        {
+            count++;
+            return this;
+        }
+    };
+
+    private final FieldVisitor fieldVisitor = new FieldVisitor(Opcodes.ASM4)
+    {
+        @Override
+        public AnnotationVisitor visitAnnotation(String desc, boolean visible)
+        {
+            count++;
+            return annotationVisitor;
+        }
+    };
+
+    private final MethodVisitor methodVisitor = new MethodVisitor(Opcodes.ASM4)
+    {
+        @Override
+        public AnnotationVisitor visitAnnotation(String desc, boolean visible)
+        {
+            count++;
+            return annotationVisitor;
+        }
+
+        @Override
+        public void visitFrame(int type, int nLocal, Object[] local, int nStack, Object[] stack)
+        {
+            count++;
+        }
+
+        @Override
+        public void visitInsn(int opcode)
+        {
+            count++;
+        }
+
+        @Override
+        public void visitIntInsn(int opcode, int operand)
+        {
+            count++;
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int var)
+        {
+            count++;
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type)
+        {
+            count++;
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String desc)
+        {
+            count++;
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String desc)
+        {
+            count++;
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label)
+        {
+            count++;
+        }
+
+        @Override
+        public void visitLdcInsn(Object cst)
+        {
+            count++;
+        }
+
+        @Override
+        public void visitLocalVariable(String name, String desc, String signature, Label start, Label end, int index)
+        {
+            count++;
+        }
+
+        @Override
+        public void visitLineNumber(int line, Label start)
+        {
+            count++;
+        }
+    };
+
+    public CountingClassVisitor()
+    {
+        super(Opcodes.ASM4);
+    }
+
+    /**
+     * 返回访问到的元素数.
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String desc, boolean visible)
+    {
+        this.count++;
+        return this.annotationVisitor;
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String desc, String signature, Object value)
+    {
+        this.count++;
+        return this.fieldVisitor;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions)
+    {
+        this.count++;
+        return this.methodVisitor;
+    }
+}
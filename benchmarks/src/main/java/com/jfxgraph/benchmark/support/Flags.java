@@ -0,0 +1,59 @@
+package com.jfxgraph.benchmark.support;
+
+import com.jfxgraph.asm.ClassReader;
+import com.jfxgraph.asm.ClassWriter;
+
+/**
+ * 将基准参数中的选项名转换为ASM的标志位.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public final class Flags
+{
+    private Flags()
+    {
+    }
+
+    /**
+     * ClassReader.accept的解析选项: "0", "SKIP_CODE", "SKIP_DEBUG", "SKIP_FRAMES"或"EXPAND_FRAMES".
+     */
+    public static int parsingOptions(String name)
+    {
+        if ("0".equals(name))
+        {
+            return 0;
+        } else if ("SKIP_CODE".equals(name))
+        {
+            return ClassReader.SKIP_CODE;
+        } else if ("SKIP_DEBUG".equals(name))
+        {
+            return ClassReader.SKIP_DEBUG;
+        } else if ("SKIP_FRAMES".equals(name))
+        {
+            return ClassReader.SKIP_FRAMES;
+        } else if ("EXPAND_FRAMES".equals(name))
+        {
+            return ClassReader.EXPAND_FRAMES;
+        }
+        throw new IllegalArgumentException("Unknown parsing option: " + name);
+    }
+
+    /**
+     * ClassWriter的计算选项: "0", "COMPUTE_MAXS"或"COMPUTE_FRAMES".
+     */
+    public static int writerFlags(String name)
+    {
+        if ("0".equals(name))
+        {
+            return 0;
+        } else if ("COMPUTE_MAXS".equals(name))
+        {
+            return ClassWriter.COMPUTE_MAXS;
+        } else if ("COMPUTE_FRAMES".equals(name))
+        {
+            return ClassWriter.COMPUTE_FRAMES;
+        }
+        throw new IllegalArgumentException("Unknown writer flag: " + name);
+    }
+}
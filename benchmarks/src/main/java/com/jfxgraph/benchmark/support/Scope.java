@@ -0,0 +1,12 @@
+package com.jfxgraph.benchmark.support;
+
+/**
+ * {@link BenchComponent#scope()}的取值.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public enum Scope
+{
+    SINGLETON, PROTOTYPE
+}
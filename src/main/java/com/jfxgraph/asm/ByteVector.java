@@ -29,6 +29,9 @@
  */
 package com.jfxgraph.asm;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
  * A dynamically extensible vector of bytes. This class is roughly equivalent to
  * a DataOutputStream on top of a ByteArrayOutputStream, but is more efficient.
@@ -277,6 +280,42 @@ public class ByteVector {
         return this;
     }
 
+    /**
+     * Returns the number of bytes in this byte vector.
+     *
+     * @return the number of bytes in this byte vector.
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Writes the content of this byte vector to the given output stream.
+     *
+     * @param os the output stream to which the content must be written.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeTo(final OutputStream os) throws IOException {
+        os.write(data, 0, length);
+    }
+
+    /**
+     * Empties this byte vector so that it can be reused. The current array is
+     * kept if it can receive the given number of bytes, and is otherwise
+     * replaced (without copying its content).
+     *
+     * @param size the number of bytes that this byte vector should be able to
+     *        receive.
+     * @return this byte vector.
+     */
+    ByteVector reset(final int size) {
+        if (data.length < size) {
+            data = new byte[size];
+        }
+        length = 0;
+        return this;
+    }
+
     /**
      * Enlarge this byte vector so that it can receive n more bytes.
      *
@@ -31,6 +31,8 @@ package com.jfxgraph.asm;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * A Java class parser to make a {@link ClassVisitor} visit an existing class.
@@ -104,19 +106,48 @@ public class ClassReader {
      */
     public static final int EXPAND_FRAMES = 8;
 
+    /**
+     * Flag to skip the fields of the class. If this flag is set the
+     * field_info structures are jumped over by their length, i.e. the
+     * {@link ClassVisitor#visitField visitField} method will not be called and
+     * no field attribute is parsed.
+     */
+    public static final int SKIP_FIELDS = 16;
+
+    /**
+     * Flag to skip the methods of the class. If this flag is set the
+     * method_info structures are jumped over by their length, i.e. the
+     * {@link ClassVisitor#visitMethod visitMethod} method will not be called
+     * and no method attribute (including <code>Code</code>) is parsed. Together
+     * with {@link #SKIP_FIELDS} only the class header, the class attributes
+     * (annotations, InnerClasses, EnclosingMethod...) and
+     * {@link ClassVisitor#visitEnd visitEnd} are visited.
+     */
+    public static final int SKIP_METHODS = 32;
+
     /**
      * The class to be parsed. <i>The content of this array must not be
      * modified. This field is intended for {@link Attribute} sub classes, and
-     * is normally not needed by class generators or adapters.</i>
+     * is normally not needed by class generators or adapters.</i> It is
+     * replaced when the reader is {@link #reset reset}.
      */
-    public final byte[] b;
+    public byte[] b;
 
     /**
      * The start index of each constant pool item in {@link #b b}, plus one.
      * The one byte offset skips the constant pool item tag that indicates its
-     * type.
+     * type. The array may be longer than the constant pool of the current
+     * class when the reader has been {@link #reset reset}; see
+     * {@link #itemCount}.
+     */
+    private int[] items;
+
+    /**
+     * Number of constant pool items of the current class (the constant pool
+     * count, i.e. the number of used entries in {@link #items} and
+     * {@link #strings}).
      */
-    private final int[] items;
+    private int itemCount;
 
     /**
      * The String objects corresponding to the CONSTANT_Utf8 items. This cache
@@ -126,19 +157,27 @@ public class ClassReader {
      * would not be so great for these items (because they are much less
      * expensive to parse than CONSTANT_Utf8 items).
      */
-    private final String[] strings;
+    private String[] strings;
 
     /**
      * Maximum length of the strings contained in the constant pool of the
      * class.
      */
-    private final int maxStringLength;
+    private int maxStringLength;
 
     /**
      * Start index of the class header information (access, name...) in
      * {@link #b b}.
      */
-    public final int header;
+    public int header;
+
+    /**
+     * Per-thread buffers used to read strings. The buffers are pure scratch
+     * space (each string is copied out before any visitor is called), so they
+     * can be shared by all the readers of a thread, including nested reads
+     * done from visitor callbacks.
+     */
+    private static final ThreadLocal<char[]> CHAR_BUFFERS = new ThreadLocal<char[]>();
 
     // ------------------------------------------------------------------------
     // Constructors
@@ -161,15 +200,48 @@ public class ClassReader {
      * @param len the length of the class data.
      */
     public ClassReader(final byte[] b, final int off, final int len) {
+        parse(b, off, len);
+    }
+
+    /**
+     * Makes this reader parse another class, reusing the constant pool index
+     * arrays of this reader when they are large enough. This avoids the
+     * allocations of {@link #ClassReader(byte[], int, int) a new reader} when
+     * many classes are parsed in turn (e.g. by a scanning thread). The reader
+     * must not be in use (i.e. in {@link #accept accept}) when it is reset, and
+     * the class previously read must no longer be needed.
+     *
+     * @param b the bytecode of the class to be read.
+     * @param off the start offset of the class data.
+     * @param len the length of the class data.
+     */
+    public void reset(final byte[] b, final int off, final int len) {
+        parse(b, off, len);
+    }
+
+    /**
+     * Parses the constant pool of the given class.
+     *
+     * @param b the bytecode of the class to be read.
+     * @param off the start offset of the class data.
+     * @param len the length of the class data.
+     */
+    private void parse(final byte[] b, final int off, final int len) {
         this.b = b;
         // checks the class version
-        if (readShort(6) > Opcodes.V1_7) {
+        if (readShort(off + 6) > Opcodes.V1_7) {
             throw new IllegalArgumentException();
         }
         // parses the constant pool
-        items = new int[readUnsignedShort(off + 8)];
-        int n = items.length;
-        strings = new String[n];
+        int n = readUnsignedShort(off + 8);
+        if (items == null || items.length < n) {
+            items = new int[n];
+            strings = new String[n];
+        } else {
+            // entries beyond the previous item count are already cleared
+            Arrays.fill(strings, 0, itemCount, null);
+        }
+        itemCount = n;
         int max = 0;
         int index = off + 10;
         for (int i = 1; i < n; ++i) {
@@ -188,7 +260,7 @@ public class ClassReader {
                 case ClassWriter.LONG:
                 case ClassWriter.DOUBLE:
                     size = 9;
-                    ++i;
+                    items[++i] = 0;
                     break;
                 case ClassWriter.UTF8:
                     size = 3 + readUnsignedShort(index + 1);
@@ -235,7 +307,7 @@ public class ClassReader {
      * @see ClassVisitor#visit(int, int, String, String, String, String[])
      */
     public String getClassName() {
-        return readClass(header + 2, new char[maxStringLength]);
+        return readClass(header + 2, charBuffer());
     }
 
     /**
@@ -250,7 +322,7 @@ public class ClassReader {
      */
     public String getSuperName() {
         int n = items[readUnsignedShort(header + 4)];
-        return n == 0 ? null : readUTF8(n, new char[maxStringLength]);
+        return n == 0 ? null : readUTF8(n, charBuffer());
     }
 
     /**
@@ -267,7 +339,7 @@ public class ClassReader {
         int n = readUnsignedShort(index);
         String[] interfaces = new String[n];
         if (n > 0) {
-            char[] buf = new char[maxStringLength];
+            char[] buf = charBuffer();
             for (int i = 0; i < n; ++i) {
                 index += 2;
                 interfaces[i] = readClass(index, buf);
@@ -276,6 +348,21 @@ public class ClassReader {
         return interfaces;
     }
 
+    /**
+     * Returns the string buffer of the current thread, large enough for the
+     * longest string of this class.
+     *
+     * @return a buffer of at least {@link #maxStringLength} chars.
+     */
+    private char[] charBuffer() {
+        char[] buf = CHAR_BUFFERS.get();
+        if (buf == null || buf.length < maxStringLength) {
+            buf = new char[Math.max(maxStringLength, 256)];
+            CHAR_BUFFERS.set(buf);
+        }
+        return buf;
+    }
+
     /**
      * Copies the constant pool data into the given {@link ClassWriter}. Should
      * be called before the {@link #accept(ClassVisitor,int)} method.
@@ -283,8 +370,8 @@ public class ClassReader {
      * @param classWriter the {@link ClassWriter} to copy constant pool into.
      */
     void copyPool(final ClassWriter classWriter) {
-        char[] buf = new char[maxStringLength];
-        int ll = items.length;
+        char[] buf = charBuffer();
+        int ll = itemCount;
         Item[] items2 = new Item[ll];
         for (int i = 1; i < ll; i++) {
             int index = items[i];
@@ -448,6 +535,46 @@ public class ClassReader {
         // we are in trouble !!!
     }
 
+    /**
+     * Constructs a new {@link ClassReader} object from the remaining bytes of
+     * the given buffer. A buffer backed by an accessible array is parsed in
+     * place, without copying; the content of a direct (e.g. memory-mapped)
+     * buffer is copied once into a new array, since {@link #b b} must be a
+     * byte array. The position of the buffer is not changed.
+     *
+     * @param buffer the bytecode of the class to be read.
+     */
+    public ClassReader(final ByteBuffer buffer) {
+        this(array(buffer), arrayOffset(buffer), buffer.remaining());
+    }
+
+    /**
+     * Returns the array containing the remaining bytes of the given buffer.
+     *
+     * @param buffer a buffer.
+     * @return the backing array of the buffer if it is accessible, or else a
+     *         copy of its remaining bytes.
+     */
+    private static byte[] array(final ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return buffer.array();
+        }
+        byte[] b = new byte[buffer.remaining()];
+        buffer.duplicate().get(b);
+        return b;
+    }
+
+    /**
+     * Returns the offset of the remaining bytes of the given buffer in the
+     * array returned by {@link #array(ByteBuffer)}.
+     *
+     * @param buffer a buffer.
+     * @return the start offset of the class data.
+     */
+    private static int arrayOffset(final ByteBuffer buffer) {
+        return buffer.hasArray() ? buffer.arrayOffset() + buffer.position() : 0;
+    }
+
     /**
      * Constructs a new {@link ClassReader} object.
      *
@@ -527,7 +654,8 @@ public class ClassReader {
      * @param classVisitor the visitor that must visit this class.
      * @param flags option flags that can be used to modify the default behavior
      *        of this class. See {@link #SKIP_DEBUG}, {@link #EXPAND_FRAMES},
-     *        {@link #SKIP_FRAMES}, {@link #SKIP_CODE}.
+     *        {@link #SKIP_FRAMES}, {@link #SKIP_CODE}, {@link #SKIP_FIELDS},
+     *        {@link #SKIP_METHODS}.
      */
     public void accept(final ClassVisitor classVisitor, final int flags) {
         accept(classVisitor, new Attribute[0], flags);
@@ -549,7 +677,8 @@ public class ClassReader {
      *        writer</i>.
      * @param flags option flags that can be used to modify the default behavior
      *        of this class. See {@link #SKIP_DEBUG}, {@link #EXPAND_FRAMES},
-     *        {@link #SKIP_FRAMES}, {@link #SKIP_CODE}.
+     *        {@link #SKIP_FRAMES}, {@link #SKIP_CODE}, {@link #SKIP_FIELDS},
+     *        {@link #SKIP_METHODS}.
      */
     public void accept(
         final ClassVisitor classVisitor,
@@ -557,7 +686,7 @@ public class ClassReader {
         final int flags)
     {
         byte[] b = this.b; // the bytecode array
-        char[] c = new char[maxStringLength]; // buffer used to read strings
+        char[] c = charBuffer(); // buffer used to read strings
         int i, j, k; // loop variables
         int u, v, w; // indexes in b
         Attribute attr;
@@ -588,6 +717,8 @@ public class ClassReader {
         boolean skipCode = (flags & SKIP_CODE) != 0;
         boolean skipDebug = (flags & SKIP_DEBUG) != 0;
         boolean unzip = (flags & EXPAND_FRAMES) != 0;
+        boolean skipFields = (flags & SKIP_FIELDS) != 0;
+        boolean skipMethods = (flags & SKIP_METHODS) != 0;
 
         // skips fields and methods
         v = u;
@@ -600,6 +731,7 @@ public class ClassReader {
                 v += 6 + readInt(v + 2);
             }
         }
+        int methodsStart = v;
         i = readUnsignedShort(v);
         v += 2;
         for (; i > 0; --i) {
@@ -671,8 +803,9 @@ public class ClassReader {
             }
             v += 6 + readInt(v + 2);
         }
-        // calls the visit method
-        classVisitor.visit(readInt(4),
+        // calls the visit method (the version is read relatively to the
+        // first constant pool item, since the class may not start at 0)
+        classVisitor.visit(readInt(items[1] - 7),
                 access,
                 name,
                 signature,
@@ -732,9 +865,9 @@ public class ClassReader {
             }
         }
 
-        // visits the fields
-        i = readUnsignedShort(u);
-        u += 2;
+        // visits the fields (or jumps directly to the methods)
+        i = skipFields ? 0 : readUnsignedShort(u);
+        u = skipFields ? methodsStart : u + 2;
         for (; i > 0; --i) {
             access = readUnsignedShort(u);
             name = readUTF8(u + 2, c);
@@ -814,7 +947,7 @@ public class ClassReader {
         }
 
         // visits the methods
-        i = readUnsignedShort(u);
+        i = skipMethods ? 0 : readUnsignedShort(u);
         u += 2;
         for (; i > 0; --i) {
             int u0 = u + 6;
@@ -1992,7 +2125,7 @@ public class ClassReader {
      *  @return the number of constant pool items in {@link #b b}.
      */
     public int getItemCount() {
-        return items.length;
+        return itemCount;
     }
 
     /**
@@ -29,6 +29,10 @@
  */
 package com.jfxgraph.asm;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
 /**
  * A {@link ClassVisitor} that generates classes in bytecode form. More
  * precisely this visitor generates a byte array conforming to the Java class
@@ -479,6 +483,12 @@ public class ClassWriter extends ClassVisitor {
      */
     private final boolean computeFrames;
 
+    /**
+     * The type hierarchy used to compute common super classes, or
+     * <tt>null</tt> to load the classes (see {@link #getCommonSuperClass}).
+     */
+    private TypeHierarchy typeHierarchy;
+
     /**
      * <tt>true</tt> if the stack map tables of this class are invalid. The
      * {@link MethodWriter#resizeInstructions} method cannot transform existing
@@ -633,6 +643,30 @@ public class ClassWriter extends ClassVisitor {
         this.cr = classReader;
     }
 
+    /**
+     * Sets the type hierarchy used to compute the common super class of two
+     * types when stack map frames are computed. With a type hierarchy no class
+     * is loaded by {@link #getCommonSuperClass}; the same hierarchy (and its
+     * cached lookups) can be shared by all the class writers of a
+     * transformation.
+     *
+     * @param typeHierarchy the type hierarchy to use, or <tt>null</tt> to load
+     *        the classes with the class loader of this ClassWriter (the
+     *        default).
+     */
+    public void setTypeHierarchy(final TypeHierarchy typeHierarchy) {
+        this.typeHierarchy = typeHierarchy;
+    }
+
+    /**
+     * Returns the type hierarchy used to compute common super classes.
+     *
+     * @return the type hierarchy, or <tt>null</tt> if the classes are loaded.
+     */
+    public TypeHierarchy getTypeHierarchy() {
+        return typeHierarchy;
+    }
+
     // ------------------------------------------------------------------------
     // Implementation of the ClassVisitor abstract class
     // ------------------------------------------------------------------------
@@ -773,6 +807,76 @@ public class ClassWriter extends ClassVisitor {
      * @return the bytecode of the class that was build with this class writer.
      */
     public byte[] toByteArray() {
+        ByteVector out = putClassFile(null);
+        if (invalidFrames) {
+            return computeFrames(out).toByteArray();
+        }
+        return out.data;
+    }
+
+    /**
+     * Writes the bytecode of the class that was build with this class writer
+     * into the given byte vector. The previous content of the vector is
+     * discarded and its array is reused if it is large enough, so that a
+     * single vector can be recycled for all the classes written by a thread
+     * instead of allocating a new array for each class.
+     *
+     * @param out the byte vector to be reused, or <tt>null</tt> to allocate a
+     *        new one of the exact class size.
+     * @return the byte vector containing the bytecode of the class, i.e.
+     *         <tt>out</tt> if it is not <tt>null</tt>.
+     */
+    public ByteVector toByteVector(final ByteVector out) {
+        ByteVector bv = putClassFile(out);
+        if (invalidFrames) {
+            return computeFrames(bv).toByteVector(bv);
+        }
+        return bv;
+    }
+
+    /**
+     * Writes the bytecode of the class that was build with this class writer
+     * to the given output stream, e.g. a jar entry, without copying it into an
+     * array of the exact class size.
+     *
+     * @param os the output stream to which the bytecode must be written.
+     * @param buffer a byte vector to be reused as intermediate buffer (see
+     *        {@link #toByteVector}), or <tt>null</tt>.
+     * @return the size of the class, in bytes.
+     * @throws IOException if an I/O error occurs.
+     */
+    public int write(final OutputStream os, final ByteVector buffer) throws IOException {
+        ByteVector bv = toByteVector(buffer);
+        os.write(bv.data, 0, bv.length);
+        return bv.length;
+    }
+
+    /**
+     * Writes the bytecode of the class that was build with this class writer
+     * into the given byte buffer, at its current position.
+     *
+     * @param bb the byte buffer into which the bytecode must be written.
+     * @param buffer a byte vector to be reused as intermediate buffer (see
+     *        {@link #toByteVector}), or <tt>null</tt>.
+     * @return the size of the class, in bytes.
+     * @throws java.nio.BufferOverflowException if the byte buffer does not
+     *         have enough remaining space for the class.
+     */
+    public int write(final ByteBuffer bb, final ByteVector buffer) {
+        ByteVector bv = toByteVector(buffer);
+        bb.put(bv.data, 0, bv.length);
+        return bv.length;
+    }
+
+    /**
+     * Puts the class file of the class that was build with this class writer
+     * into a byte vector, without recomputing invalid frames.
+     *
+     * @param buffer the byte vector to be reused, or <tt>null</tt> to allocate
+     *        a new one.
+     * @return the byte vector containing the class file.
+     */
+    private ByteVector putClassFile(final ByteVector buffer) {
         if (index > Short.MAX_VALUE) {
             throw new RuntimeException("Class file too large!");
         }
@@ -851,9 +955,9 @@ public class ClassWriter extends ClassVisitor {
             size += attrs.getSize(this, null, 0, -1, -1);
         }
         size += pool.length;
-        // allocates a byte vector of this size, in order to avoid unnecessary
-        // arraycopy operations in the ByteVector.enlarge() method
-        ByteVector out = new ByteVector(size);
+        // allocates (or reuses) a byte vector of this size, in order to avoid
+        // unnecessary arraycopy operations in the ByteVector.enlarge() method
+        ByteVector out = buffer == null ? new ByteVector(size) : buffer.reset(size);
         out.putInt(0xCAFEBABE).putInt(version);
         out.putShort(index).putByteArray(pool.data, 0, pool.length);
         int mask = Opcodes.ACC_DEPRECATED
@@ -921,12 +1025,23 @@ public class ClassWriter extends ClassVisitor {
         if (attrs != null) {
             attrs.put(this, null, 0, -1, -1, out);
         }
-        if (invalidFrames) {
-            ClassWriter cw = new ClassWriter(COMPUTE_FRAMES);
-            new ClassReader(out.data).accept(cw, ClassReader.SKIP_FRAMES);
-            return cw.toByteArray();
-        }
-        return out.data;
+        return out;
+    }
+
+    /**
+     * Rewrites the given class file with {@link #COMPUTE_FRAMES}, when some
+     * frames could not be copied (see {@link #invalidFrames}).
+     *
+     * @param out the class file put by {@link #putClassFile}.
+     * @return a class writer containing the rewritten class. The given byte
+     *         vector is no longer used by the returned writer and can
+     *         therefore be reused to write it.
+     */
+    private ClassWriter computeFrames(final ByteVector out) {
+        ClassWriter cw = new ClassWriter(COMPUTE_FRAMES);
+        cw.setTypeHierarchy(typeHierarchy);
+        new ClassReader(out.data, 0, out.length).accept(cw, ClassReader.SKIP_FRAMES);
+        return cw;
     }
 
     // ------------------------------------------------------------------------
@@ -1564,8 +1679,10 @@ public class ClassWriter extends ClassVisitor {
     }
 
     /**
-     * Returns the common super type of the two given types. The default
-     * implementation of this method <i>loads<i> the two given classes and uses
+     * Returns the common super type of the two given types. If a
+     * {@link #setTypeHierarchy type hierarchy} is set, the common super class
+     * is computed from it. Otherwise the default implementation of this
+     * method <i>loads<i> the two given classes and uses
      * the java.lang.Class methods to find the common super class. It can be
      * overridden to compute this common super type in other ways, in particular
      * without actually loading any class, or to take into account the class
@@ -1579,6 +1696,9 @@ public class ClassWriter extends ClassVisitor {
      */
     protected String getCommonSuperClass(final String type1, final String type2)
     {
+        if (typeHierarchy != null) {
+            return getCommonSuperClass(type1, type2, typeHierarchy);
+        }
         Class<?> c, d;
         ClassLoader classLoader = getClass().getClassLoader();
         try {
@@ -1603,6 +1723,88 @@ public class ClassWriter extends ClassVisitor {
         }
     }
 
+    /**
+     * Returns the common super type of the two given types, using the given
+     * type hierarchy. The result is the same as the one computed with the
+     * java.lang.Class methods in {@link #getCommonSuperClass(String, String)}.
+     *
+     * @param type1 the internal name of a class.
+     * @param type2 the internal name of another class.
+     * @param hierarchy the type hierarchy.
+     * @return the internal name of the common super class of the two given
+     *         classes.
+     */
+    private static String getCommonSuperClass(final String type1,
+        final String type2, final TypeHierarchy hierarchy)
+    {
+        if (isAssignableFrom(type1, type2, hierarchy)) {
+            return type1;
+        }
+        if (isAssignableFrom(type2, type1, hierarchy)) {
+            return type2;
+        }
+        if (hierarchy.isInterface(type1) || hierarchy.isInterface(type2)) {
+            return "java/lang/Object";
+        }
+        String c = type1;
+        do {
+            c = hierarchy.getSuperName(c);
+            if (c == null) {
+                return "java/lang/Object";
+            }
+        } while (!isAssignableFrom(c, type2, hierarchy));
+        return c;
+    }
+
+    /**
+     * Returns whether a value of the second type can be assigned to the first
+     * type, like {@link Class#isAssignableFrom}.
+     *
+     * @param target the internal name of the target type.
+     * @param type the internal name of the assigned type.
+     * @param hierarchy the type hierarchy.
+     * @return <tt>true</tt> if <tt>type</tt> is <tt>target</tt> or a sub type
+     *         of <tt>target</tt>.
+     */
+    private static boolean isAssignableFrom(final String target,
+        final String type, final TypeHierarchy hierarchy)
+    {
+        if (target.equals(type) || "java/lang/Object".equals(target)) {
+            return true;
+        }
+        boolean itf = hierarchy.isInterface(target);
+        for (String t = type; t != null; t = hierarchy.getSuperName(t)) {
+            if (t.equals(target) || (itf && hasInterface(t, target, hierarchy))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the given type implements (or extends) the given
+     * interface, directly or through its super interfaces.
+     *
+     * @param type the internal name of a class or interface.
+     * @param itf the internal name of an interface.
+     * @param hierarchy the type hierarchy.
+     * @return <tt>true</tt> if <tt>itf</tt> is a super interface of
+     *         <tt>type</tt>.
+     */
+    private static boolean hasInterface(final String type, final String itf,
+        final TypeHierarchy hierarchy)
+    {
+        String[] interfaces = hierarchy.getInterfaces(type);
+        for (int i = 0; i < interfaces.length; ++i) {
+            if (interfaces[i].equals(itf)
+                    || hasInterface(interfaces[i], itf, hierarchy))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns the constant pool's hash table item which is equal to the given
      * item.
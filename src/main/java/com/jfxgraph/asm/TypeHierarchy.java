@@ -0,0 +1,47 @@
+package com.jfxgraph.asm;
+
+/**
+ * Provides the super class, the interfaces and the kind of the classes
+ * referenced while a {@link ClassWriter} computes stack map frames (see
+ * {@link ClassWriter#COMPUTE_FRAMES}). A {@link ClassWriter} with a type
+ * hierarchy computes the common super class of two types from this
+ * information instead of loading the types with {@link Class#forName}.
+ * Implementations are typically shared by all the class writers of a
+ * transformation, and should then be thread safe and cache their results.
+ *
+ * @author Albert
+ * @since 1.1
+ * @see ClassWriter#setTypeHierarchy(TypeHierarchy)
+ */
+public interface TypeHierarchy {
+
+    /**
+     * Returns the internal name of the super class of the given class.
+     *
+     * @param type the internal name of a class or interface.
+     * @return the internal name of its super class (<tt>java/lang/Object</tt>
+     *         for interfaces), or <tt>null</tt> for <tt>java/lang/Object</tt>.
+     * @throws RuntimeException if the given type cannot be found.
+     */
+    String getSuperName(String type);
+
+    /**
+     * Returns the internal names of the interfaces directly implemented (or
+     * extended) by the given class.
+     *
+     * @param type the internal name of a class or interface.
+     * @return the internal names of its direct interfaces, never
+     *         <tt>null</tt>.
+     * @throws RuntimeException if the given type cannot be found.
+     */
+    String[] getInterfaces(String type);
+
+    /**
+     * Returns whether the given type is an interface.
+     *
+     * @param type the internal name of a class or interface.
+     * @return <tt>true</tt> if the type is an interface.
+     * @throws RuntimeException if the given type cannot be found.
+     */
+    boolean isInterface(String type);
+}
@@ -0,0 +1,67 @@
+package com.jfxgraph.scanner;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.jfxgraph.scanner.beans.ScannedGenericBeanDefinition;
+
+/**
+ * 一次增量扫描的结果: 相对上一次扫描新增、移除和变化的候选组件.
+ *
+ * @author Albert
+ * @since 1.1
+ * @see IncrementalAnnotationScanner#rescan()
+ */
+public class AnnotationScanDelta
+{
+    private final List<ScannedGenericBeanDefinition> added;
+
+    private final List<ScannedGenericBeanDefinition> removed;
+
+    private final List<ScannedGenericBeanDefinition> changed;
+
+    AnnotationScanDelta(List<ScannedGenericBeanDefinition> added, List<ScannedGenericBeanDefinition> removed, List<ScannedGenericBeanDefinition> changed)
+    {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * 返回新出现的候选组件(新增的类文件, 或修改后才通过过滤的类).
+     */
+    public List<ScannedGenericBeanDefinition> getAdded()
+    {
+        return this.added;
+    }
+
+    /**
+     * 返回不再是候选组件的定义(类文件被删除, 或修改后不再通过过滤), 即上一次扫描得到的定义.
+     */
+    public List<ScannedGenericBeanDefinition> getRemoved()
+    {
+        return this.removed;
+    }
+
+    /**
+     * 返回类文件被修改且仍是候选组件的定义, 即重新读取的定义.
+     */
+    public List<ScannedGenericBeanDefinition> getChanged()
+    {
+        return this.changed;
+    }
+
+    /**
+     * 是否没有任何变化.
+     */
+    public boolean isEmpty()
+    {
+        return (this.added.isEmpty() && this.removed.isEmpty() && this.changed.isEmpty());
+    }
+
+    @Override
+    public String toString()
+    {
+        return "added=" + this.added.size() + ", removed=" + this.removed.size() + ", changed=" + this.changed.size();
+    }
+}
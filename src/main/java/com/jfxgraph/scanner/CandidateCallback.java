@@ -0,0 +1,26 @@
+package com.jfxgraph.scanner;
+
+import java.io.IOException;
+
+import com.jfxgraph.scanner.beans.ScannedGenericBeanDefinition;
+
+/**
+ * 逐个处理扫描到的候选组件的回调.
+ *
+ * @author Albert
+ * @since 1.1
+ * @see ClassPathAnnotationScanner#findAnnotationDefinition(String, CandidateCallback)
+ */
+public interface CandidateCallback
+{
+    /**
+     * 处理一个通过过滤的候选组件.
+     *
+     * @param candidate
+     *            候选组件定义
+     * @return 是否继续扫描; 返回{@code false}时不再读取其余的类文件
+     * @throws IOException
+     *             处理时发生I/O错误, 将终止扫描
+     */
+    boolean doWithCandidate(ScannedGenericBeanDefinition candidate) throws IOException;
+}
@@ -1,24 +1,51 @@
 package com.jfxgraph.scanner;
 
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.jfxgraph.scanner.beans.AnnotatedBeanDefinition;
 import com.jfxgraph.scanner.beans.ScannedGenericBeanDefinition;
+import com.jfxgraph.scanner.index.AnnotationIndex;
 import com.jfxgraph.scanner.io.Resource;
+import com.jfxgraph.scanner.io.UrlResource;
 import com.jfxgraph.scanner.io.loader.PathMatchingResourcePatternResolver;
+import com.jfxgraph.scanner.io.loader.ResourceCallback;
 import com.jfxgraph.scanner.io.loader.ResourcePatternResolver;
+import com.jfxgraph.scanner.reader.AnnotationConstantPoolPrefilter;
 import com.jfxgraph.scanner.reader.CachingMetadataReaderFactory;
 import com.jfxgraph.scanner.reader.MetadataReader;
 import com.jfxgraph.scanner.reader.MetadataReaderFactory;
+import com.jfxgraph.scanner.reader.PersistentMetadataReaderFactory;
+import com.jfxgraph.scanner.reader.SimpleMetadataReaderFactory;
+import com.jfxgraph.scanner.type.filter.AbstractClassTestingTypeFilter;
+import com.jfxgraph.scanner.type.filter.AbstractTypeHierarchyTraversingFilter;
+import com.jfxgraph.scanner.type.filter.AnnotationTypeFilter;
 import com.jfxgraph.scanner.type.filter.TypeFilter;
+import com.jfxgraph.scanner.util.Assert;
 import com.jfxgraph.scanner.util.ClassUtils;
+import com.jfxgraph.scanner.util.PathPattern;
+import com.jfxgraph.scanner.util.PathPatternUtils;
 
 /**
  * ClassPath下的Annotation扫描器. 特殊描述:
@@ -32,6 +59,9 @@ public class ClassPathAnnotationScanner
 
     static final String DEFAULT_RESOURCE_PATTERN = "**/*.class";
 
+    // 并行扫描时每个工作线程一批处理的资源数.
+    private static final int RESOURCES_PER_WORKER = 256;
+
     private String resourcePattern = DEFAULT_RESOURCE_PATTERN;
 
     // 路径解析器.
@@ -43,13 +73,181 @@ public class ClassPathAnnotationScanner
     private final List<TypeFilter> includeFilters = new LinkedList<TypeFilter>();
 
     private final List<TypeFilter> excludeFilters = new LinkedList<TypeFilter>();
-    
+
+    // 并行扫描使用的线程池, 为null时按parallelism自行创建ForkJoinPool.
+    private ExecutorService executor;
+
+    // 并行度, 小于等于1时顺序扫描.
+    private int parallelism = 1;
+
+    // 是否优先使用构建期生成的注解索引.
+    private boolean useAnnotationIndex = false;
+
+    // 已加载的注解索引, 键为类路径根目录的URL.
+    private final Map<String, AnnotationIndex> annotationIndexes = new ConcurrentHashMap<String, AnnotationIndex>();
+
+    // 是否用常量池预筛选类文件.
+    private boolean constantPoolPrefilter = true;
+
+    // 按当前包含过滤器创建的预筛选器, 过滤器或元数据工厂变化时重建.
+    private volatile AnnotationConstantPoolPrefilter classFilePrefilter;
+
+    /**
+     * Set the {@link ExecutorService} used to read and filter class files concurrently. The
+     * executor is not shut down by this scanner.
+     * <p>
+     * 设置后即启用并行扫描, 结果仍按类路径顺序返回. 同时提交的分段数按{@link #setParallelism 并行度}(大于1时)确定,
+     * 否则取自线程池: {@link ForkJoinPool}的并行度、{@link ThreadPoolExecutor}的最大线程数(无上限时取核心线程数与处理器数的较大者),
+     * 其它线程池按处理器数.
+     */
+    public void setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Set the number of worker threads for parallel scanning. Default is 1 (sequential). If no
+     * {@link #setExecutor executor} has been specified, a {@link ForkJoinPool} of the given
+     * parallelism is created for each scan; otherwise a value greater than 1 overrides the
+     * parallelism derived from the executor.
+     */
+    public void setParallelism(int parallelism)
+    {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Return the number of worker threads used for parallel scanning.
+     */
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * Set the {@link MetadataReaderFactory} to use. Default is a {@link CachingMetadataReaderFactory}
+     * for the scanner's resource pattern resolver.
+     */
+    public void setMetadataReaderFactory(MetadataReaderFactory metadataReaderFactory)
+    {
+        this.metadataReaderFactory = metadataReaderFactory;
+        this.classFilePrefilter = null;
+    }
+
+    /**
+     * Return the {@link MetadataReaderFactory} used by this scanner.
+     */
+    public final MetadataReaderFactory getMetadataReaderFactory()
+    {
+        return this.metadataReaderFactory;
+    }
+
+    /**
+     * Return the ResourcePatternResolver used to find class files.
+     */
+    ResourcePatternResolver getResourcePatternResolver()
+    {
+        return this.resourcePatternResolver;
+    }
+
+    /**
+     * Return the pattern of class files below each base package, "**&#47;*.class" by default.
+     */
+    String getResourcePattern()
+    {
+        return this.resourcePattern;
+    }
+
+    /**
+     * 过滤结果是否可能取决于父类或接口的元数据: 有过滤器考虑继承的注解或接口上的注解, 或者是无法判断的过滤器实现.
+     */
+    boolean isTypeHierarchyDependent()
+    {
+        return isTypeHierarchyDependent(this.includeFilters) || isTypeHierarchyDependent(this.excludeFilters);
+    }
+
+    private static boolean isTypeHierarchyDependent(List<TypeFilter> filters)
+    {
+        for (TypeFilter tf : filters)
+        {
+            if (tf instanceof AbstractTypeHierarchyTraversingFilter)
+            {
+                AbstractTypeHierarchyTraversingFilter hierarchyFilter = (AbstractTypeHierarchyTraversingFilter) tf;
+                if (hierarchyFilter.isConsiderInherited() || hierarchyFilter.isConsiderInterfaces())
+                {
+                    return true;
+                }
+            } else if (!(tf instanceof AbstractClassTestingTypeFilter))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 启用磁盘元数据索引: 在给定目录下使用{@link PersistentMetadataReaderFactory#DEFAULT_INDEX_FILE_NAME}索引文件,
+     * 未变化的类文件在再次扫描时直接由索引恢复元数据. 每次扫描结束后索引自动写回.
+     *
+     * @param indexDirectory
+     *            索引文件所在目录
+     */
+    public void setMetadataIndexDirectory(File indexDirectory)
+    {
+        this.metadataReaderFactory = new PersistentMetadataReaderFactory(new File(indexDirectory,
+                PersistentMetadataReaderFactory.DEFAULT_INDEX_FILE_NAME), this.resourcePatternResolver);
+        this.classFilePrefilter = null;
+    }
+
+    /**
+     * 设置是否以纯字节码方式读取注解, 使扫描过程不加载注解类型、枚举类型等应用类.
+     * 
+     * @see SimpleMetadataReaderFactory#setBytecodeAnnotationIntrospection(boolean)
+     * @throws IllegalStateException
+     *             当前的MetadataReaderFactory不是SimpleMetadataReaderFactory时抛出
+     */
+    public void setBytecodeAnnotationIntrospection(boolean bytecodeAnnotationIntrospection)
+    {
+        if (!(this.metadataReaderFactory instanceof SimpleMetadataReaderFactory))
+        {
+            throw new IllegalStateException("MetadataReaderFactory[" + this.metadataReaderFactory + "]不支持纯字节码方式读取注解.");
+        }
+        ((SimpleMetadataReaderFactory) this.metadataReaderFactory).setBytecodeAnnotationIntrospection(bytecodeAnnotationIntrospection);
+        this.classFilePrefilter = null;
+    }
+
+    /**
+     * 设置是否优先使用{@link com.jfxgraph.scanner.index.AnnotationIndexGenerator}在构建期生成的注解索引. 默认不使用.
+     * <p>
+     * 启用后, 若所有包含过滤器都是{@link AnnotationTypeFilter}, 则对带有{@link AnnotationIndex#INDEX_LOCATION}索引的类路径根,
+     * 只从索引中取出与注解类型相关的类进行过滤, 不再遍历目录和解析类文件; 没有索引的类路径根仍按常规方式扫描.
+     */
+    public void setUseAnnotationIndex(boolean useAnnotationIndex)
+    {
+        this.useAnnotationIndex = useAnnotationIndex;
+    }
+
+    /**
+     * 设置是否在读取完整元数据之前用常量池预筛选类文件. 默认启用.
+     * <p>
+     * 仅在所有包含过滤器都是{@link AnnotationTypeFilter}且元数据工厂为{@link SimpleMetadataReaderFactory}时生效:
+     * 常量池中既没有目标注解, 也没有带有目标元注解的注解的类不再完整读取.
+     * 
+     * @see AnnotationConstantPoolPrefilter
+     */
+    public void setConstantPoolPrefilter(boolean constantPoolPrefilter)
+    {
+        this.constantPoolPrefilter = constantPoolPrefilter;
+        this.classFilePrefilter = null;
+    }
+
     /**
      * Add an include type filter to the <i>end</i> of the inclusion list.
      */
     public void addIncludeFilter(TypeFilter includeFilter) 
     {
         this.includeFilters.add(includeFilter);
+        this.classFilePrefilter = null;
     }
 
     /**
@@ -59,63 +257,484 @@ public class ClassPathAnnotationScanner
      * @param basePackage
      */
     public Set<ScannedGenericBeanDefinition> findAnnotationDefinition(String basePackage)
+    {
+        return findAnnotationDefinition(new String[] { basePackage });
+    }
+
+    /**
+     * 获取多个包下的所有注解元数据, 各包合并为一次扫描.
+     * 
+     * @param basePackages
+     *            基础包
+     * @see #findAnnotationDefinition(String[], CandidateCallback)
+     */
+    public Set<ScannedGenericBeanDefinition> findAnnotationDefinition(String... basePackages)
     {
         // 准备容器进行转移读取到的元数据信息.
-        Set<ScannedGenericBeanDefinition> candidates = new LinkedHashSet<ScannedGenericBeanDefinition>();
+        final Set<ScannedGenericBeanDefinition> candidates = new LinkedHashSet<ScannedGenericBeanDefinition>();
+        findAnnotationDefinition(basePackages, new CandidateCallback()
+        {
+            @Override
+            public boolean doWithCandidate(ScannedGenericBeanDefinition candidate)
+            {
+                candidates.add(candidate);
+                return true;
+            }
+        });
+        return candidates;
+    }
 
-        String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + resolveBasePackage(basePackage) + "/" + this.resourcePattern;
-        // 解析为搜索的路径
-        try
+    /**
+     * 返回baskPackage包下按类路径顺序找到的第一个候选组件, 找到后即停止扫描; 没有时返回{@code null}.
+     * 
+     * @param basePackage
+     *            基础包
+     */
+    public ScannedGenericBeanDefinition findFirstAnnotationDefinition(String basePackage)
+    {
+        final ScannedGenericBeanDefinition[] first = new ScannedGenericBeanDefinition[1];
+        findAnnotationDefinition(new String[] { basePackage }, new CandidateCallback()
         {
-            // classpath*:com/epichust/mestar/**/*.class
-            Resource[] resources = this.resourcePatternResolver.getResources(packageSearchPath);
+            @Override
+            public boolean doWithCandidate(ScannedGenericBeanDefinition candidate)
+            {
+                first[0] = candidate;
+                return false;
+            }
+        });
+        return first[0];
+    }
 
-            boolean traceEnabled = logger.isTraceEnabled();
-            boolean debugEnabled = logger.isDebugEnabled();
+    /**
+     * 扫描baskPackage包, 每找到一个候选组件即按类路径顺序交给回调, 不预先收集全部资源和候选组件; 回调返回{@code false}时停止扫描.
+     * <p>
+     * 并行扫描时资源按批(每个工作线程{@value #RESOURCES_PER_WORKER}个)读取和过滤, 一批处理完后再依次回调, 因此停止扫描时至多多读取一批类文件.
+     * 
+     * @param basePackage
+     *            基础包
+     * @param callback
+     *            处理候选组件的回调
+     * @return 是否扫描完整个包(未被回调终止)
+     */
+    public boolean findAnnotationDefinition(String basePackage, CandidateCallback callback)
+    {
+        return findAnnotationDefinition(new String[] { basePackage }, callback);
+    }
 
-            for (Resource resource : resources)
+    /**
+     * 扫描多个包, 每找到一个候选组件即交给回调; 回调返回{@code false}时停止扫描.
+     * <p>
+     * 重复的包, 以及已被其它包包含的子包(资源模式以"**&#47;"开头时, 例如同时指定a.b和a.b.c)只扫描一次.
+     * 使用{@link PathMatchingResourcePatternResolver}时各包按类路径根合并, 每个jar只遍历一遍条目, 每个目录只遍历一次.
+     * 
+     * @param basePackages
+     *            基础包
+     * @param callback
+     *            处理候选组件的回调
+     * @return 是否扫描完所有包(未被回调终止)
+     * @see #findAnnotationDefinition(String, CandidateCallback)
+     */
+    public boolean findAnnotationDefinition(String[] basePackages, CandidateCallback callback)
+    {
+        Assert.notNull(basePackages, "Base packages must not be null");
+        Assert.notNull(callback, "CandidateCallback must not be null");
+        List<String> packagePaths = resolvePackagePaths(basePackages);
+        CandidateScan scan = new CandidateScan(callback);
+        // 解析为搜索的路径
+        try
+        {
+            boolean completed = true;
+            Collection<String> indexedAnnotationTypes = determineIndexedAnnotationTypes();
+            if (indexedAnnotationTypes != null)
             {
-                if (resource.isReadable())
+                for (String packagePath : packagePaths)
                 {
-                    // 返回SimpleMetadataReader实例.
-                    MetadataReader metadataReader = this.metadataReaderFactory.getMetadataReader(resource);
-
-                    if (isCandidateComponent(metadataReader))
+                    if (!findCandidatesWithIndex(packagePath, indexedAnnotationTypes, scan))
                     {
-                        // 通过metaDataReader生成对应的使用实例
-                        ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
-
-                        if (isCandidateComponent(sbd))
-                        {
-                            candidates.add(sbd);
-                        } else
-                        {
-                            if (debugEnabled)
-                            {
-                                logger.debug("因为不是具体的顶级类，被忽略资源文件: " + resource);
-                            }
-                        }
-                    } else
+                        completed = false;
+                        break;
+                    }
+                }
+            } else if (this.resourcePatternResolver instanceof PathMatchingResourcePatternResolver)
+            {
+                // 逐个类路径根遍历, 遍历的同时读取和过滤(jar只打开一次, 条目直接从已打开的jar文件读取)
+                String[] locationPatterns = new String[packagePaths.size()];
+                for (int i = 0; i < locationPatterns.length; i++)
+                {
+                    locationPatterns[i] = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + packagePaths.get(i) + this.resourcePattern;
+                }
+                completed = ((PathMatchingResourcePatternResolver) this.resourcePatternResolver).doWithResources(locationPatterns, scan);
+            } else
+            {
+                // classpath*:com/epichust/mestar/**/*.class
+                search: for (String packagePath : packagePaths)
+                {
+                    for (Resource resource : this.resourcePatternResolver.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + packagePath
+                            + this.resourcePattern))
                     {
-                        if (traceEnabled)
+                        if (!scan.doWithResource(resource))
                         {
-                            logger.trace("不匹配任何Annotation筛选器，被忽略: " + resource);
+                            completed = false;
+                            break search;
                         }
                     }
-                } else
+                }
+            }
+            completed = completed && scan.flush();
+            if (this.metadataReaderFactory instanceof PersistentMetadataReaderFactory)
+            {
+                ((PersistentMetadataReaderFactory) this.metadataReaderFactory).save();
+            }
+            return completed;
+        } catch (IOException ex)
+        {
+            throw new RuntimeException("在扫描类路径时I/O发生错误.", ex);
+        } finally
+        {
+            scan.close();
+            clearClassNamePool();
+        }
+    }
+
+    /**
+     * 一次扫描结束后清空元数据工厂的{@link SimpleMetadataReaderFactory#getClassNamePool() 类名池}. 池只增不减, 只在一次扫描内共用;
+     * {@link CachingMetadataReaderFactory}的缓存按LRU淘汰读取器, 池不随之缩小, 因此同样在此清空.
+     */
+    void clearClassNamePool()
+    {
+        if (this.metadataReaderFactory instanceof SimpleMetadataReaderFactory)
+        {
+            ((SimpleMetadataReaderFactory) this.metadataReaderFactory).getClassNamePool().clear();
+        }
+    }
+
+    /**
+     * 将基础包转化为以"/"结尾的资源路径, 去掉重复的包; 资源模式以"**&#47;"开头时, 再去掉已被其它包包含的子包.
+     */
+    List<String> resolvePackagePaths(String[] basePackages)
+    {
+        Set<String> packagePaths = new LinkedHashSet<String>();
+        for (String basePackage : basePackages)
+        {
+            packagePaths.add(resolveBasePackage(basePackage) + "/");
+        }
+        List<String> result = new ArrayList<String>(packagePaths);
+        if (!this.resourcePattern.startsWith("**/"))
+        {
+            return result;
+        }
+        for (Iterator<String> it = result.iterator(); it.hasNext();)
+        {
+            String packagePath = it.next();
+            for (String other : packagePaths)
+            {
+                // 含通配符的包路径不能作为前缀比较
+                if (!other.equals(packagePath) && packagePath.startsWith(other) && other.indexOf('*') == -1 && other.indexOf('?') == -1)
                 {
-                    if (traceEnabled)
+                    it.remove();
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 返回可以用注解索引筛选的注解类型; 未启用索引, 或存在非{@link AnnotationTypeFilter}的包含过滤器时返回{@code null}.
+     */
+    private Collection<String> determineIndexedAnnotationTypes()
+    {
+        if (!this.useAnnotationIndex || this.includeFilters.isEmpty() || !(this.resourcePatternResolver instanceof PathMatchingResourcePatternResolver))
+        {
+            return null;
+        }
+        Set<String> annotationTypes = new LinkedHashSet<String>();
+        for (TypeFilter tf : this.includeFilters)
+        {
+            if (!(tf instanceof AnnotationTypeFilter))
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("包含过滤器[" + tf + "]不是注解过滤器, 不使用注解索引.");
+                }
+                return null;
+            }
+            annotationTypes.add(((AnnotationTypeFilter) tf).getAnnotationType().getName());
+        }
+        return annotationTypes;
+    }
+
+    /**
+     * 逐个类路径根查找候选组件: 有注解索引的根只处理索引中与注解类型相关的类, 其余的根按常规方式扫描.
+     * 
+     * @return 是否扫描完所有类路径根(未被回调终止)
+     */
+    private boolean findCandidatesWithIndex(String packagePath, Collection<String> annotationTypes, CandidateScan scan) throws IOException
+    {
+        PathMatchingResourcePatternResolver resolver = (PathMatchingResourcePatternResolver) this.resourcePatternResolver;
+        PathPattern pathPattern = PathPatternUtils.compile(resolver.getPathMatcher(), packagePath + this.resourcePattern);
+        for (Resource rootDirResource : resolver.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + packagePath))
+        {
+            AnnotationIndex index = getAnnotationIndex(rootDirResource, packagePath);
+            if (index == null)
+            {
+                if (!resolver.doWithMatchingResources(rootDirResource, this.resourcePattern, scan))
+                {
+                    return false;
+                }
+                continue;
+            }
+            // 先回调之前的类路径根中尚未处理的资源, 保持类路径顺序.
+            if (!scan.flush())
+            {
+                return false;
+            }
+            for (int entry : index.getCandidates(annotationTypes))
+            {
+                String path = index.getPath(entry);
+                if (path.startsWith(packagePath) && pathPattern.match(path))
+                {
+                    Resource resource = rootDirResource.createRelative(path.substring(packagePath.length()));
+                    if (!scan.emit(scanCandidateComponent(index.getMetadataReader(entry, resource, resolver.getClassLoader()))))
                     {
-                        logger.trace("资源不可读，被忽略: " + resource);
+                        return false;
                     }
                 }
             }
-        } catch (IOException ex)
+        }
+        return true;
+    }
+
+    /**
+     * 返回包目录所在类路径根的注解索引, 没有索引时返回{@code null}.
+     */
+    private AnnotationIndex getAnnotationIndex(Resource rootDirResource, String packagePath) throws IOException
+    {
+        String rootDirUrl = rootDirResource.getURL().toString();
+        if (!rootDirUrl.endsWith(packagePath))
         {
-            throw new RuntimeException("在扫描类路径时I/O发生错误.", ex);
+            return null;
         }
+        String rootUrl = rootDirUrl.substring(0, rootDirUrl.length() - packagePath.length());
+        AnnotationIndex index = this.annotationIndexes.get(rootUrl);
+        if (index == null)
+        {
+            Resource indexResource = new UrlResource(rootUrl + AnnotationIndex.INDEX_LOCATION);
+            if (!indexResource.exists())
+            {
+                return null;
+            }
+            try
+            {
+                index = AnnotationIndex.load(indexResource);
+            } catch (IOException ex)
+            {
+                logger.warn("无法读取注解索引, 按常规方式扫描: " + indexResource, ex);
+                return null;
+            }
+            this.annotationIndexes.put(rootUrl, index);
+        }
+        return index;
+    }
 
-        return candidates;
+    /**
+     * 读取单个类文件并依次执行过滤, 不是候选组件时返回{@code null}. 不可读(包括没有读取权限)的类文件被忽略.
+     * 
+     * @param resource
+     *            类文件资源
+     * @return 候选组件定义, 或{@code null}
+     * @throws IOException
+     *             读取类文件失败时抛出
+     */
+    protected ScannedGenericBeanDefinition scanCandidateComponent(Resource resource) throws IOException
+    {
+        if (!resource.isReadable())
+        {
+            if (logger.isTraceEnabled())
+            {
+                logger.trace("资源不可读，被忽略: " + resource);
+            }
+            return null;
+        }
+        // 文件快照资源不检查读取权限, 无权限的文件在读取时才失败, 与之前isReadable()返回false时一样忽略.
+        try
+        {
+            return readCandidateComponent(resource);
+        } catch (AccessDeniedException ex)
+        {
+            if (logger.isTraceEnabled())
+            {
+                logger.trace("资源不可读，被忽略: " + resource, ex);
+            }
+            return null;
+        } catch (FileNotFoundException ex)
+        {
+            if (logger.isTraceEnabled())
+            {
+                logger.trace("资源不可读，被忽略: " + resource, ex);
+            }
+            return null;
+        }
+    }
+
+    private ScannedGenericBeanDefinition readCandidateComponent(Resource resource) throws IOException
+    {
+        AnnotationConstantPoolPrefilter prefilter = getClassFilePrefilter();
+        if (prefilter == null)
+        {
+            // 返回SimpleMetadataReader实例.
+            return scanCandidateComponent(this.metadataReaderFactory.getMetadataReader(resource));
+        }
+        MetadataReader metadataReader = ((SimpleMetadataReaderFactory) this.metadataReaderFactory).getMetadataReader(resource, prefilter);
+        if (metadataReader == null)
+        {
+            if (logger.isTraceEnabled())
+            {
+                logger.trace("常量池中没有可能匹配的注解，被忽略: " + resource);
+            }
+            return null;
+        }
+        return scanCandidateComponent(metadataReader);
+    }
+
+    /**
+     * 返回按包含过滤器创建的常量池预筛选器; 未启用预筛选, 元数据工厂不是{@link SimpleMetadataReaderFactory},
+     * 或存在非{@link AnnotationTypeFilter}的包含过滤器时返回{@code null}.
+     */
+    private AnnotationConstantPoolPrefilter getClassFilePrefilter()
+    {
+        if (!this.constantPoolPrefilter || this.includeFilters.isEmpty() || !(this.metadataReaderFactory instanceof SimpleMetadataReaderFactory))
+        {
+            return null;
+        }
+        AnnotationConstantPoolPrefilter prefilter = this.classFilePrefilter;
+        if (prefilter == null)
+        {
+            Set<String> annotationTypes = new LinkedHashSet<String>();
+            boolean considerInherited = false;
+            boolean considerInterfaces = false;
+            for (TypeFilter tf : this.includeFilters)
+            {
+                if (!(tf instanceof AnnotationTypeFilter))
+                {
+                    return null;
+                }
+                AnnotationTypeFilter annotationTypeFilter = (AnnotationTypeFilter) tf;
+                annotationTypes.add(annotationTypeFilter.getAnnotationType().getName());
+                considerInherited |= annotationTypeFilter.isConsiderInherited();
+                considerInterfaces |= annotationTypeFilter.isConsiderInterfaces();
+            }
+            prefilter = new AnnotationConstantPoolPrefilter(annotationTypes,
+                    ((SimpleMetadataReaderFactory) this.metadataReaderFactory).getAnnotationTypeIntrospector());
+            prefilter.setConsiderInherited(considerInherited);
+            prefilter.setConsiderInterfaces(considerInterfaces);
+            this.classFilePrefilter = prefilter;
+        }
+        return prefilter;
+    }
+
+    /**
+     * 对已读取的类元数据依次执行过滤, 不是候选组件时返回{@code null}.
+     */
+    private ScannedGenericBeanDefinition scanCandidateComponent(MetadataReader metadataReader) throws IOException
+    {
+        Resource resource = metadataReader.getResource();
+        if (!isCandidateComponent(metadataReader))
+        {
+            if (logger.isTraceEnabled())
+            {
+                logger.trace("不匹配任何Annotation筛选器，被忽略: " + resource);
+            }
+            return null;
+        }
+        // 通过metaDataReader生成对应的使用实例
+        ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
+
+        if (!isCandidateComponent(sbd))
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("因为不是具体的顶级类，被忽略资源文件: " + resource);
+            }
+            return null;
+        }
+        return sbd;
+    }
+
+    /**
+     * 返回给定线程池可以同时执行的任务数, 用于确定并行扫描时同时提交的分段数.
+     */
+    private static int executorParallelism(ExecutorService executor)
+    {
+        if (executor instanceof ForkJoinPool)
+        {
+            return ((ForkJoinPool) executor).getParallelism();
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (executor instanceof ThreadPoolExecutor)
+        {
+            ThreadPoolExecutor threadPool = (ThreadPoolExecutor) executor;
+            int maximumPoolSize = threadPool.getMaximumPoolSize();
+            return (maximumPoolSize != Integer.MAX_VALUE ? maximumPoolSize : Math.max(threadPool.getCorePoolSize(), processors));
+        }
+        return processors;
+    }
+
+    /**
+     * 将资源分段交给工作线程并行读取和过滤, 返回数组与resources的前count个一一对应(未命中的位置为{@code null}).
+     */
+    private ScannedGenericBeanDefinition[] scanCandidatesInParallel(final Resource[] resources, int count, ExecutorService executor, int workers)
+            throws IOException
+    {
+        final ScannedGenericBeanDefinition[] results = new ScannedGenericBeanDefinition[count];
+        try
+        {
+            // 分段数为并行度的4倍, 以平衡不同大小类文件的处理耗时.
+            int batchSize = Math.max(1, (count + workers * 4 - 1) / (workers * 4));
+            List<Callable<Void>> batches = new ArrayList<Callable<Void>>();
+            for (int start = 0; start < count; start += batchSize)
+            {
+                final int from = start;
+                final int to = Math.min(start + batchSize, count);
+                batches.add(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws IOException
+                    {
+                        for (int i = from; i < to; i++)
+                        {
+                            results[i] = scanCandidateComponent(resources[i]);
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(batches))
+            {
+                future.get();
+            }
+        } catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("并行扫描类路径时线程被中断.", ex);
+        } catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("并行扫描类路径时发生错误.", cause);
+        }
+        return results;
     }
 
     /**
@@ -170,4 +789,102 @@ public class ClassPathAnnotationScanner
     {
         return ClassUtils.convertClassNameToResourcePath(basePackage);
     }
+    /**
+     * 一次扫描的状态: 顺序扫描时对每个资源立即读取、过滤并回调; 并行扫描时将资源缓存为一批, 批满或扫描结束时并行处理, 再按资源顺序回调.
+     */
+    private final class CandidateScan implements ResourceCallback
+    {
+        private final CandidateCallback callback;
+
+        // 并行扫描时待处理的一批资源, 顺序扫描时为null.
+        private final Resource[] pending;
+
+        private int pendingCount;
+
+        private final int workers;
+
+        private ExecutorService executor;
+
+        private boolean ownExecutor;
+
+        CandidateScan(CandidateCallback callback)
+        {
+            this.callback = callback;
+            if (ClassPathAnnotationScanner.this.executor != null || parallelism > 1)
+            {
+                this.workers = (parallelism > 1 ? parallelism : executorParallelism(ClassPathAnnotationScanner.this.executor));
+                this.pending = new Resource[this.workers * RESOURCES_PER_WORKER];
+            } else
+            {
+                this.workers = 1;
+                this.pending = null;
+            }
+        }
+
+        @Override
+        public boolean doWithResource(Resource resource) throws IOException
+        {
+            if (this.pending == null)
+            {
+                return emit(scanCandidateComponent(resource));
+            }
+            this.pending[this.pendingCount++] = resource;
+            return (this.pendingCount < this.pending.length || flush());
+        }
+
+        /**
+         * 回调一个候选组件, sbd为{@code null}时忽略.
+         * 
+         * @return 是否继续扫描
+         */
+        boolean emit(ScannedGenericBeanDefinition sbd) throws IOException
+        {
+            return (sbd == null || this.callback.doWithCandidate(sbd));
+        }
+
+        /**
+         * 处理当前缓存的一批资源并依次回调.
+         * 
+         * @return 是否继续扫描
+         */
+        boolean flush() throws IOException
+        {
+            int count = this.pendingCount;
+            if (count == 0)
+            {
+                return true;
+            }
+            if (this.executor == null)
+            {
+                this.executor = ClassPathAnnotationScanner.this.executor;
+                if (this.executor == null)
+                {
+                    this.executor = new ForkJoinPool(parallelism);
+                    this.ownExecutor = true;
+                }
+            }
+            ScannedGenericBeanDefinition[] results = scanCandidatesInParallel(this.pending, count, this.executor, this.workers);
+            Arrays.fill(this.pending, 0, count, null);
+            this.pendingCount = 0;
+            for (ScannedGenericBeanDefinition sbd : results)
+            {
+                if (!emit(sbd))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 关闭扫描自行创建的线程池.
+         */
+        void close()
+        {
+            if (this.ownExecutor)
+            {
+                this.executor.shutdown();
+            }
+        }
+    }
 }
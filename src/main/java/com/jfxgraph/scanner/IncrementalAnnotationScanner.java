@@ -0,0 +1,502 @@
+package com.jfxgraph.scanner;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jfxgraph.scanner.beans.ScannedGenericBeanDefinition;
+import com.jfxgraph.scanner.io.FileSystemResource;
+import com.jfxgraph.scanner.io.Resource;
+import com.jfxgraph.scanner.io.loader.PathMatchingResourcePatternResolver;
+import com.jfxgraph.scanner.io.loader.ResourceLoader;
+import com.jfxgraph.scanner.io.loader.ResourcePatternResolver;
+import com.jfxgraph.scanner.reader.CachingMetadataReaderFactory;
+import com.jfxgraph.scanner.reader.MetadataReaderFactory;
+import com.jfxgraph.scanner.reader.PersistentMetadataReaderFactory;
+import com.jfxgraph.scanner.util.Assert;
+import com.jfxgraph.scanner.util.PathMatcher;
+import com.jfxgraph.scanner.util.PathPattern;
+import com.jfxgraph.scanner.util.PathPatternUtils;
+import com.jfxgraph.scanner.util.ResourceUtils;
+
+/**
+ * 增量扫描: 首次{@link #scan()}执行全量扫描, 并用{@link WatchService}监视类路径中作为目录的根(例如编译输出目录)下的各包目录;
+ * 之后每次{@link #rescan()}只重新读取期间新增、修改或删除的类文件, 返回候选组件的变化, 不再遍历整个类路径.
+ * <p>
+ * 重新读取前从{@link CachingMetadataReaderFactory}中移除对应的缓存条目; {@link PersistentMetadataReaderFactory}按文件长度和修改时间自行识别变化.
+ * 过滤器考虑继承的注解(例如{@link java.lang.annotation.Inherited}注解)时, 一个类的变化可能改变其子类的过滤结果,
+ * 因此有类文件变化时重新核对监视目录下的所有类(未变化的类通常由元数据缓存或索引回答).
+ * jar中的类不被监视, 保持全量扫描时的结果. 注解类型本身的变化(例如新增元注解)不会影响已缓存的注解类型信息, 此时应重新{@link #scan()}.
+ * <p>
+ * 各方法之间互斥, 可以由不同线程调用; 不再使用时应{@link #close()}以释放监视服务.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class IncrementalAnnotationScanner implements Closeable
+{
+    protected final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ClassPathAnnotationScanner scanner;
+
+    private final String[] basePackages;
+
+    // 监视的包目录及其中类文件的模式
+    private final List<WatchedRoot> roots = new ArrayList<WatchedRoot>();
+
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<WatchKey, Path>();
+
+    // 监视目录下的候选组件, 键为类文件路径
+    private final Map<Path, ScannedGenericBeanDefinition> directoryCandidates = new LinkedHashMap<Path, ScannedGenericBeanDefinition>();
+
+    // jar等不监视的根下的候选组件
+    private final List<ScannedGenericBeanDefinition> otherCandidates = new ArrayList<ScannedGenericBeanDefinition>();
+
+    private WatchService watchService;
+
+    /**
+     * @param scanner
+     *            已配置好过滤器的扫描器
+     * @param basePackages
+     *            基础包
+     */
+    public IncrementalAnnotationScanner(ClassPathAnnotationScanner scanner, String... basePackages)
+    {
+        Assert.notNull(scanner, "ClassPathAnnotationScanner must not be null");
+        Assert.notEmpty(basePackages, "At least one base package must be specified");
+        this.scanner = scanner;
+        this.basePackages = basePackages.clone();
+    }
+
+    /**
+     * 执行全量扫描并重新开始监视. 先注册监视再扫描, 扫描期间发生的变化在下一次{@link #rescan()}中返回.
+     *
+     * @return 所有候选组件
+     * @throws IOException
+     *             无法创建监视服务或注册目录时抛出
+     */
+    public synchronized Set<ScannedGenericBeanDefinition> scan() throws IOException
+    {
+        closeWatchService();
+        this.roots.clear();
+        this.directoryCandidates.clear();
+        this.otherCandidates.clear();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        resolveWatchedRoots();
+        this.scanner.findAnnotationDefinition(this.basePackages, new CandidateCallback()
+        {
+            @Override
+            public boolean doWithCandidate(ScannedGenericBeanDefinition candidate)
+            {
+                Path path = getWatchedPath(candidate.getResource());
+                if (path != null)
+                {
+                    directoryCandidates.put(path, candidate);
+                } else
+                {
+                    otherCandidates.add(candidate);
+                }
+                return true;
+            }
+        });
+        return getCandidates();
+    }
+
+    /**
+     * 处理上一次扫描之后的文件变化(不等待), 返回候选组件的变化. 监视事件丢失(溢出)时重新遍历监视的目录并逐个核对.
+     * <p>
+     * 无法解析的类文件(例如正在写入)保持原有结果, 待其再次变化时重新读取.
+     *
+     * @return 相对上一次扫描的变化
+     * @throws IOException
+     *             注册新建的目录失败时抛出
+     * @throws IllegalStateException
+     *             尚未执行{@link #scan()}时抛出
+     */
+    public synchronized AnnotationScanDelta rescan() throws IOException
+    {
+        if (this.watchService == null)
+        {
+            throw new IllegalStateException("尚未执行全量扫描, 请先调用scan().");
+        }
+        Set<Path> changedPaths = new LinkedHashSet<Path>();
+        boolean overflow = false;
+        WatchKey key;
+        while ((key = this.watchService.poll()) != null)
+        {
+            Path dir = this.watchedDirectories.get(key);
+            for (WatchEvent<?> event : key.pollEvents())
+            {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                {
+                    overflow = true;
+                } else if (dir != null)
+                {
+                    Path child = dir.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child))
+                    {
+                        // 新目录: 注册监视, 其中已有的文件不会再产生事件.
+                        registerDirectories(child, changedPaths);
+                    } else
+                    {
+                        changedPaths.add(child);
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE)
+                        {
+                            addCandidatePathsBelow(child, changedPaths);
+                        }
+                    }
+                }
+            }
+            if (!key.reset())
+            {
+                this.watchedDirectories.remove(key);
+            }
+        }
+        if (overflow)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("文件监视事件溢出, 重新核对所有监视的目录.");
+            }
+            changedPaths.addAll(this.directoryCandidates.keySet());
+            for (WatchedRoot root : this.roots)
+            {
+                registerDirectories(root.directory, changedPaths);
+            }
+        }
+
+        MetadataReaderFactory metadataReaderFactory = this.scanner.getMetadataReaderFactory();
+        Set<Path> changedClassFiles = new LinkedHashSet<Path>();
+        for (Path path : changedPaths)
+        {
+            String classPath = getWatchedClassPath(path);
+            if (classPath == null)
+            {
+                continue;
+            }
+            changedClassFiles.add(path);
+            if (metadataReaderFactory instanceof CachingMetadataReaderFactory)
+            {
+                // 按文件和按类名(检查子类时)读取的元数据分别缓存.
+                CachingMetadataReaderFactory cachingFactory = (CachingMetadataReaderFactory) metadataReaderFactory;
+                cachingFactory.evict(new FileSystemResource(path.toFile()));
+                cachingFactory.evict(cachingFactory.getResourceLoader().getResource(ResourceLoader.CLASSPATH_URL_PREFIX + classPath));
+            }
+        }
+        Set<Path> paths = changedClassFiles;
+        if (!changedClassFiles.isEmpty() && this.scanner.isTypeHierarchyDependent())
+        {
+            paths = new LinkedHashSet<Path>(changedClassFiles);
+            for (WatchedRoot root : this.roots)
+            {
+                addClassFiles(root.directory, paths);
+            }
+        }
+
+        List<ScannedGenericBeanDefinition> added = new ArrayList<ScannedGenericBeanDefinition>();
+        List<ScannedGenericBeanDefinition> removed = new ArrayList<ScannedGenericBeanDefinition>();
+        List<ScannedGenericBeanDefinition> changed = new ArrayList<ScannedGenericBeanDefinition>();
+        for (Path path : paths)
+        {
+            if (!isWatchedClassFile(path))
+            {
+                continue;
+            }
+            Resource resource = new FileSystemResource(path.toFile());
+            ScannedGenericBeanDefinition previous = this.directoryCandidates.get(path);
+            ScannedGenericBeanDefinition current = null;
+            if (Files.isRegularFile(path))
+            {
+                try
+                {
+                    current = this.scanner.scanCandidateComponent(resource);
+                } catch (IOException ex)
+                {
+                    logUnreadable(resource, ex);
+                    continue;
+                } catch (RuntimeException ex)
+                {
+                    logUnreadable(resource, ex);
+                    continue;
+                }
+            }
+            if (current != null)
+            {
+                if (previous == null)
+                {
+                    this.directoryCandidates.put(path, current);
+                    added.add(current);
+                } else if (changedClassFiles.contains(path))
+                {
+                    this.directoryCandidates.put(path, current);
+                    changed.add(current);
+                }
+            } else if (previous != null)
+            {
+                this.directoryCandidates.remove(path);
+                removed.add(previous);
+            }
+        }
+        if (metadataReaderFactory instanceof PersistentMetadataReaderFactory && !changedPaths.isEmpty())
+        {
+            ((PersistentMetadataReaderFactory) metadataReaderFactory).save();
+        }
+        this.scanner.clearClassNamePool();
+        return new AnnotationScanDelta(added, removed, changed);
+    }
+
+    /**
+     * 返回当前所有候选组件: 先是jar等不监视的根下的, 再是监视目录下的.
+     */
+    public synchronized Set<ScannedGenericBeanDefinition> getCandidates()
+    {
+        Set<ScannedGenericBeanDefinition> candidates = new LinkedHashSet<ScannedGenericBeanDefinition>(this.otherCandidates);
+        candidates.addAll(this.directoryCandidates.values());
+        return candidates;
+    }
+
+    /**
+     * 停止监视. 之后可以再次{@link #scan()}.
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        closeWatchService();
+    }
+
+    private void closeWatchService() throws IOException
+    {
+        this.watchedDirectories.clear();
+        if (this.watchService != null)
+        {
+            WatchService watchService = this.watchService;
+            this.watchService = null;
+            watchService.close();
+        }
+    }
+
+    /**
+     * 找出各基础包在文件系统中的目录并注册监视; 包名含通配符时监视通配符之前的目录.
+     */
+    private void resolveWatchedRoots() throws IOException
+    {
+        ResourcePatternResolver resolver = this.scanner.getResourcePatternResolver();
+        if (!(resolver instanceof PathMatchingResourcePatternResolver))
+        {
+            if (logger.isWarnEnabled())
+            {
+                logger.warn("ResourcePatternResolver[" + resolver + "]不支持按路径模式匹配, 不监视类文件的变化.");
+            }
+            return;
+        }
+        PathMatcher pathMatcher = ((PathMatchingResourcePatternResolver) resolver).getPathMatcher();
+        for (String packagePath : this.scanner.resolvePackagePaths(this.basePackages))
+        {
+            String rootPath = packagePath;
+            int wildcard = indexOfWildcard(packagePath);
+            if (wildcard != -1)
+            {
+                rootPath = packagePath.substring(0, packagePath.lastIndexOf('/', wildcard) + 1);
+            }
+            PathPattern pattern = PathPatternUtils.compile(pathMatcher, packagePath.substring(rootPath.length()) + this.scanner.getResourcePattern());
+            for (Resource rootDirResource : resolver.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + rootPath))
+            {
+                if (!ResourceUtils.isFileURL(rootDirResource.getURL()))
+                {
+                    continue;
+                }
+                Path directory = rootDirResource.getFile().toPath().toAbsolutePath().normalize();
+                if (Files.isDirectory(directory))
+                {
+                    this.roots.add(new WatchedRoot(directory, rootPath, pattern));
+                    registerDirectories(directory, null);
+                }
+            }
+        }
+    }
+
+    private static int indexOfWildcard(String path)
+    {
+        for (int i = 0; i < path.length(); i++)
+        {
+            char c = path.charAt(i);
+            if (c == '*' || c == '?' || c == '{')
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 注册目录及其所有子目录的监视, 并将其中已有的文件加入files(可以为{@code null}).
+     */
+    private void registerDirectories(Path directory, final Collection<Path> files) throws IOException
+    {
+        Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+            {
+                if (files != null)
+                {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc)
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Skipping [" + file + "] because it cannot be read", exc);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 将目录下所有的文件加入files, 不注册监视.
+     */
+    private void addClassFiles(Path directory, final Collection<Path> files) throws IOException
+    {
+        Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+            {
+                files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc)
+            {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 被删除的是目录时, 其下的类文件不一定各自产生事件, 因此将其下已知的候选组件一并核对.
+     */
+    private void addCandidatePathsBelow(Path directory, Set<Path> paths)
+    {
+        for (Path path : this.directoryCandidates.keySet())
+        {
+            if (path.startsWith(directory))
+            {
+                paths.add(path);
+            }
+        }
+    }
+
+    /**
+     * 返回资源在监视目录下的类文件路径; 不是文件系统中的资源或不在监视目录下时返回{@code null}.
+     */
+    private Path getWatchedPath(Resource resource)
+    {
+        try
+        {
+            if (resource == null || !ResourceUtils.isFileURL(resource.getURL()))
+            {
+                return null;
+            }
+            Path path = resource.getFile().toPath().toAbsolutePath().normalize();
+            return (isWatchedClassFile(path) ? path : null);
+        } catch (IOException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * 路径是否位于某个监视的包目录下且与其类文件模式匹配.
+     */
+    private boolean isWatchedClassFile(Path path)
+    {
+        return (getWatchedClassPath(path) != null);
+    }
+
+    /**
+     * 返回监视的类文件相对类路径根的资源路径; 路径不在监视的包目录下或与类文件模式不匹配时返回{@code null}.
+     */
+    private String getWatchedClassPath(Path path)
+    {
+        for (WatchedRoot root : this.roots)
+        {
+            if (path.startsWith(root.directory))
+            {
+                String relativePath = root.directory.relativize(path).toString().replace(File.separatorChar, '/');
+                if (root.pattern.match(relativePath))
+                {
+                    return root.rootPath + relativePath;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void logUnreadable(Resource resource, Exception ex)
+    {
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("暂时无法读取类文件, 保持原有结果: " + resource, ex);
+        }
+    }
+
+    /**
+     * 监视的包目录.
+     */
+    private static class WatchedRoot
+    {
+        final Path directory;
+
+        // directory相对类路径根的资源路径, 以"/"结尾
+        final String rootPath;
+
+        // 相对directory的类文件模式
+        final PathPattern pattern;
+
+        WatchedRoot(Path directory, String rootPath, PathPattern pattern)
+        {
+            this.directory = directory;
+            this.rootPath = rootPath;
+            this.pattern = pattern;
+        }
+    }
+}
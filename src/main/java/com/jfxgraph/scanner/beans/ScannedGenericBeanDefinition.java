@@ -1,5 +1,6 @@
 package com.jfxgraph.scanner.beans;
 
+import com.jfxgraph.scanner.io.Resource;
 import com.jfxgraph.scanner.reader.MetadataReader;
 import com.jfxgraph.scanner.type.AnnotationMetadata;
 import com.jfxgraph.scanner.util.Assert;
@@ -13,6 +14,8 @@ import com.jfxgraph.scanner.util.Assert;
 public class ScannedGenericBeanDefinition  implements AnnotatedBeanDefinition
 {
     private final AnnotationMetadata metadata;
+
+    private final Resource resource;
     
     private String beanClassName;
 
@@ -26,9 +29,20 @@ public class ScannedGenericBeanDefinition  implements AnnotatedBeanDefinition
     {
         Assert.notNull(metadataReader, "MetadataReader must not be null");
         this.metadata = metadataReader.getAnnotationMetadata();
+        this.resource = metadataReader.getResource();
         setBeanClassName(this.metadata.getClassName());
     }
 
+    /**
+     * 返回读取该类的类文件资源.
+     * 
+     * @since 1.1
+     */
+    public Resource getResource()
+    {
+        return this.resource;
+    }
+
     /**
      * @see com.jfxgraph.scanner.beans.AnnotatedBeanDefinition#getMetadata()
      */
@@ -0,0 +1,239 @@
+package com.jfxgraph.scanner.index;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.jfxgraph.scanner.io.Resource;
+import com.jfxgraph.scanner.reader.MetadataCodec;
+import com.jfxgraph.scanner.reader.MetadataReader;
+import com.jfxgraph.scanner.type.AnnotationMetadata;
+import com.jfxgraph.scanner.type.ClassMetadata;
+
+/**
+ * 构建期生成的注解索引(由{@link AnnotationIndexGenerator}写入类路径根目录下的{@link #INDEX_LOCATION}).
+ * <p>
+ * 索引只收录带有类级注解的类(包括元注解以及从父类、接口继承的注解), 并按注解类型分组, 因此按注解扫描时只需解码与注解类型相关的条目,
+ * 不必遍历类路径根目录或读取类文件. 各条目的元数据以{@link MetadataCodec}格式保存, 在首次访问时才解码.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public final class AnnotationIndex
+{
+    /** 索引文件在类路径根目录下的位置 */
+    public static final String INDEX_LOCATION = "META-INF/jfxgraph-annotation.idx";
+
+    static final int MAGIC = 0x4A464149;
+
+    static final int VERSION = 1;
+
+    private final String[] paths;
+
+    private final byte[][] data;
+
+    private final Map<String, int[]> typeIndex;
+
+    private AnnotationIndex(String[] paths, byte[][] data, Map<String, int[]> typeIndex)
+    {
+        this.paths = paths;
+        this.data = data;
+        this.typeIndex = typeIndex;
+    }
+
+    /**
+     * 读取索引文件.
+     *
+     * @param resource
+     *            索引文件资源
+     * @return AnnotationIndex
+     * @throws IOException
+     *             读取失败或格式不符时抛出
+     */
+    public static AnnotationIndex load(Resource resource) throws IOException
+    {
+        InputStream is = resource.getInputStream();
+        try
+        {
+            return load(is);
+        } finally
+        {
+            is.close();
+        }
+    }
+
+    /**
+     * 从输入流读取索引(不关闭输入流).
+     *
+     * @param is
+     *            输入流
+     * @return AnnotationIndex
+     * @throws IOException
+     *             读取失败或格式不符时抛出
+     */
+    public static AnnotationIndex load(InputStream is) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION)
+        {
+            throw new IOException("注解索引文件格式或版本不符");
+        }
+        int count = in.readInt();
+        String[] paths = new String[count];
+        byte[][] data = new byte[count][];
+        for (int i = 0; i < count; i++)
+        {
+            paths[i] = in.readUTF();
+            data[i] = new byte[in.readInt()];
+            in.readFully(data[i]);
+        }
+        int typeCount = in.readInt();
+        Map<String, int[]> typeIndex = new LinkedHashMap<String, int[]>(typeCount * 2);
+        for (int i = 0; i < typeCount; i++)
+        {
+            String annotationType = in.readUTF();
+            int[] entries = new int[in.readInt()];
+            for (int j = 0; j < entries.length; j++)
+            {
+                entries[j] = in.readInt();
+            }
+            typeIndex.put(annotationType, entries);
+        }
+        return new AnnotationIndex(paths, data, typeIndex);
+    }
+
+    /**
+     * 返回索引的条目数.
+     */
+    public int size()
+    {
+        return this.paths.length;
+    }
+
+    /**
+     * 返回条目对应的类文件相对于类路径根目录的路径, 例如"com/foo/Bar.class".
+     */
+    public String getPath(int entry)
+    {
+        return this.paths[entry];
+    }
+
+    /**
+     * 返回索引中出现的所有注解类型.
+     */
+    public Set<String> getAnnotationTypes()
+    {
+        return Collections.unmodifiableSet(this.typeIndex.keySet());
+    }
+
+    /**
+     * 返回可能带有给定注解类型之一(直接、作为元注解或经继承)的条目, 按条目顺序排列.
+     *
+     * @param annotationTypes
+     *            注解类型名
+     * @return 条目序号
+     */
+    public int[] getCandidates(Collection<String> annotationTypes)
+    {
+        BitSet entries = new BitSet(this.paths.length);
+        for (String annotationType : annotationTypes)
+        {
+            int[] typeEntries = this.typeIndex.get(annotationType);
+            if (typeEntries != null)
+            {
+                for (int entry : typeEntries)
+                {
+                    entries.set(entry);
+                }
+            }
+        }
+        int[] result = new int[entries.cardinality()];
+        for (int i = 0, entry = entries.nextSetBit(0); entry >= 0; entry = entries.nextSetBit(entry + 1))
+        {
+            result[i++] = entry;
+        }
+        return result;
+    }
+
+    /**
+     * 解码条目的元数据.
+     *
+     * @param entry
+     *            条目序号
+     * @param classLoader
+     *            解析枚举值及类引用时使用的类加载器
+     * @return AnnotationMetadata
+     * @throws IOException
+     *             条目数据损坏时抛出
+     */
+    public AnnotationMetadata getMetadata(int entry, ClassLoader classLoader) throws IOException
+    {
+        return MetadataCodec.readMetadata(new DataInputStream(new ByteArrayInputStream(this.data[entry])), classLoader);
+    }
+
+    /**
+     * 以条目的元数据创建{@link MetadataReader}.
+     *
+     * @param entry
+     *            条目序号
+     * @param resource
+     *            条目对应的类文件资源
+     * @param classLoader
+     *            解析枚举值及类引用时使用的类加载器
+     * @return MetadataReader
+     * @throws IOException
+     *             条目数据损坏时抛出
+     */
+    public MetadataReader getMetadataReader(int entry, Resource resource, ClassLoader classLoader) throws IOException
+    {
+        return new IndexedMetadataReader(resource, getMetadata(entry, classLoader));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AnnotationIndex [" + this.paths.length + " entries, " + this.typeIndex.size() + " annotation types]";
+    }
+
+    /**
+     * 由索引恢复的{@link MetadataReader}.
+     */
+    private static final class IndexedMetadataReader implements MetadataReader
+    {
+        private final Resource resource;
+
+        private final AnnotationMetadata annotationMetadata;
+
+        IndexedMetadataReader(Resource resource, AnnotationMetadata annotationMetadata)
+        {
+            this.resource = resource;
+            this.annotationMetadata = annotationMetadata;
+        }
+
+        @Override
+        public Resource getResource()
+        {
+            return this.resource;
+        }
+
+        @Override
+        public ClassMetadata getClassMetadata()
+        {
+            return this.annotationMetadata;
+        }
+
+        @Override
+        public AnnotationMetadata getAnnotationMetadata()
+        {
+            return this.annotationMetadata;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.jfxgraph.scanner.index;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jfxgraph.scanner.io.FileSystemResource;
+import com.jfxgraph.scanner.io.Resource;
+import com.jfxgraph.scanner.io.UrlResource;
+import com.jfxgraph.scanner.io.loader.PathMatchingResourcePatternResolver;
+import com.jfxgraph.scanner.reader.MetadataCodec;
+import com.jfxgraph.scanner.reader.MetadataReader;
+import com.jfxgraph.scanner.reader.MetadataReaderFactory;
+import com.jfxgraph.scanner.reader.SimpleMetadataReaderFactory;
+import com.jfxgraph.scanner.type.AnnotationMetadata;
+import com.jfxgraph.scanner.util.ClassUtils;
+import com.jfxgraph.scanner.util.ResourceUtils;
+
+/**
+ * 构建期注解索引生成器: 用ASM元数据读取器解析一个类目录或jar中的全部类, 将带有类级注解的类写入{@link AnnotationIndex}索引文件.
+ * <p>
+ * 除类自身的注解和元注解外, 父类及接口上的注解也会登记到子类名下(父类型先在输入中查找, 找不到时通过生成器的类路径读取),
+ * 以便{@link com.jfxgraph.scanner.type.filter.AnnotationTypeFilter}对{@link java.lang.annotation.Inherited}注解的匹配在索引模式下保持一致.
+ * <p>
+ * 命令行用法:
+ *
+ * <pre>
+ * java com.jfxgraph.scanner.index.AnnotationIndexGenerator &lt;类目录|jar&gt; [输出目录]
+ * </pre>
+ *
+ * 索引写入"输出目录/{@value AnnotationIndex#INDEX_LOCATION}"; 输入为类目录时输出目录默认即为该目录, 输入为jar时必须指定输出目录
+ * (生成的META-INF需在打包时放入jar).
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class AnnotationIndexGenerator
+{
+    private static final Logger logger = LoggerFactory.getLogger(AnnotationIndexGenerator.class);
+
+    private static final String CLASS_PATTERN = "**/*" + ClassUtils.CLASS_FILE_SUFFIX;
+
+    private final ClassLoader classLoader;
+
+    private final MetadataReaderFactory metadataReaderFactory;
+
+    /**
+     * 使用给定的类加载器解析父类型及注解属性中的枚举值.
+     *
+     * @param classLoader
+     *            类加载器, 应能加载输入中的类及其依赖
+     */
+    public AnnotationIndexGenerator(ClassLoader classLoader)
+    {
+        this.classLoader = classLoader;
+        this.metadataReaderFactory = new SimpleMetadataReaderFactory(classLoader);
+    }
+
+    /**
+     * 为类目录或jar生成索引文件.
+     *
+     * @param input
+     *            类目录或jar文件
+     * @param indexFile
+     *            要写入的索引文件
+     * @return 写入索引的类的数量
+     * @throws IOException
+     *             读取类文件或写出索引失败时抛出
+     */
+    public int generate(File input, File indexFile) throws IOException
+    {
+        Resource rootDirResource;
+        if (input.isDirectory())
+        {
+            rootDirResource = new FileSystemResource(input.getAbsolutePath() + "/");
+        } else
+        {
+            rootDirResource = new UrlResource(ResourceUtils.URL_PROTOCOL_JAR + ":" + input.toURI().toURL() + ResourceUtils.JAR_URL_SEPARATOR);
+        }
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(this.classLoader);
+
+        // 先读取全部类, 父类型优先在输入中查找.
+        String rootUrl = rootDirResource.getURL().toString();
+        Map<String, AnnotationMetadata> classes = new LinkedHashMap<String, AnnotationMetadata>();
+        for (Resource resource : resolver.findMatchingResources(rootDirResource, CLASS_PATTERN))
+        {
+            MetadataReader metadataReader = this.metadataReaderFactory.getMetadataReader(resource);
+            String className = metadataReader.getClassMetadata().getClassName();
+            String path = ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX;
+            if (resource.getURL().toString().equals(rootUrl + path))
+            {
+                // 忽略位置与类名不符的类文件(例如META-INF/versions下的多版本类)
+                classes.put(className, metadataReader.getAnnotationMetadata());
+            }
+        }
+
+        Map<String, Set<String>> annotationTypesCache = new HashMap<String, Set<String>>();
+        List<String> paths = new ArrayList<String>();
+        List<byte[]> data = new ArrayList<byte[]>();
+        Map<String, List<Integer>> typeIndex = new LinkedHashMap<String, List<Integer>>();
+        for (Map.Entry<String, AnnotationMetadata> entry : classes.entrySet())
+        {
+            Set<String> annotationTypes = collectAnnotationTypes(entry.getKey(), classes, annotationTypesCache);
+            if (annotationTypes.isEmpty())
+            {
+                continue;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            try
+            {
+                MetadataCodec.writeMetadata(entry.getValue(), out);
+            } catch (IllegalArgumentException ex)
+            {
+                throw new IOException("无法为类[" + entry.getKey() + "]生成索引条目", ex);
+            }
+            out.flush();
+            Integer entryIndex = paths.size();
+            paths.add(ClassUtils.convertClassNameToResourcePath(entry.getKey()) + ClassUtils.CLASS_FILE_SUFFIX);
+            data.add(bytes.toByteArray());
+            for (String annotationType : annotationTypes)
+            {
+                List<Integer> entries = typeIndex.get(annotationType);
+                if (entries == null)
+                {
+                    entries = new ArrayList<Integer>();
+                    typeIndex.put(annotationType, entries);
+                }
+                entries.add(entryIndex);
+            }
+        }
+
+        writeIndex(indexFile, paths, data, typeIndex);
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("为[" + input + "]生成注解索引[" + indexFile + "]: 共" + classes.size() + "个类, 收录" + paths.size() + "个.");
+        }
+        return paths.size();
+    }
+
+    /**
+     * 收集类自身、父类及接口上的注解类型和元注解类型.
+     */
+    private Set<String> collectAnnotationTypes(String className, Map<String, AnnotationMetadata> classes, Map<String, Set<String>> cache)
+    {
+        Set<String> annotationTypes = cache.get(className);
+        if (annotationTypes != null)
+        {
+            return annotationTypes;
+        }
+        annotationTypes = new LinkedHashSet<String>();
+        // 先放入缓存, 防止错误的类层次导致无限递归.
+        cache.put(className, annotationTypes);
+        AnnotationMetadata metadata = classes.get(className);
+        if (metadata == null)
+        {
+            if (className.startsWith("java."))
+            {
+                return annotationTypes;
+            }
+            try
+            {
+                metadata = this.metadataReaderFactory.getMetadataReader(className).getAnnotationMetadata();
+            } catch (IOException ex)
+            {
+                logger.debug("无法读取父类型[" + className + "], 其注解不会登记到子类", ex);
+                return annotationTypes;
+            }
+        }
+        for (String annotationType : metadata.getAnnotationTypes())
+        {
+            annotationTypes.add(annotationType);
+            annotationTypes.addAll(metadata.getMetaAnnotationTypes(annotationType));
+        }
+        if (metadata.hasSuperClass())
+        {
+            annotationTypes.addAll(collectAnnotationTypes(metadata.getSuperClassName(), classes, cache));
+        }
+        for (String interfaceName : metadata.getInterfaceNames())
+        {
+            annotationTypes.addAll(collectAnnotationTypes(interfaceName, classes, cache));
+        }
+        return annotationTypes;
+    }
+
+    private static void writeIndex(File indexFile, List<String> paths, List<byte[]> data, Map<String, List<Integer>> typeIndex) throws IOException
+    {
+        File dir = indexFile.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+        {
+            throw new IOException("无法创建索引目录: " + dir);
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+        try
+        {
+            out.writeInt(AnnotationIndex.MAGIC);
+            out.writeInt(AnnotationIndex.VERSION);
+            out.writeInt(paths.size());
+            for (int i = 0; i < paths.size(); i++)
+            {
+                out.writeUTF(paths.get(i));
+                out.writeInt(data.get(i).length);
+                out.write(data.get(i));
+            }
+            out.writeInt(typeIndex.size());
+            for (Map.Entry<String, List<Integer>> entry : typeIndex.entrySet())
+            {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (Integer entryIndex : entry.getValue())
+                {
+                    out.writeInt(entryIndex);
+                }
+            }
+        } finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * 命令行入口.
+     *
+     * @param args
+     *            &lt;类目录|jar&gt; [输出目录]
+     * @throws IOException
+     *             生成失败时抛出
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1 || args.length > 2 || (args.length == 1 && !new File(args[0]).isDirectory()))
+        {
+            System.err.println("Usage: java " + AnnotationIndexGenerator.class.getName() + " <classes-dir|jar> [output-dir]");
+            System.err.println("  output-dir defaults to classes-dir and is required for a jar.");
+            System.exit(1);
+        }
+        File input = new File(args[0]);
+        if (!input.exists())
+        {
+            System.err.println("Input not found: " + input);
+            System.exit(1);
+        }
+        File outputDir = new File(args.length > 1 ? args[1] : args[0]);
+        File indexFile = new File(outputDir, AnnotationIndex.INDEX_LOCATION);
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[] { input.toURI().toURL() }, ClassUtils.getDefaultClassLoader());
+        try
+        {
+            int count = new AnnotationIndexGenerator(classLoader).generate(input, indexFile);
+            System.out.println("Wrote " + count + " indexed classes to " + indexFile);
+        } finally
+        {
+            classLoader.close();
+        }
+    }
+}
@@ -181,6 +181,17 @@ public abstract class AbstractResource implements Resource
         return null;
     }
 
+    /**
+     * This implementation returns the description of this resource, consistent with
+     * {@link #equals} and {@link #hashCode}.
+     * 
+     * @see #getDescription()
+     */
+    public String getIdentityKey()
+    {
+        return getDescription();
+    }
+
     /**
      * This implementation returns the description of this resource.
      * 
@@ -18,10 +18,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import com.jfxgraph.scanner.util.Assert;
 import com.jfxgraph.scanner.util.ClassUtils;
-import com.jfxgraph.scanner.util.ObjectUtils;
 import com.jfxgraph.scanner.util.StringUtils;
 
 /**
@@ -41,12 +42,22 @@ import com.jfxgraph.scanner.util.StringUtils;
  */
 public class ClassPathResource extends AbstractFileResolvingResource {
 
+    /**
+     * Sequence ids of the class loaders and classes used in identity keys,
+     * held weakly so that a loader can still be garbage collected.
+     */
+    private static final Map<Object, Long> identityIds = new WeakHashMap<Object, Long>();
+
+    private static long nextIdentityId;
+
     private final String path;
 
     private ClassLoader classLoader;
 
     private Class<?> clazz;
 
+    private volatile String identityKey;
+
     /**
      * Create a new ClassPathResource for ClassLoader usage. A leading slash
      * will be removed, as the ClassLoader resource access methods will not
@@ -234,29 +245,64 @@ public class ClassPathResource extends AbstractFileResolvingResource {
     }
 
     /**
-     * This implementation compares the underlying class path locations.
+     * This implementation returns the absolute class path location with a
+     * "classpath:" prefix, followed by ids that are unique per class loader
+     * (and class) used for loading within this JVM, for example
+     * "classpath:com/foo/bar.xml@3". Resources that load through different
+     * class loaders may resolve to different files and therefore never share
+     * a key. The ids are assigned on first use, so the key must not be
+     * persisted across runs.
      */
     @Override
-    public boolean equals(Object obj) {
-        if (obj == this) {
-            return true;
+    public String getIdentityKey() {
+        String key = this.identityKey;
+        if (key == null) {
+            String pathToUse = this.path;
+            if (this.clazz != null && !pathToUse.startsWith("/")) {
+                pathToUse = ClassUtils.classPackageAsResourcePath(this.clazz) + "/" + pathToUse;
+            } else if (pathToUse.startsWith("/")) {
+                pathToUse = pathToUse.substring(1);
+            }
+            key = "classpath:" + pathToUse + "@" + identityId(this.classLoader);
+            if (this.clazz != null) {
+                key = key + "/" + identityId(this.clazz);
+            }
+            this.identityKey = key;
+        }
+        return key;
+    }
+
+    private static String identityId(Object loaderOrClass) {
+        if (loaderOrClass == null) {
+            return "0";
         }
-        if (obj instanceof ClassPathResource) {
-            ClassPathResource otherRes = (ClassPathResource) obj;
-            return (this.path.equals(otherRes.path)
-                    && ObjectUtils.nullSafeEquals(this.classLoader, otherRes.classLoader) && ObjectUtils
-                        .nullSafeEquals(this.clazz, otherRes.clazz));
+        synchronized (identityIds) {
+            Long id = identityIds.get(loaderOrClass);
+            if (id == null) {
+                id = ++nextIdentityId;
+                identityIds.put(loaderOrClass, id);
+            }
+            return Long.toHexString(id);
         }
-        return false;
     }
 
     /**
-     * This implementation returns the hash code of the underlying class path
-     * location.
+     * This implementation compares the identity keys, i.e. the underlying
+     * class path locations together with the class loader (and class) used
+     * for loading.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return (obj == this || (obj instanceof ClassPathResource && getIdentityKey().equals(
+                ((ClassPathResource) obj).getIdentityKey())));
+    }
+
+    /**
+     * This implementation returns the hash code of the identity key.
      */
     @Override
     public int hashCode() {
-        return this.path.hashCode();
+        return getIdentityKey().hashCode();
     }
 
 }
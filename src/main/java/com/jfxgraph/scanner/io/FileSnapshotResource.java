@@ -0,0 +1,67 @@
+package com.jfxgraph.scanner.io;
+
+import java.io.File;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import com.jfxgraph.scanner.util.Assert;
+
+/**
+ * 带有文件属性快照的{@link FileSystemResource}: 遍历目录时为匹配的文件创建, 保存遍历时已经读取到的大小、修改时间和文件类型.
+ * <p>
+ * {@link #isReadable()}、{@link #contentLength()}和{@link #lastModified()}直接由快照回答, 不再访问文件系统;
+ * 快照之后文件被修改或删除不会反映出来, 无读取权限的普通文件在实际读取时才会失败. 其它方法(包括{@link #exists()})与{@link FileSystemResource}相同.
+ *
+ * @author Albert
+ * @since 1.1
+ * @see com.jfxgraph.scanner.io.loader.PathMatchingResourcePatternResolver#doFindMatchingFileSystemResources
+ */
+public class FileSnapshotResource extends FileSystemResource
+{
+    private final long contentLength;
+
+    private final long lastModified;
+
+    private final boolean regularFile;
+
+    /**
+     * @param file
+     *            文件
+     * @param attributes
+     *            遍历时读取到的文件属性
+     */
+    public FileSnapshotResource(File file, BasicFileAttributes attributes)
+    {
+        super(file);
+        Assert.notNull(attributes, "Attributes must not be null");
+        this.contentLength = attributes.size();
+        this.lastModified = attributes.lastModifiedTime().toMillis();
+        this.regularFile = attributes.isRegularFile();
+    }
+
+    /**
+     * This implementation returns whether the file was a regular file when the snapshot was taken.
+     */
+    @Override
+    public boolean isReadable()
+    {
+        return this.regularFile;
+    }
+
+    /**
+     * This implementation returns the file size from the snapshot.
+     */
+    @Override
+    public long contentLength()
+    {
+        return this.contentLength;
+    }
+
+    /**
+     * This implementation returns the modification time from the snapshot.
+     */
+    @Override
+    public long lastModified()
+    {
+        return this.lastModified;
+    }
+}
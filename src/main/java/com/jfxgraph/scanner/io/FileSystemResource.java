@@ -219,6 +219,15 @@ public class FileSystemResource extends AbstractResource implements WritableReso
         return new FileOutputStream(this.file);
     }
 
+    /**
+     * This implementation returns the cleaned file path.
+     */
+    @Override
+    public String getIdentityKey()
+    {
+        return this.path;
+    }
+
     /**
      * This implementation compares the underlying File references.
      */
@@ -0,0 +1,180 @@
+package com.jfxgraph.scanner.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.jfxgraph.scanner.util.Assert;
+
+/**
+ * 遍历jar文件时为其中的条目创建的{@link Resource}: 只保存条目和条目的URL字符串, 需要时才创建{@link URL}.
+ * <p>
+ * 在遍历该jar的过程中(jar文件尚未关闭时)内容直接从{@link JarFile}读取, 长度即条目的大小, 不必为每个条目打开jar URL连接;
+ * jar文件关闭后退回到通过URL读取.
+ *
+ * @author Albert
+ * @since 1.1
+ * @see com.jfxgraph.scanner.io.loader.PathMatchingResourcePatternResolver#doWithMatchingResources
+ */
+public class JarEntryResource extends AbstractResource
+{
+    private final JarFile jarFile;
+
+    private final JarEntry jarEntry;
+
+    private final String url;
+
+    private volatile URL cachedUrl;
+
+    /**
+     * @param jarFile
+     *            条目所在的jar文件
+     * @param jarEntry
+     *            jar条目
+     * @param url
+     *            条目的URL, 例如"jar:file:/lib/foo.jar!/com/foo/Bar.class"
+     */
+    public JarEntryResource(JarFile jarFile, JarEntry jarEntry, String url)
+    {
+        Assert.notNull(jarFile, "JarFile must not be null");
+        Assert.notNull(jarEntry, "JarEntry must not be null");
+        Assert.notNull(url, "URL must not be null");
+        this.jarFile = jarFile;
+        this.jarEntry = jarEntry;
+        this.url = url;
+    }
+
+    /**
+     * 返回jar条目.
+     */
+    public final JarEntry getJarEntry()
+    {
+        return this.jarEntry;
+    }
+
+    /**
+     * This implementation always returns {@code true}: the entry was found in the jar file.
+     */
+    @Override
+    public boolean exists()
+    {
+        return true;
+    }
+
+    /**
+     * This implementation returns whether the entry is not a directory.
+     */
+    @Override
+    public boolean isReadable()
+    {
+        return !this.jarEntry.isDirectory();
+    }
+
+    /**
+     * 从jar文件读取条目内容; jar文件已关闭时通过URL读取.
+     */
+    public InputStream getInputStream() throws IOException
+    {
+        try
+        {
+            InputStream is = this.jarFile.getInputStream(this.jarEntry);
+            if (is != null)
+            {
+                return is;
+            }
+        } catch (IllegalStateException ex)
+        {
+            // Jar file already closed - fall back to the URL.
+        }
+        return new UrlResource(getURL()).getInputStream();
+    }
+
+    /**
+     * This implementation creates the URL of the entry on first access.
+     */
+    @Override
+    public URL getURL() throws MalformedURLException
+    {
+        URL url = this.cachedUrl;
+        if (url == null)
+        {
+            url = new URL(this.url);
+            this.cachedUrl = url;
+        }
+        return url;
+    }
+
+    /**
+     * This implementation returns the uncompressed size of the entry, if known.
+     */
+    @Override
+    public long contentLength() throws IOException
+    {
+        long size = this.jarEntry.getSize();
+        return (size >= 0 ? size : super.contentLength());
+    }
+
+    /**
+     * This implementation returns the modification time of the entry.
+     */
+    @Override
+    public long lastModified() throws IOException
+    {
+        return this.jarEntry.getTime();
+    }
+
+    @Override
+    public Resource createRelative(String relativePath) throws MalformedURLException
+    {
+        if (relativePath.startsWith("/"))
+        {
+            relativePath = relativePath.substring(1);
+        }
+        return new UrlResource(new URL(getURL(), relativePath));
+    }
+
+    @Override
+    public String getFilename()
+    {
+        String name = this.jarEntry.getName();
+        return name.substring(name.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * This implementation returns a description that includes the URL.
+     */
+    public String getDescription()
+    {
+        return "URL [" + this.url + "]";
+    }
+
+    /**
+     * This implementation returns the entry URL string.
+     */
+    @Override
+    public String getIdentityKey()
+    {
+        return this.url;
+    }
+
+    /**
+     * This implementation compares the entry URLs.
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+        return (obj == this || (obj instanceof JarEntryResource && this.url.equals(((JarEntryResource) obj).url)));
+    }
+
+    /**
+     * This implementation returns the hash code of the entry URL.
+     */
+    @Override
+    public int hashCode()
+    {
+        return this.url.hashCode();
+    }
+}
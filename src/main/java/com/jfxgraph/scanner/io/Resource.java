@@ -138,4 +138,16 @@ public interface Resource extends InputStreamSource
      */
     String getDescription();
 
+    /**
+     * 返回资源的标识键: 规范化后的位置字符串, 在创建资源时(或首次调用时)计算一次.
+     * <p>
+     * 同一类型的两个资源相等当且仅当其标识键相等, {@code hashCode}即标识键的hashCode,
+     * 因此在集合和缓存中使用资源不会触发URL的比较或主机名解析;
+     * 缓存也可以直接以标识键为键, 使指向同一位置的不同类型资源(例如jar条目的URL资源和遍历jar得到的条目资源)共用缓存.
+     * 按类加载器区分的资源(如{@link ClassPathResource}), 其标识键包含类加载器在本JVM中唯一的编号, 不能跨进程持久化.
+     * 
+     * @since 1.1
+     */
+    String getIdentityKey();
+
 }
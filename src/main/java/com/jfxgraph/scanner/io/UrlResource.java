@@ -29,9 +29,9 @@ public class UrlResource extends AbstractFileResolvingResource {
     private final URL url;
 
     /**
-     * Cleaned URL (with normalized path), used for comparisons.
+     * Cleaned URL string (with normalized path), used for comparisons.
      */
-    private final URL cleanedUrl;
+    private final String cleanedUrl;
 
     /**
      * Original URI, if available; used for URI and File access.
@@ -47,7 +47,7 @@ public class UrlResource extends AbstractFileResolvingResource {
     public UrlResource(URL url) {
         Assert.notNull(url, "URL must not be null");
         this.url = url;
-        this.cleanedUrl = getCleanedUrl(this.url, url.toString());
+        this.cleanedUrl = StringUtils.cleanPath(url.toString());
         this.uri = null;
     }
 
@@ -62,7 +62,7 @@ public class UrlResource extends AbstractFileResolvingResource {
     public UrlResource(URI uri) throws MalformedURLException {
         Assert.notNull(uri, "URI must not be null");
         this.url = uri.toURL();
-        this.cleanedUrl = getCleanedUrl(this.url, uri.toString());
+        this.cleanedUrl = StringUtils.cleanPath(this.url.toString());
         this.uri = uri;
     }
 
@@ -77,30 +77,10 @@ public class UrlResource extends AbstractFileResolvingResource {
     public UrlResource(String path) throws MalformedURLException {
         Assert.notNull(path, "Path must not be null");
         this.url = new URL(path);
-        this.cleanedUrl = getCleanedUrl(this.url, path);
+        this.cleanedUrl = StringUtils.cleanPath(this.url.toString());
         this.uri = null;
     }
 
-    /**
-     * Determine a cleaned URL for the given original URL.
-     * 
-     * @param originalUrl
-     *            the original URL
-     * @param originalPath
-     *            the original URL path
-     * @return the cleaned URL
-     * @see org.springframework.util.StringUtils#cleanPath
-     */
-    private URL getCleanedUrl(URL originalUrl, String originalPath) {
-        try {
-            return new URL(StringUtils.cleanPath(originalPath));
-        } catch (MalformedURLException ex) {
-            // Cleaned URL path cannot be converted to URL
-            // -> take original URL.
-            return originalUrl;
-        }
-    }
-
     /**
      * This implementation opens an InputStream for the given URL. It sets the
      * "UseCaches" flag to {@code false}, mainly to avoid jar file locking on
@@ -192,7 +172,17 @@ public class UrlResource extends AbstractFileResolvingResource {
     }
 
     /**
-     * This implementation compares the underlying URL references.
+     * This implementation returns the cleaned URL string, computed once on
+     * construction.
+     */
+    @Override
+    public String getIdentityKey() {
+        return this.cleanedUrl;
+    }
+
+    /**
+     * This implementation compares the cleaned URL strings, avoiding
+     * {@link URL#equals} (which may resolve host names).
      */
     @Override
     public boolean equals(Object obj) {
@@ -200,8 +190,7 @@ public class UrlResource extends AbstractFileResolvingResource {
     }
 
     /**
-     * This implementation returns the hash code of the underlying URL
-     * reference.
+     * This implementation returns the hash code of the cleaned URL string.
      */
     @Override
     public int hashCode() {
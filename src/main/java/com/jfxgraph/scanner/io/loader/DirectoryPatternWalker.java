@@ -0,0 +1,231 @@
+package com.jfxgraph.scanner.io.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jfxgraph.scanner.util.AntPathPattern;
+
+/**
+ * 基于{@link Files#walkFileTree}的目录模式匹配遍历.
+ * <p>
+ * 相对根目录的路径模式预先编译为{@link AntPathPattern}; 遍历时按路径段逐级{@link AntPathPattern#step 推进匹配状态}(模式中可能匹配到的段位置的集合), 不再对每个条目拼接绝对路径并整体重新匹配.
+ * 状态中没有可继续匹配的位置时, 整个子目录被跳过. 条目类型来自遍历得到的{@link BasicFileAttributes}, 不再逐个调用{@link File#isDirectory()}.
+ * <p>
+ * 与{@link com.jfxgraph.scanner.util.AntPathMatcher}的语义一致: 各段中"*"匹配任意个字符, "?"匹配一个字符, "**"匹配任意层目录;
+ * 目录本身与模式匹配时也作为结果, 且在其下的匹配结果之后返回. 以"/"结尾或段数过多的模式不支持, 见{@link #supports}.
+ * <p>
+ * 可以同时按多个模式遍历: 条目与任一模式匹配即作为结果(只返回一次), 子目录在所有模式都不可能匹配时才被跳过.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+final class DirectoryPatternWalker
+{
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryPatternWalker.class);
+
+    private final AntPathPattern[] patterns;
+
+    private final long[] initialStates;
+
+    /**
+     * 处理匹配条目的回调.
+     */
+    interface MatchCallback
+    {
+        /**
+         * @return 是否继续遍历
+         */
+        boolean doWithMatch(Path path, BasicFileAttributes attributes) throws IOException;
+    }
+
+    /**
+     * @param patterns
+     *            相对根目录的路径模式, 均须满足{@link #supports}
+     */
+    DirectoryPatternWalker(AntPathPattern... patterns)
+    {
+        this.patterns = patterns;
+        this.initialStates = new long[patterns.length];
+        for (int i = 0; i < patterns.length; i++)
+        {
+            this.initialStates[i] = patterns[i].initialState();
+        }
+    }
+
+    /**
+     * 判断模式是否可以由本类匹配.
+     */
+    static boolean supports(AntPathPattern pattern)
+    {
+        int count = pattern.getSegmentCount();
+        return ("/".equals(pattern.getPathSeparator()) && !pattern.getPattern().endsWith("/") && count > 0 && count <= AntPathPattern.getMaxStepSegments());
+    }
+
+    /**
+     * 遍历根目录(跟随符号链接), 将匹配的文件和目录依次交给回调, 回调返回{@code false}时立即结束遍历. 根目录本身不参与匹配; 无法读取的子目录被跳过.
+     *
+     * @param rootDir
+     *            根目录
+     * @param callback
+     *            处理匹配条目的回调
+     * @return 是否遍历完整个目录(未被回调终止)
+     * @throws IOException
+     *             回调抛出异常时抛出
+     */
+    boolean walk(File rootDir, final MatchCallback callback) throws IOException
+    {
+        final boolean[] terminated = new boolean[1];
+        final int patternCount = this.patterns.length;
+        Files.walkFileTree(rootDir.toPath(), EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>()
+        {
+            // 各层目录的匹配状态, 第depth层的各模式状态依次存放在[depth * patternCount, (depth + 1) * patternCount)中
+            private long[] states = new long[16 * patternCount];
+
+            private BasicFileAttributes[] attributes = new BasicFileAttributes[16];
+
+            // 当前条目的各模式状态
+            private final long[] current = new long[patternCount];
+
+            private int depth = 0;
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                if (this.depth == 0)
+                {
+                    System.arraycopy(initialStates, 0, this.current, 0, patternCount);
+                } else
+                {
+                    step(this.states, (this.depth - 1) * patternCount, dir.getFileName().toString(), this.current);
+                    if (!isLive(this.current))
+                    {
+                        if (isMatched(this.current) && !callback.doWithMatch(dir, attrs))
+                        {
+                            return terminate();
+                        }
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                }
+                if (this.depth == this.attributes.length)
+                {
+                    long[] newStates = new long[this.depth * 2 * patternCount];
+                    System.arraycopy(this.states, 0, newStates, 0, this.depth * patternCount);
+                    this.states = newStates;
+                    BasicFileAttributes[] newAttributes = new BasicFileAttributes[this.depth * 2];
+                    System.arraycopy(this.attributes, 0, newAttributes, 0, this.depth);
+                    this.attributes = newAttributes;
+                }
+                System.arraycopy(this.current, 0, this.states, this.depth * patternCount, patternCount);
+                this.attributes[this.depth++] = attrs;
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException
+            {
+                this.depth--;
+                BasicFileAttributes attrs = this.attributes[this.depth];
+                this.attributes[this.depth] = null;
+                if (exc != null && logger.isWarnEnabled())
+                {
+                    logger.warn("无法检索目录内容 [" + dir + "]", exc);
+                }
+                if (this.depth > 0)
+                {
+                    System.arraycopy(this.states, this.depth * patternCount, this.current, 0, patternCount);
+                    if (isMatched(this.current) && !callback.doWithMatch(dir, attrs))
+                    {
+                        return terminate();
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+            {
+                step(this.states, (this.depth - 1) * patternCount, file.getFileName().toString(), this.current);
+                if (isMatched(this.current) && !callback.doWithMatch(file, attrs))
+                {
+                    return terminate();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc)
+            {
+                if (logger.isDebugEnabled())
+                {
+                    if (exc instanceof FileSystemLoopException)
+                    {
+                        logger.debug("Skipping [" + file + "] because it is a symbolic link to one of its parent directories");
+                    } else
+                    {
+                        logger.debug("Skipping [" + file + "] because it cannot be read", exc);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            private FileVisitResult terminate()
+            {
+                terminated[0] = true;
+                return FileVisitResult.TERMINATE;
+            }
+        });
+        return !terminated[0];
+    }
+
+    /**
+     * 各模式的状态中是否还有可以继续匹配下一段的位置.
+     */
+    private boolean isLive(long[] states)
+    {
+        for (int i = 0; i < states.length; i++)
+        {
+            if (this.patterns[i].canContinue(states[i]))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否有模式已完整匹配.
+     */
+    private boolean isMatched(long[] states)
+    {
+        for (int i = 0; i < states.length; i++)
+        {
+            if (this.patterns[i].isMatched(states[i]))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 用一个路径段推进各模式的匹配状态: 从states的offset处读取父目录的状态, 结果写入next.
+     */
+    private void step(long[] states, int offset, String name, long[] next)
+    {
+        for (int i = 0; i < next.length; i++)
+        {
+            next[i] = this.patterns[i].step(states[offset + i], name);
+        }
+    }
+}
@@ -7,9 +7,13 @@ import java.net.JarURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -17,12 +21,17 @@ import java.util.jar.JarFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.jfxgraph.scanner.io.FileSnapshotResource;
 import com.jfxgraph.scanner.io.FileSystemResource;
+import com.jfxgraph.scanner.io.JarEntryResource;
 import com.jfxgraph.scanner.io.Resource;
 import com.jfxgraph.scanner.io.UrlResource;
 import com.jfxgraph.scanner.util.AntPathMatcher;
+import com.jfxgraph.scanner.util.AntPathPattern;
 import com.jfxgraph.scanner.util.Assert;
 import com.jfxgraph.scanner.util.PathMatcher;
+import com.jfxgraph.scanner.util.PathPattern;
+import com.jfxgraph.scanner.util.PathPatternUtils;
 import com.jfxgraph.scanner.util.ReflectionUtils;
 import com.jfxgraph.scanner.util.ResourceUtils;
 import com.jfxgraph.scanner.util.StringUtils;
@@ -235,15 +244,7 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
         Set<Resource> result = new LinkedHashSet<Resource>(16);
         for (Resource rootDirResource : rootDirResources)
         {
-            rootDirResource = resolveRootDirResource(rootDirResource);
-            if (isJarResource(rootDirResource))
-            {
-                //jar文件时考虑仅扫描客户端相关的jar文件.
-                result.addAll(doFindPathMatchingJarResources(rootDirResource, subPattern));
-            } else
-            {
-                result.addAll(doFindPathMatchingFileResources(rootDirResource, subPattern));
-            }
+            result.addAll(findMatchingResources(rootDirResource, subPattern));
         }
         if (logger.isDebugEnabled())
         {
@@ -254,6 +255,219 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
         return result.toArray(new Resource[result.size()]);
     }
 
+    /**
+     * 遍历与路径模式匹配的资源, 每找到一个即交给回调处理, 不预先收集全部资源; 回调返回{@code false}时立即结束.
+     * <p>
+     * 与{@link #getResources}支持相同的路径形式: 含通配符时先解析根目录, 再逐个根目录调用{@link #doWithMatchingResources};
+     * 不含通配符时依次回调{@link #getResources}的结果. 同一资源出现在多个根目录下时不去重.
+     * 
+     * @param locationPattern
+     *            路径模式, 例如"classpath*:com/jfxgraph/**&#47;*.class"
+     * @param callback
+     *            处理匹配资源的回调
+     * @return 是否遍历完所有匹配的资源(未被回调终止)
+     * @throws IOException
+     *             I/O错误, 或回调抛出异常时抛出
+     */
+    public boolean doWithResources(String locationPattern, ResourceCallback callback) throws IOException
+    {
+        Assert.notNull(locationPattern, "Location pattern must not be null");
+        int prefixEnd = (locationPattern.startsWith(CLASSPATH_ALL_URL_PREFIX) ? CLASSPATH_ALL_URL_PREFIX.length() : locationPattern.indexOf(":") + 1);
+        if (!getPathMatcher().isPattern(locationPattern.substring(prefixEnd)))
+        {
+            for (Resource resource : getResources(locationPattern))
+            {
+                if (!callback.doWithResource(resource))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        String rootDirPath = determineRootDir(locationPattern);
+        String subPattern = locationPattern.substring(rootDirPath.length());
+        for (Resource rootDirResource : getResources(rootDirPath))
+        {
+            if (!doWithMatchingResources(rootDirResource, subPattern, callback))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 遍历与多个路径模式中任一个匹配的资源, 每个类路径根只遍历一次.
+     * <p>
+     * 各个"classpath*:"模式先分别解析根目录, 再按根目录所在的类路径根(目录或jar)合并: 同一类路径根下的各模式改为相对类路径根的模式,
+     * 由{@link #doWithMatchingResources(Resource, String[], ResourceCallback)}一次遍历完成, 与多个模式匹配的资源只回调一次.
+     * 其余形式的模式按{@link #doWithResources(String, ResourceCallback)}逐个处理.
+     * 
+     * @param locationPatterns
+     *            路径模式, 例如"classpath*:com/jfxgraph/**&#47;*.class"
+     * @param callback
+     *            处理匹配资源的回调
+     * @return 是否遍历完所有匹配的资源(未被回调终止)
+     * @throws IOException
+     *             I/O错误, 或回调抛出异常时抛出
+     */
+    public boolean doWithResources(String[] locationPatterns, ResourceCallback callback) throws IOException
+    {
+        Assert.notNull(locationPatterns, "Location patterns must not be null");
+        if (locationPatterns.length == 1)
+        {
+            return doWithResources(locationPatterns[0], callback);
+        }
+        // 键为类路径根的URL, 值为相对类路径根的模式; 无法确定类路径根时以根目录自身的URL为键.
+        Map<String, Set<String>> rootPatterns = new LinkedHashMap<String, Set<String>>();
+        for (String locationPattern : locationPatterns)
+        {
+            Assert.notNull(locationPattern, "Location pattern must not be null");
+            if (!locationPattern.startsWith(CLASSPATH_ALL_URL_PREFIX) || !getPathMatcher().isPattern(locationPattern.substring(CLASSPATH_ALL_URL_PREFIX.length())))
+            {
+                if (!doWithResources(locationPattern, callback))
+                {
+                    return false;
+                }
+                continue;
+            }
+            String rootDirPath = determineRootDir(locationPattern);
+            String rootPath = rootDirPath.substring(CLASSPATH_ALL_URL_PREFIX.length());
+            String subPattern = locationPattern.substring(rootDirPath.length());
+            for (Resource rootDirResource : getResources(rootDirPath))
+            {
+                String rootDirUrl = resolveRootDirResource(rootDirResource).getURL().toString();
+                if (!rootDirUrl.endsWith("/"))
+                {
+                    rootDirUrl = rootDirUrl + "/";
+                }
+                String rootUrl = rootDirUrl;
+                String pattern = subPattern;
+                if (rootDirUrl.endsWith(rootPath))
+                {
+                    rootUrl = rootDirUrl.substring(0, rootDirUrl.length() - rootPath.length());
+                    pattern = rootPath + subPattern;
+                }
+                Set<String> patterns = rootPatterns.get(rootUrl);
+                if (patterns == null)
+                {
+                    patterns = new LinkedHashSet<String>(4);
+                    rootPatterns.put(rootUrl, patterns);
+                }
+                patterns.add(pattern);
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : rootPatterns.entrySet())
+        {
+            Set<String> patterns = entry.getValue();
+            if (!doWithMatchingResources(new UrlResource(entry.getKey()), patterns.toArray(new String[patterns.size()]), callback))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 在单个根目录(文件系统目录或jar内目录)下查找与子模式匹配的资源, 供需要逐个类路径根处理的调用方使用.
+     * 
+     * @param rootDirResource
+     *            根目录资源, 通常来自{@code getResources("classpath*:" + rootDir)}
+     * @param subPattern
+     *            相对根目录的路径模式, 例如"**&#47;*.class"
+     * @return 匹配的资源集合
+     * @throws IOException
+     *             I/O错误时抛出
+     */
+    public Set<Resource> findMatchingResources(Resource rootDirResource, String subPattern) throws IOException
+    {
+        rootDirResource = resolveRootDirResource(rootDirResource);
+        if (isJarResource(rootDirResource))
+        {
+            //jar文件时考虑仅扫描客户端相关的jar文件.
+            return doFindPathMatchingJarResources(rootDirResource, subPattern);
+        }
+        return doFindPathMatchingFileResources(rootDirResource, subPattern);
+    }
+
+    /**
+     * 在单个根目录下遍历与子模式匹配的资源, 每找到一个即交给回调处理; 回调返回{@code false}时立即结束.
+     * <p>
+     * 对jar内的目录, 每个jar只打开一次并只遍历一遍条目: 匹配的条目以{@link JarEntryResource}交给回调, 遍历期间直接从已打开的jar文件读取,
+     * 不再为每个条目创建和解析jar URL. 对文件系统中的目录, 可以逐级匹配时在遍历目录的同时回调{@link FileSnapshotResource},
+     * 不先收集全部匹配的文件.
+     * 
+     * @param rootDirResource
+     *            根目录资源, 通常来自{@code getResources("classpath*:" + rootDir)}
+     * @param subPattern
+     *            相对根目录的路径模式, 例如"**&#47;*.class"
+     * @param callback
+     *            处理匹配资源的回调
+     * @return 是否遍历完所有匹配的资源(未被回调终止)
+     * @throws IOException
+     *             I/O错误, 或回调抛出异常时抛出
+     */
+    public boolean doWithMatchingResources(Resource rootDirResource, String subPattern, ResourceCallback callback) throws IOException
+    {
+        return doWithMatchingResources(rootDirResource, new String[] { subPattern }, callback);
+    }
+
+    /**
+     * 在单个根目录下遍历与多个子模式中任一个匹配的资源, 根目录只遍历一次, 与多个子模式匹配的资源只回调一次; 回调返回{@code false}时立即结束.
+     * 
+     * @param rootDirResource
+     *            根目录资源
+     * @param subPatterns
+     *            相对根目录的路径模式
+     * @param callback
+     *            处理匹配资源的回调
+     * @return 是否遍历完所有匹配的资源(未被回调终止)
+     * @throws IOException
+     *             I/O错误, 或回调抛出异常时抛出
+     * @see #doWithMatchingResources(Resource, String, ResourceCallback)
+     */
+    public boolean doWithMatchingResources(Resource rootDirResource, String[] subPatterns, final ResourceCallback callback) throws IOException
+    {
+        rootDirResource = resolveRootDirResource(rootDirResource);
+        if (isJarResource(rootDirResource))
+        {
+            return doWithMatchingJarEntries(rootDirResource, subPatterns, false, callback);
+        }
+        File rootDir = getRootDir(rootDirResource);
+        if (rootDir == null)
+        {
+            return true;
+        }
+        DirectoryPatternWalker walker = getDirectoryPatternWalker(subPatterns);
+        if (walker != null)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("在目录树中寻找匹配资源 [" + rootDir.getPath() + "]");
+            }
+            return (!isSearchableDirectory(rootDir) || walker.walk(rootDir, new DirectoryPatternWalker.MatchCallback()
+            {
+                public boolean doWithMatch(Path path, BasicFileAttributes attributes) throws IOException
+                {
+                    return callback.doWithResource(new FileSnapshotResource(path.toFile(), attributes));
+                }
+            }));
+        }
+        Set<Resource> resources = new LinkedHashSet<Resource>(8);
+        for (String subPattern : subPatterns)
+        {
+            resources.addAll(doFindMatchingFileSystemResources(rootDir, subPattern));
+        }
+        for (Resource resource : resources)
+        {
+            if (!callback.doWithResource(resource))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * 返回指定资源的资源句柄是否指示一个 jar资源。doFindPathMatchingJarResources方法可以处理。
      */
@@ -299,7 +513,29 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
      */
     protected Set<Resource> doFindPathMatchingJarResources(Resource rootDirResource, String subPattern) throws IOException
     {
+        final Set<Resource> result = new LinkedHashSet<Resource>(8);
+        doWithMatchingJarEntries(rootDirResource, new String[] { subPattern }, true, new ResourceCallback()
+        {
+            @Override
+            public boolean doWithResource(Resource resource)
+            {
+                result.add(resource);
+                return true;
+            }
+        });
+        return result;
+    }
 
+    /**
+     * 遍历一次jar文件的条目, 将与任一子模式匹配的条目交给回调.
+     * 
+     * @param urlResources
+     *            是否以{@link Resource#createRelative}创建的URL资源交给回调, 否则使用{@link JarEntryResource}
+     * @return 是否遍历完所有条目(未被回调终止)
+     */
+    private boolean doWithMatchingJarEntries(Resource rootDirResource, String[] subPatterns, boolean urlResources, ResourceCallback callback)
+            throws IOException
+    {
         URLConnection con = rootDirResource.getURL().openConnection();
         JarFile jarFile;
         String jarFileUrl;
@@ -349,7 +585,16 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
                 // The Sun JRE does not return a slash here, but BEA JRockit does.
                 rootEntryPath = rootEntryPath + "/";
             }
-            Set<Resource> result = new LinkedHashSet<Resource>(8);
+            String entryUrlPrefix = rootDirResource.getURL().toString();
+            if (!entryUrlPrefix.endsWith("/"))
+            {
+                entryUrlPrefix = entryUrlPrefix + "/";
+            }
+            PathPattern[] entryPatterns = new PathPattern[subPatterns.length];
+            for (int i = 0; i < subPatterns.length; i++)
+            {
+                entryPatterns[i] = PathPatternUtils.compile(getPathMatcher(), subPatterns[i]);
+            }
             for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();)
             {
                 JarEntry entry = entries.nextElement();
@@ -357,13 +602,15 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
                 if (entryPath.startsWith(rootEntryPath))
                 {
                     String relativePath = entryPath.substring(rootEntryPath.length());
-                    if (getPathMatcher().match(subPattern, relativePath))
+                    if (matchesAny(entryPatterns, relativePath)
+                            && !callback.doWithResource(urlResources ? rootDirResource.createRelative(relativePath) : new JarEntryResource(jarFile,
+                                    entry, entryUrlPrefix + relativePath)))
                     {
-                        result.add(rootDirResource.createRelative(relativePath));
+                        return false;
                     }
                 }
             }
-            return result;
+            return true;
         } finally
         {
             // Close jar file, but only if freshly obtained -
@@ -375,6 +622,18 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
         }
     }
 
+    private static boolean matchesAny(PathPattern[] patterns, String path)
+    {
+        for (PathPattern pattern : patterns)
+        {
+            if (pattern.match(path))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Find all resources in the file system that match the given location pattern via the Ant-style
      * PathMatcher.
@@ -391,24 +650,37 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
      */
     protected Set<Resource> doFindPathMatchingFileResources(Resource rootDirResource, String subPattern) throws IOException
     {
-        File rootDir;
+        File rootDir = getRootDir(rootDirResource);
+        if (rootDir == null)
+        {
+            return Collections.emptySet();
+        }
+        return doFindMatchingFileSystemResources(rootDir, subPattern);
+    }
+
+    /**
+     * 返回根目录资源对应的文件系统目录, 不对应文件系统中的目录时记录日志并返回{@code null}.
+     */
+    private File getRootDir(Resource rootDirResource)
+    {
         try
         {
-            rootDir = rootDirResource.getFile().getAbsoluteFile();
+            return rootDirResource.getFile().getAbsoluteFile();
         } catch (IOException ex)
         {
             if (logger.isWarnEnabled())
             {
                 logger.warn("Cannot search for matching files underneath " + rootDirResource + " because it does not correspond to a directory in the file system", ex);
             }
-            return Collections.emptySet();
+            return null;
         }
-        return doFindMatchingFileSystemResources(rootDir, subPattern);
     }
 
     /**
      * Find all resources in the file system that match the given location pattern via the Ant-style
      * PathMatcher.
+     * <p>
+     * 通过{@link DirectoryPatternWalker}遍历时返回{@link FileSnapshotResource}, 其可读性、长度和修改时间取自遍历时读取的文件属性.
      * 
      * @param rootDir
      *            the root directory in the file system
@@ -427,28 +699,55 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
             logger.debug("在目录树中寻找匹配资源 [" + rootDir.getPath() + "]");
 //            logger.debug("Looking for matching resources in directory tree [" + rootDir.getPath() + "]");
         }
-        Set<File> matchingFiles = retrieveMatchingFiles(rootDir, subPattern);
-        Set<Resource> result = new LinkedHashSet<Resource>(matchingFiles.size());
-        for (File file : matchingFiles)
+        final Set<Resource> result = new LinkedHashSet<Resource>(8);
+        DirectoryPatternWalker walker = getDirectoryPatternWalker(subPattern);
+        if (walker == null)
+        {
+            for (File file : retrieveMatchingFiles(rootDir, subPattern))
+            {
+                result.add(new FileSystemResource(file));
+            }
+        } else if (isSearchableDirectory(rootDir))
         {
-            result.add(new FileSystemResource(file));
+            walker.walk(rootDir, new DirectoryPatternWalker.MatchCallback()
+            {
+                public boolean doWithMatch(Path path, BasicFileAttributes attributes)
+                {
+                    result.add(new FileSnapshotResource(path.toFile(), attributes));
+                    return true;
+                }
+            });
         }
         return result;
     }
 
     /**
-     * Retrieve files that match the given path pattern, checking the given directory and its
-     * subdirectories.
-     * 
-     * @param rootDir
-     *            the directory to start from
-     * @param pattern
-     *            the pattern to match against, relative to the root directory
-     * @return the Set of matching File instances
-     * @throws IOException
-     *             if directory contents could not be retrieved
+     * 使用默认的{@link AntPathMatcher}且各模式都受{@link DirectoryPatternWalker}支持时, 返回按路径段逐级匹配并跳过不可能匹配的子目录的遍历器,
+     * 否则返回{@code null}.
      */
-    protected Set<File> retrieveMatchingFiles(File rootDir, String pattern) throws IOException
+    private DirectoryPatternWalker getDirectoryPatternWalker(String... patterns)
+    {
+        if (getPathMatcher().getClass() != AntPathMatcher.class)
+        {
+            return null;
+        }
+        AntPathPattern[] compiledPatterns = new AntPathPattern[patterns.length];
+        for (int i = 0; i < patterns.length; i++)
+        {
+            AntPathPattern compiledPattern = ((AntPathMatcher) getPathMatcher()).compile(StringUtils.replace(patterns[i], File.separator, "/"));
+            if (!DirectoryPatternWalker.supports(compiledPattern))
+            {
+                return null;
+            }
+            compiledPatterns[i] = compiledPattern;
+        }
+        return new DirectoryPatternWalker(compiledPatterns);
+    }
+
+    /**
+     * 检查根目录是否存在、是目录且可读, 否则记录日志.
+     */
+    private boolean isSearchableDirectory(File rootDir)
     {
         if (!rootDir.exists())
         {
@@ -457,7 +756,7 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
             {
                 logger.debug("Skipping [" + rootDir.getAbsolutePath() + "] because it does not exist");
             }
-            return Collections.emptySet();
+            return false;
         }
         if (!rootDir.isDirectory())
         {
@@ -466,7 +765,7 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
             {
                 logger.warn("Skipping [" + rootDir.getAbsolutePath() + "] because it does not denote a directory");
             }
-            return Collections.emptySet();
+            return false;
         }
         if (!rootDir.canRead())
         {
@@ -474,8 +773,45 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
             {
                 logger.warn("Cannot search for matching files underneath directory [" + rootDir.getAbsolutePath() + "] because the application is not allowed to read the directory");
             }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Retrieve files that match the given path pattern, checking the given directory and its
+     * subdirectories.
+     * <p>
+     * 使用默认的{@link AntPathMatcher}时通过{@link DirectoryPatternWalker}遍历目录, 否则逐级调用{@link #doRetrieveMatchingFiles}.
+     * 
+     * @param rootDir
+     *            the directory to start from
+     * @param pattern
+     *            the pattern to match against, relative to the root directory
+     * @return the Set of matching File instances
+     * @throws IOException
+     *             if directory contents could not be retrieved
+     */
+    protected Set<File> retrieveMatchingFiles(File rootDir, String pattern) throws IOException
+    {
+        if (!isSearchableDirectory(rootDir))
+        {
             return Collections.emptySet();
         }
+        DirectoryPatternWalker walker = getDirectoryPatternWalker(pattern);
+        if (walker != null)
+        {
+            final Set<File> result = new LinkedHashSet<File>(8);
+            walker.walk(rootDir, new DirectoryPatternWalker.MatchCallback()
+            {
+                public boolean doWithMatch(Path path, BasicFileAttributes attributes)
+                {
+                    result.add(path.toFile());
+                    return true;
+                }
+            });
+            return result;
+        }
         String fullPattern = StringUtils.replace(rootDir.getAbsolutePath(), File.separator, "/");
         if (!pattern.startsWith("/"))
         {
@@ -0,0 +1,26 @@
+package com.jfxgraph.scanner.io.loader;
+
+import java.io.IOException;
+
+import com.jfxgraph.scanner.io.Resource;
+
+/**
+ * 逐个处理匹配资源的回调.
+ *
+ * @author Albert
+ * @since 1.1
+ * @see PathMatchingResourcePatternResolver#doWithMatchingResources
+ */
+public interface ResourceCallback
+{
+    /**
+     * 处理一个匹配的资源.
+     *
+     * @param resource
+     *            匹配的资源
+     * @return 是否继续遍历; 返回{@code false}时不再查找和回调其余的资源
+     * @throws IOException
+     *             处理资源时发生I/O错误, 将终止遍历并向调用方抛出
+     */
+    boolean doWithResource(Resource resource) throws IOException;
+}
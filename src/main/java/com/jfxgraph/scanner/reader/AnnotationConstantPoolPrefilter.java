@@ -0,0 +1,286 @@
+package com.jfxgraph.scanner.reader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.jfxgraph.asm.AnnotationVisitor;
+import com.jfxgraph.asm.ClassReader;
+import com.jfxgraph.asm.ClassVisitor;
+import com.jfxgraph.asm.Opcodes;
+import com.jfxgraph.asm.Type;
+import com.jfxgraph.scanner.util.Assert;
+import com.jfxgraph.scanner.visitor.AnnotationTypeDescriptor;
+import com.jfxgraph.scanner.visitor.AnnotationTypeIntrospector;
+
+/**
+ * 按注解类型预筛选类文件的{@link ClassFilePrefilter}(线程安全), 供只使用
+ * {@link com.jfxgraph.scanner.type.filter.AnnotationTypeFilter}的扫描使用:
+ * <ol>
+ * <li>常量池中含有目标注解类型, 或已知带有目标元注解的注解类型的描述符(UTF8常量, 例如"Lcom/foo/Bar;")时, 读取完整元数据;</li>
+ * <li>常量池中没有注解属性名(RuntimeVisibleAnnotations/RuntimeInvisibleAnnotations)时, 类上没有任何注解, 直接排除;</li>
+ * <li>否则只读取类级注解的类型(跳过字段和方法), 通过{@link AnnotationTypeIntrospector}判断其是否带有目标元注解, 带有时记入已知类型.</li>
+ * </ol>
+ * 若目标注解可以从父类继承, 父类不是{@link Object}(或考虑接口且实现了接口)的类总是读取完整元数据.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class AnnotationConstantPoolPrefilter implements ClassFilePrefilter
+{
+    // 常量池项的UTF8标记, 见ClassWriter.UTF8
+    private static final int UTF8 = 1;
+
+    private static final byte[] VISIBLE_ANNOTATIONS = toModifiedUtf8("RuntimeVisibleAnnotations");
+
+    private static final byte[] INVISIBLE_ANNOTATIONS = toModifiedUtf8("RuntimeInvisibleAnnotations");
+
+    private static final String OBJECT_INTERNAL_NAME = "java/lang/Object";
+
+    private final Set<String> annotationTypes;
+
+    private final AnnotationTypeIntrospector introspector;
+
+    private boolean considerInherited = false;
+
+    private boolean considerInterfaces = false;
+
+    // 目标注解类型及已知带有目标元注解的注解类型的描述符, 只整体替换
+    private volatile byte[][] candidateDescriptors;
+
+    // 已判断过的类级注解类型
+    private final Map<String, Boolean> annotationTypeMatches = new ConcurrentHashMap<String, Boolean>(64);
+
+    /**
+     * @param annotationTypes
+     *            要匹配的注解类型名
+     * @param introspector
+     *            用于判断注解类型是否带有目标元注解
+     */
+    public AnnotationConstantPoolPrefilter(Collection<String> annotationTypes, AnnotationTypeIntrospector introspector)
+    {
+        Assert.notEmpty(annotationTypes, "Annotation types must not be empty");
+        Assert.notNull(introspector, "Introspector must not be null");
+        this.annotationTypes = new LinkedHashSet<String>(annotationTypes);
+        this.introspector = introspector;
+        List<byte[]> descriptors = new ArrayList<byte[]>(this.annotationTypes.size());
+        for (String annotationType : this.annotationTypes)
+        {
+            descriptors.add(toDescriptor(annotationType));
+        }
+        this.candidateDescriptors = descriptors.toArray(new byte[descriptors.size()][]);
+    }
+
+    /**
+     * 设置目标注解是否可以从父类继承(即是否有过滤器匹配{@link java.lang.annotation.Inherited}注解). 默认为{@code false}.
+     */
+    public void setConsiderInherited(boolean considerInherited)
+    {
+        this.considerInherited = considerInherited;
+    }
+
+    /**
+     * 设置继承匹配时是否也考虑接口. 默认为{@code false}.
+     */
+    public void setConsiderInterfaces(boolean considerInterfaces)
+    {
+        this.considerInterfaces = considerInterfaces;
+    }
+
+    @Override
+    public boolean mayMatch(ClassReader classReader)
+    {
+        if (this.considerInherited && mayInherit(classReader))
+        {
+            return true;
+        }
+        byte[] b = classReader.b;
+        byte[][] descriptors = this.candidateDescriptors;
+        boolean annotated = false;
+        for (int i = 1, count = classReader.getItemCount(); i < count; i++)
+        {
+            int index = classReader.getItem(i);
+            // long和double占两项, 第二项为0
+            if (index == 0 || b[index - 1] != UTF8)
+            {
+                continue;
+            }
+            int length = classReader.readUnsignedShort(index);
+            int start = index + 2;
+            for (byte[] descriptor : descriptors)
+            {
+                if (regionMatches(b, start, length, descriptor))
+                {
+                    return true;
+                }
+            }
+            if (!annotated)
+            {
+                annotated = regionMatches(b, start, length, VISIBLE_ANNOTATIONS) || regionMatches(b, start, length, INVISIBLE_ANNOTATIONS);
+            }
+        }
+        if (!annotated)
+        {
+            return false;
+        }
+
+        // 类或其成员带有注解, 只读取类头部中类级注解的类型, 字段和方法整体跳过.
+        ClassAnnotationTypesVisitor visitor = new ClassAnnotationTypesVisitor();
+        classReader.accept(visitor, ClassReader.SKIP_FIELDS | ClassReader.SKIP_METHODS | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        for (String annotationType : visitor.annotationTypes)
+        {
+            if (isCandidateAnnotationType(annotationType))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 键由目标注解类型及继承选项组成; 由目标元注解推得的注解类型不计入, 它们不改变判断结果.
+     */
+    @Override
+    public String getCacheKey()
+    {
+        return "annotations=" + new TreeSet<String>(this.annotationTypes) + ";inherited=" + this.considerInherited + ";interfaces="
+                + this.considerInterfaces;
+    }
+
+    /**
+     * 类是否可能从父类(或接口)继承注解.
+     */
+    private boolean mayInherit(ClassReader classReader)
+    {
+        String superName = classReader.getSuperName();
+        if (superName != null && !OBJECT_INTERNAL_NAME.equals(superName))
+        {
+            return true;
+        }
+        return (this.considerInterfaces && classReader.readUnsignedShort(classReader.header + 6) > 0);
+    }
+
+    /**
+     * 判断注解类型是目标注解类型, 或带有目标元注解(任意层级); 是时将其描述符加入常量池检查.
+     */
+    private boolean isCandidateAnnotationType(String annotationType)
+    {
+        Boolean match = this.annotationTypeMatches.get(annotationType);
+        if (match == null)
+        {
+            match = Boolean.FALSE;
+            if (this.annotationTypes.contains(annotationType))
+            {
+                match = Boolean.TRUE;
+            } else
+            {
+                AnnotationTypeDescriptor descriptor = this.introspector.getDescriptor(annotationType);
+                if (descriptor != null)
+                {
+                    for (String metaAnnotationType : descriptor.getTransitiveMetaAnnotationTypes())
+                    {
+                        if (this.annotationTypes.contains(metaAnnotationType))
+                        {
+                            match = Boolean.TRUE;
+                            addCandidateDescriptor(toDescriptor(annotationType));
+                            break;
+                        }
+                    }
+                }
+            }
+            this.annotationTypeMatches.put(annotationType, match);
+        }
+        return match.booleanValue();
+    }
+
+    private synchronized void addCandidateDescriptor(byte[] descriptor)
+    {
+        byte[][] descriptors = this.candidateDescriptors;
+        for (byte[] existing : descriptors)
+        {
+            if (regionMatches(existing, 0, existing.length, descriptor))
+            {
+                return;
+            }
+        }
+        byte[][] newDescriptors = new byte[descriptors.length + 1][];
+        System.arraycopy(descriptors, 0, newDescriptors, 0, descriptors.length);
+        newDescriptors[descriptors.length] = descriptor;
+        this.candidateDescriptors = newDescriptors;
+    }
+
+    private static boolean regionMatches(byte[] b, int start, int length, byte[] bytes)
+    {
+        if (length != bytes.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (b[start + i] != bytes[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] toDescriptor(String annotationType)
+    {
+        return toModifiedUtf8("L" + annotationType.replace('.', '/') + ";");
+    }
+
+    /**
+     * 按类文件常量池使用的改进UTF-8编码.
+     */
+    private static byte[] toModifiedUtf8(String s)
+    {
+        byte[] bytes = new byte[s.length() * 3];
+        int length = 0;
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F)
+            {
+                bytes[length++] = (byte) c;
+            } else if (c <= 0x07FF)
+            {
+                bytes[length++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            } else
+            {
+                bytes[length++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        byte[] result = new byte[length];
+        System.arraycopy(bytes, 0, result, 0, length);
+        return result;
+    }
+
+    /**
+     * 只收集类级注解类型的访问器, 字段、方法及注解属性均跳过.
+     */
+    private static final class ClassAnnotationTypesVisitor extends ClassVisitor
+    {
+        final List<String> annotationTypes = new ArrayList<String>(4);
+
+        ClassAnnotationTypesVisitor()
+        {
+            super(Opcodes.ASM4);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String desc, boolean visible)
+        {
+            this.annotationTypes.add(Type.getType(desc).getClassName());
+            return null;
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.jfxgraph.scanner.reader;
 import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import com.jfxgraph.scanner.io.Resource;
 import com.jfxgraph.scanner.io.loader.ResourceLoader;
@@ -10,6 +13,10 @@ import com.jfxgraph.scanner.io.loader.ResourceLoader;
 /**
  * MetadataReaderFactory接口的缓存实现，缓存每一个资源文件的MetadataReader实例。 <br>
  * caching {@link MetadataReader} per {@link Resource} handle (i.e. per ".class" file).
+ * <p>
+ * 缓存以资源的{@link Resource#getIdentityKey() 标识键}为键, 指向同一位置的不同资源对象共用缓存条目;
+ * 按键的hashCode分为{@value #CACHE_SEGMENTS}个段, 每段各自加锁并按访问顺序淘汰; 类文件的读取和解析在锁外进行,
+ * 同一资源并发请求时只解析一次, 其余线程等待该结果. 带预筛选器的请求同样经过缓存, 被排除的类也会被记住.
  * 
  * @author Albert
  * @version $Id: CachingMetadataReaderFactory.java,v0.5 2013年10月27日 下午5:52:37 Albert Exp .
@@ -38,16 +45,10 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory
         return this.cacheLimit;
     }
 
-    private final Map<Resource, MetadataReader> metadataReaderCache = new LinkedHashMap<Resource, MetadataReader>(DEFAULT_CACHE_LIMIT, 0.75f, true)
-    {
-        private static final long serialVersionUID = 1L;
+    /** 缓存分段数 */
+    static final int CACHE_SEGMENTS = 16;
 
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<Resource, MetadataReader> eldest)
-        {
-            return size() > getCacheLimit();
-        }
-    };
+    private final CacheSegment[] segments = createSegments();
 
     /**
      * 为默认的类加载器创建一个新的CachingMetadataReaderFactory。
@@ -86,26 +87,221 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory
         {
             return super.getMetadataReader(resource);
         }
-        synchronized (this.metadataReaderCache)
+        return getCachedMetadataReader(resource, null);
+    }
+
+    /**
+     * 与{@link #getMetadataReader(Resource)}共用缓存及并发请求的去重: 预筛选排除的结果以{@code null}缓存, 键相同的预筛选器不再重复读取该类;
+     * 缓存中为其它预筛选器排除的结果时, 按本次请求重新读取.
+     * 
+     * @see SimpleMetadataReaderFactory#getMetadataReader(Resource, ClassFilePrefilter)
+     */
+    @Override
+    public MetadataReader getMetadataReader(Resource resource, ClassFilePrefilter prefilter) throws IOException
+    {
+        if (getCacheLimit() <= 0)
+        {
+            return super.getMetadataReader(resource, prefilter);
+        }
+        return getCachedMetadataReader(resource, prefilter);
+    }
+
+    private MetadataReader getCachedMetadataReader(Resource resource, ClassFilePrefilter prefilter) throws IOException
+    {
+        String key = resource.getIdentityKey();
+        CacheSegment segment = segmentFor(key);
+        while (true)
         {
-            MetadataReader metadataReader = this.metadataReaderCache.get(resource);
-            if (metadataReader == null)
+            ReaderFuture future;
+            boolean owner = false;
+            synchronized (segment)
+            {
+                future = segment.get(key);
+                if (future == null)
+                {
+                    future = new ReaderFuture(resource, prefilter);
+                    segment.put(key, future);
+                    owner = true;
+                }
+            }
+            if (owner)
+            {
+                // 在段锁之外解析类文件.
+                future.run();
+            }
+            MetadataReader metadataReader;
+            try
+            {
+                metadataReader = getUninterruptibly(future);
+            } catch (ExecutionException ex)
             {
-                metadataReader = super.getMetadataReader(resource);
-                this.metadataReaderCache.put(resource, metadataReader);
+                if (owner)
+                {
+                    // 解析失败的条目不保留, 以便后续请求重试.
+                    removeEntry(segment, key, future);
+                }
+                Throwable cause = ex.getCause();
+                if (cause instanceof IOException)
+                {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException)
+                {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error)
+                {
+                    throw (Error) cause;
+                }
+                throw new IOException("读取类元数据失败: " + resource, cause);
             }
-            return metadataReader;
+            if (metadataReader != null || future.isRejectedBy(prefilter))
+            {
+                return metadataReader;
+            }
+            // 缓存的是其它预筛选器排除的结果, 替换为本次请求的读取.
+            removeEntry(segment, key, future);
+        }
+    }
+
+    private static void removeEntry(CacheSegment segment, String key, ReaderFuture future)
+    {
+        synchronized (segment)
+        {
+            if (segment.get(key) == future)
+            {
+                segment.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 移除指定资源的缓存条目, 例如类文件被修改或删除之后. 与该资源{@link Resource#getIdentityKey() 标识键}相同的资源共用此条目.
+     * 
+     * @param resource
+     *            类文件资源
+     * @since 1.1
+     */
+    public void evict(Resource resource)
+    {
+        String key = resource.getIdentityKey();
+        CacheSegment segment = segmentFor(key);
+        synchronized (segment)
+        {
+            segment.remove(key);
         }
     }
 
     /**
-     * Clear the entire MetadataReader cache, removing all cached class metadata.
+     * Clear the entire MetadataReader cache, removing all cached class metadata. 类名池随缓存一起清空.
      */
     public void clearCache()
     {
-        synchronized (this.metadataReaderCache)
+        for (CacheSegment segment : this.segments)
+        {
+            synchronized (segment)
+            {
+                segment.clear();
+            }
+        }
+        getClassNamePool().clear();
+    }
+
+    private CacheSegment[] createSegments()
+    {
+        CacheSegment[] segments = new CacheSegment[CACHE_SEGMENTS];
+        for (int i = 0; i < segments.length; i++)
+        {
+            segments[i] = new CacheSegment();
+        }
+        return segments;
+    }
+
+    private CacheSegment segmentFor(String key)
+    {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return this.segments[hash & (CACHE_SEGMENTS - 1)];
+    }
+
+    private static MetadataReader getUninterruptibly(ReaderFuture future) throws ExecutionException
+    {
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    return future.get();
+                } catch (InterruptedException ex)
+                {
+                    interrupted = true;
+                }
+            }
+        } finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 读取一个资源的任务: 结果为{@code null}表示被prefilter排除.
+     */
+    private final class ReaderFuture extends FutureTask<MetadataReader>
+    {
+        private final ClassFilePrefilter prefilter;
+
+        ReaderFuture(final Resource resource, final ClassFilePrefilter prefilter)
+        {
+            super(new Callable<MetadataReader>()
+            {
+                @Override
+                public MetadataReader call() throws IOException
+                {
+                    return CachingMetadataReaderFactory.super.getMetadataReader(resource, prefilter);
+                }
+            });
+            this.prefilter = prefilter;
+        }
+
+        /**
+         * 本任务的排除结果是否对给定的预筛选器同样成立.
+         */
+        boolean isRejectedBy(ClassFilePrefilter prefilter)
+        {
+            if (prefilter == null || this.prefilter == null)
+            {
+                return false;
+            }
+            if (prefilter == this.prefilter)
+            {
+                return true;
+            }
+            String cacheKey = prefilter.getCacheKey();
+            return (cacheKey != null && cacheKey.equals(this.prefilter.getCacheKey()));
+        }
+    }
+
+    /**
+     * 缓存段: 按访问顺序排列, 超过{@code cacheLimit / CACHE_SEGMENTS}(向上取整)时淘汰最久未访问的条目.
+     */
+    private class CacheSegment extends LinkedHashMap<String, ReaderFuture>
+    {
+        private static final long serialVersionUID = 1L;
+
+        CacheSegment()
+        {
+            super(DEFAULT_CACHE_LIMIT / CACHE_SEGMENTS, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReaderFuture> eldest)
         {
-            this.metadataReaderCache.clear();
+            return size() > (getCacheLimit() + CACHE_SEGMENTS - 1) / CACHE_SEGMENTS;
         }
     }
 }
@@ -0,0 +1,30 @@
+package com.jfxgraph.scanner.reader;
+
+import com.jfxgraph.asm.ClassReader;
+
+/**
+ * 在完整读取类元数据之前对类文件做的快速检查: {@link ClassReader}构造时已解析常量池, 据此即可排除大部分不可能匹配的类,
+ * 不必执行{@link ClassReader#accept}并构建完整的注解元数据.
+ *
+ * @author Albert
+ * @since 1.1
+ * @see SimpleMetadataReaderFactory#getMetadataReader(com.jfxgraph.scanner.io.Resource, ClassFilePrefilter)
+ */
+public interface ClassFilePrefilter
+{
+    /**
+     * 判断类是否可能匹配. 返回{@code false}时该类一定不匹配, 返回{@code true}时仍需读取完整元数据再做判断.
+     *
+     * @param classReader
+     *            已解析常量池的类文件
+     * @return 是否可能匹配
+     */
+    boolean mayMatch(ClassReader classReader);
+
+    /**
+     * 返回标识判断条件的键: 条件相同的预筛选器返回相同的键. 元数据缓存和持久化索引据此记住被排除的类, 类文件未变化时不再重复读取和筛选.
+     *
+     * @return 判断条件的键, 为{@code null}时排除结果不会被记住
+     */
+    String getCacheKey();
+}
@@ -0,0 +1,317 @@
+package com.jfxgraph.scanner.reader;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.jfxgraph.asm.ClassReader;
+import com.jfxgraph.scanner.io.AbstractFileResolvingResource;
+import com.jfxgraph.scanner.io.FileSystemResource;
+import com.jfxgraph.scanner.io.JarEntryResource;
+import com.jfxgraph.scanner.io.Resource;
+import com.jfxgraph.scanner.util.ResourceUtils;
+
+/**
+ * 读取类文件并构造{@link ClassReader}的工具方法, 尽量避免多余的复制:
+ * <ul>
+ * <li>文件系统中的类文件通过{@link FileChannel}一次读入大小恰好的数组, 由{@link ClassReader#ClassReader(ByteBuffer)}直接使用.
+ * 不使用内存映射: ClassReader总要把映射的内容复制到数组中, 而且在Windows上映射会锁住文件直到被垃圾回收;</li>
+ * <li>遍历jar时的{@link JarEntryResource}直接从已打开的jar文件读取, 长度即条目大小;</li>
+ * <li>其它URL资源(例如通过jar URL定位的条目)通过同一个连接取得长度和内容, 长度已知时一次读入大小恰好的数组;</li>
+ * <li>长度未知时才退回{@link ClassReader#ClassReader(InputStream)}, 且不再额外包装BufferedInputStream.</li>
+ * </ul>
+ * 逐个解析大量类文件的线程可以使用{@link #acquireClassReader}/{@link #releaseClassReader}: 文件系统和jar中的类文件读入当前线程的缓冲区,
+ * 由当前线程可重用的{@link ClassReader}{@link ClassReader#reset 重新解析}, 每个类几乎不再分配数组.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public abstract class ClassReaderUtils
+{
+    /** 读入线程缓冲区的最大类文件大小, 更大的类文件仍按{@link #readClass(Resource)}读取, 缓冲区也不会增长到此大小以上 */
+    public static final int MAX_POOLED_CLASS_SIZE = 256 * 1024;
+
+    private static final ThreadLocal<ReaderBuffer> READER_BUFFERS = new ThreadLocal<ReaderBuffer>()
+    {
+        @Override
+        protected ReaderBuffer initialValue()
+        {
+            return new ReaderBuffer();
+        }
+    };
+
+    /**
+     * 读取资源中的类文件.
+     *
+     * @param resource
+     *            类文件资源
+     * @return ClassReader
+     * @throws IOException
+     *             读取失败时抛出
+     * @throws IllegalArgumentException
+     *             ASM无法解析该类文件时抛出
+     */
+    public static ClassReader readClass(Resource resource) throws IOException
+    {
+        if (resource instanceof FileSystemResource)
+        {
+            return readClass(((FileSystemResource) resource).getFile());
+        }
+        if (resource instanceof JarEntryResource)
+        {
+            long size = ((JarEntryResource) resource).getJarEntry().getSize();
+            return readClass(resource.getInputStream(), (size <= Integer.MAX_VALUE ? (int) size : -1));
+        }
+        if (resource instanceof AbstractFileResolvingResource)
+        {
+            URL url = resource.getURL();
+            if (ResourceUtils.isFileURL(url))
+            {
+                return readClass(ResourceUtils.getFile(url));
+            }
+            URLConnection con = url.openConnection();
+            ResourceUtils.useCachesIfNecessary(con);
+            InputStream is;
+            try
+            {
+                is = con.getInputStream();
+            } catch (IOException ex)
+            {
+                // Close the HTTP connection (if applicable).
+                if (con instanceof HttpURLConnection)
+                {
+                    ((HttpURLConnection) con).disconnect();
+                }
+                throw ex;
+            }
+            return readClass(is, con.getContentLength());
+        }
+        return readClass(resource.getInputStream(), -1);
+    }
+
+    /**
+     * 读取文件系统中的类文件.
+     *
+     * @param file
+     *            类文件
+     * @return ClassReader
+     * @throws IOException
+     *             读取失败时抛出
+     */
+    public static ClassReader readClass(File file) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+            {
+                throw new IOException("类文件过大: " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer) < 0)
+                {
+                    throw new EOFException("类文件在读取过程中被截断: " + file);
+                }
+            }
+            buffer.flip();
+            return new ClassReader(buffer);
+        } finally
+        {
+            raf.close();
+        }
+    }
+
+    /**
+     * 读取输入流中的类文件并关闭输入流.
+     *
+     * @param is
+     *            输入流
+     * @param length
+     *            类文件长度, 未知时为负数
+     * @return ClassReader
+     * @throws IOException
+     *             读取失败时抛出
+     */
+    public static ClassReader readClass(InputStream is, int length) throws IOException
+    {
+        try
+        {
+            if (length < 0)
+            {
+                return new ClassReader(is);
+            }
+            byte[] b = new byte[length];
+            int len = 0;
+            while (len < length)
+            {
+                int n = is.read(b, len, length - len);
+                if (n < 0)
+                {
+                    throw new EOFException("类文件长度与声明的长度" + length + "不符");
+                }
+                len += n;
+            }
+            return new ClassReader(b);
+        } finally
+        {
+            is.close();
+        }
+    }
+
+    /**
+     * 读取资源中的类文件, 尽量使用当前线程可重用的{@link ClassReader}及读取缓冲区. 使用完毕后必须调用{@link #releaseClassReader}(在finally块中),
+     * 释放之后不能再使用返回的ClassReader. 当前线程的ClassReader正在使用时(例如在访问器的回调中读取注解类型), 或类文件不是文件系统/jar中的类文件,
+     * 或大于{@value #MAX_POOLED_CLASS_SIZE}字节时, 与{@link #readClass(Resource)}相同.
+     *
+     * @param resource
+     *            类文件资源
+     * @return ClassReader
+     * @throws IOException
+     *             读取失败时抛出
+     * @throws IllegalArgumentException
+     *             ASM无法解析该类文件时抛出
+     */
+    public static ClassReader acquireClassReader(Resource resource) throws IOException
+    {
+        ReaderBuffer buffer = READER_BUFFERS.get();
+        if (buffer.inUse)
+        {
+            return readClass(resource);
+        }
+        int length = buffer.read(resource);
+        if (length < 0)
+        {
+            return readClass(resource);
+        }
+        if (buffer.reader == null)
+        {
+            buffer.reader = new ClassReader(buffer.bytes, 0, length);
+        } else
+        {
+            buffer.reader.reset(buffer.bytes, 0, length);
+        }
+        buffer.inUse = true;
+        return buffer.reader;
+    }
+
+    /**
+     * 释放由{@link #acquireClassReader}取得的ClassReader; 不是当前线程可重用的ClassReader时不做任何事.
+     *
+     * @param classReader
+     *            ClassReader, 可以为{@code null}
+     */
+    public static void releaseClassReader(ClassReader classReader)
+    {
+        ReaderBuffer buffer = READER_BUFFERS.get();
+        if (classReader != null && classReader == buffer.reader)
+        {
+            buffer.inUse = false;
+        }
+    }
+
+    /**
+     * 线程的类文件读取缓冲区及可重用的ClassReader.
+     */
+    private static final class ReaderBuffer
+    {
+        byte[] bytes = new byte[8 * 1024];
+
+        ClassReader reader;
+
+        boolean inUse;
+
+        /**
+         * 将类文件读入缓冲区.
+         *
+         * @return 类文件长度, 不能读入缓冲区时返回-1(尚未打开资源)
+         */
+        int read(Resource resource) throws IOException
+        {
+            File file = null;
+            if (resource instanceof FileSystemResource)
+            {
+                file = ((FileSystemResource) resource).getFile();
+            } else if (resource instanceof JarEntryResource)
+            {
+                long size = ((JarEntryResource) resource).getJarEntry().getSize();
+                if (size < 0 || size > MAX_POOLED_CLASS_SIZE)
+                {
+                    return -1;
+                }
+                return read(resource.getInputStream(), (int) size);
+            } else if (resource instanceof AbstractFileResolvingResource && ResourceUtils.isFileURL(resource.getURL()))
+            {
+                file = ResourceUtils.getFile(resource.getURL());
+            }
+            if (file == null)
+            {
+                return -1;
+            }
+
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try
+            {
+                FileChannel channel = raf.getChannel();
+                long size = channel.size();
+                if (size > MAX_POOLED_CLASS_SIZE)
+                {
+                    return -1;
+                }
+                ByteBuffer target = ByteBuffer.wrap(ensureCapacity((int) size), 0, (int) size);
+                while (target.hasRemaining())
+                {
+                    if (channel.read(target) < 0)
+                    {
+                        throw new EOFException("类文件在读取过程中被截断: " + file);
+                    }
+                }
+                return (int) size;
+            } finally
+            {
+                raf.close();
+            }
+        }
+
+        private int read(InputStream is, int length) throws IOException
+        {
+            try
+            {
+                byte[] b = ensureCapacity(length);
+                int len = 0;
+                while (len < length)
+                {
+                    int n = is.read(b, len, length - len);
+                    if (n < 0)
+                    {
+                        throw new EOFException("类文件长度与声明的长度" + length + "不符");
+                    }
+                    len += n;
+                }
+                return length;
+            } finally
+            {
+                is.close();
+            }
+        }
+
+        private byte[] ensureCapacity(int length)
+        {
+            if (this.bytes.length < length)
+            {
+                this.bytes = new byte[Math.min(Math.max(length, this.bytes.length * 2), MAX_POOLED_CLASS_SIZE)];
+            }
+            return this.bytes;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.jfxgraph.scanner.reader;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 为不可变的元数据快照创建紧凑的只读集合: 空集合使用共享的空实例, 单个元素使用singleton实现, 其余以数组保存并保持原有顺序.
+ * <p>
+ * 快照中的集合通常只有几个元素, 按数组逐个比较查找; 与LinkedHashSet/LinkedHashMap相比不再为每个元素创建链表节点.
+ *
+ * @author Albert
+ * @since 1.1
+ * @see SimpleAnnotationMetadata
+ */
+abstract class CompactCollections
+{
+    /** 共享的空字符串数组 */
+    static final String[] EMPTY_STRING_ARRAY = new String[0];
+
+    /**
+     * 返回与给定集合元素和顺序相同的只读Set.
+     */
+    static <E> Set<E> set(Collection<? extends E> source)
+    {
+        if (source == null || source.isEmpty())
+        {
+            return Collections.emptySet();
+        }
+        if (source.size() == 1)
+        {
+            return Collections.<E> singleton(source.iterator().next());
+        }
+        return new ArraySet<E>(source.toArray());
+    }
+
+    /**
+     * 返回与给定Map条目和顺序相同的只读Map.
+     */
+    static <K, V> Map<K, V> map(Map<? extends K, ? extends V> source)
+    {
+        if (source == null || source.isEmpty())
+        {
+            return Collections.emptyMap();
+        }
+        if (source.size() == 1)
+        {
+            Map.Entry<? extends K, ? extends V> entry = source.entrySet().iterator().next();
+            return Collections.<K, V> singletonMap(entry.getKey(), entry.getValue());
+        }
+        Object[] keys = new Object[source.size()];
+        Object[] values = new Object[keys.length];
+        int i = 0;
+        for (Map.Entry<? extends K, ? extends V> entry : source.entrySet())
+        {
+            keys[i] = entry.getKey();
+            values[i++] = entry.getValue();
+        }
+        return new ArrayMap<K, V>(keys, values);
+    }
+
+    /**
+     * 返回与给定List元素和顺序相同的只读List.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> List<E> list(List<? extends E> source)
+    {
+        if (source == null || source.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        if (source.size() == 1)
+        {
+            return Collections.<E> singletonList(source.get(0));
+        }
+        return Collections.unmodifiableList(Arrays.asList((E[]) source.toArray()));
+    }
+
+    /**
+     * 返回给定数组, 空数组时返回共享的空数组.
+     */
+    static String[] array(String[] source)
+    {
+        return (source == null || source.length == 0 ? EMPTY_STRING_ARRAY : source);
+    }
+
+    private static int indexOf(Object[] array, Object o)
+    {
+        for (int i = 0; i < array.length; i++)
+        {
+            if (o == null ? array[i] == null : o.equals(array[i]))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 以数组保存元素的只读Set.
+     */
+    private static final class ArraySet<E> extends AbstractSet<E>
+    {
+        private final Object[] elements;
+
+        ArraySet(Object[] elements)
+        {
+            this.elements = elements;
+        }
+
+        @Override
+        public int size()
+        {
+            return this.elements.length;
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return indexOf(this.elements, o) != -1;
+        }
+
+        @Override
+        public Iterator<E> iterator()
+        {
+            return new ArrayIterator<E>()
+            {
+                @Override
+                @SuppressWarnings("unchecked")
+                E get(int index)
+                {
+                    return (E) elements[index];
+                }
+
+                @Override
+                int size()
+                {
+                    return elements.length;
+                }
+            };
+        }
+    }
+
+    /**
+     * 以键、值两个数组保存条目的只读Map.
+     */
+    private static final class ArrayMap<K, V> extends AbstractMap<K, V>
+    {
+        private final Object[] keys;
+
+        private final Object[] values;
+
+        ArrayMap(Object[] keys, Object[] values)
+        {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        public int size()
+        {
+            return this.keys.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return indexOf(this.keys, key) != -1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(Object key)
+        {
+            int index = indexOf(this.keys, key);
+            return (index != -1 ? (V) this.values[index] : null);
+        }
+
+        @Override
+        public Set<Map.Entry<K, V>> entrySet()
+        {
+            return new AbstractSet<Map.Entry<K, V>>()
+            {
+                @Override
+                public int size()
+                {
+                    return keys.length;
+                }
+
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator()
+                {
+                    return new ArrayIterator<Map.Entry<K, V>>()
+                    {
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        Map.Entry<K, V> get(int index)
+                        {
+                            return new AbstractMap.SimpleImmutableEntry<K, V>((K) keys[index], (V) values[index]);
+                        }
+
+                        @Override
+                        int size()
+                        {
+                            return keys.length;
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * 按下标遍历的只读迭代器.
+     */
+    private abstract static class ArrayIterator<E> implements Iterator<E>
+    {
+        private int index = 0;
+
+        abstract E get(int index);
+
+        abstract int size();
+
+        @Override
+        public boolean hasNext()
+        {
+            return this.index < size();
+        }
+
+        @Override
+        public E next()
+        {
+            if (this.index >= size())
+            {
+                throw new NoSuchElementException();
+            }
+            return get(this.index++);
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
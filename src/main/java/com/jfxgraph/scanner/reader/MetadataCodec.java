@@ -0,0 +1,701 @@
+package com.jfxgraph.scanner.reader;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.jfxgraph.asm.Type;
+import com.jfxgraph.scanner.type.AnnotationMetadata;
+import com.jfxgraph.scanner.type.MethodMetadata;
+import com.jfxgraph.scanner.util.AnnotationAttributes;
+import com.jfxgraph.scanner.util.EnumValue;
+import com.jfxgraph.scanner.visitor.ClassNamePool;
+
+/**
+ * 类元数据的二进制编解码, 用于将读取到的{@link AnnotationMetadata}持久化, 以便下次启动时无需再次解析类文件.
+ * <p>
+ * 注解属性值按类型标记逐项写出; 类引用按原样区分ASM {@link Type}和{@link Class}保存(后者在读取时重新加载, 与直接解析类文件得到的属性值一致), 枚举值以"枚举类型名 + 常量名"保存并在读取时重新解析, 尚未解析的{@link EnumValue}原样保留.
+ * 方法元数据尚未读取的快照(见{@link SimpleMetadataReaderFactory#setLazyMethodMetadata})只写出类头部, 写出时不会触发对方法的读取.
+ *
+ * @author Albert
+ * @since 1.1
+ * @see PersistentMetadataReaderFactory
+ */
+public abstract class MetadataCodec
+{
+    private static final int FLAG_INTERFACE = 1;
+
+    private static final int FLAG_ABSTRACT = 2;
+
+    private static final int FLAG_FINAL = 4;
+
+    private static final int FLAG_INDEPENDENT_INNER_CLASS = 8;
+
+    private static final int FLAG_METHODS_DEFERRED = 16;
+
+    private static final byte STRING = 's';
+
+    private static final byte INTEGER = 'I';
+
+    private static final byte LONG = 'J';
+
+    private static final byte FLOAT = 'F';
+
+    private static final byte DOUBLE = 'D';
+
+    private static final byte BYTE = 'B';
+
+    private static final byte BOOLEAN = 'Z';
+
+    private static final byte SHORT = 'S';
+
+    private static final byte CHAR = 'C';
+
+    private static final byte TYPE = 'c';
+
+    private static final byte CLASS = 'k';
+
+    private static final byte ENUM = 'e';
+
+    private static final byte ENUM_VALUE = 'v';
+
+    private static final byte ANNOTATION = '@';
+
+    private static final byte ARRAY = '[';
+
+    private static final byte OBJECT = 'o';
+
+    /**
+     * 将给定的元数据写出.
+     *
+     * @param metadata
+     *            由本包的{@link MetadataReader}实现读取到的元数据
+     * @param out
+     *            输出目标
+     * @throws IOException
+     *             写出失败时抛出, 字符串超过{@link DataOutput#writeUTF}的长度限制时为{@link java.io.UTFDataFormatException}
+     * @throws IllegalArgumentException
+     *             元数据实现不受支持, 或注解属性中含有无法编码的值
+     */
+    public static void writeMetadata(AnnotationMetadata metadata, DataOutput out) throws IOException
+    {
+        SimpleAnnotationMetadata snapshot = SimpleAnnotationMetadata.snapshot(metadata, null, null);
+        out.writeUTF(snapshot.getClassName());
+        int flags = 0;
+        if (snapshot.isInterface())
+        {
+            flags |= FLAG_INTERFACE;
+        }
+        if (snapshot.isAbstract())
+        {
+            flags |= FLAG_ABSTRACT;
+        }
+        if (snapshot.isFinal())
+        {
+            flags |= FLAG_FINAL;
+        }
+        if (snapshot.isIndependentInnerClass())
+        {
+            flags |= FLAG_INDEPENDENT_INNER_CLASS;
+        }
+        boolean methodsDeferred = snapshot.isMethodMetadataDeferred();
+        if (methodsDeferred)
+        {
+            flags |= FLAG_METHODS_DEFERRED;
+        }
+        out.writeByte(flags);
+        writeNullableString(snapshot.getEnclosingClassName(), out);
+        writeNullableString(snapshot.getSuperClassName(), out);
+        writeStrings(Arrays.asList(snapshot.getInterfaceNames()), out);
+        writeStrings(Arrays.asList(snapshot.getMemberClassNames()), out);
+        writeStrings(snapshot.getAnnotationTypes(), out);
+
+        Map<String, Set<String>> metaAnnotationMap = snapshot.getMetaAnnotationMap();
+        out.writeShort(metaAnnotationMap.size());
+        for (Map.Entry<String, Set<String>> entry : metaAnnotationMap.entrySet())
+        {
+            out.writeUTF(entry.getKey());
+            writeStrings(entry.getValue(), out);
+        }
+        writeAttributesMap(snapshot.getAnnotationAttributesMap(), out);
+        if (!methodsDeferred)
+        {
+            writeMethodMetadata(snapshot, out);
+        }
+    }
+
+    private static void writeMethodMetadata(SimpleAnnotationMetadata snapshot, DataOutput out) throws IOException
+    {
+        // 方法元数据只写一次, 注解类型映射中以序号引用.
+        Map<String, List<MethodMetadata>> methodMetadataMap = snapshot.getMethodMetadataMap();
+        Map<MethodMetadata, Integer> methodIndexes = new IdentityHashMap<MethodMetadata, Integer>();
+        List<SimpleMethodMetadata> methods = new ArrayList<SimpleMethodMetadata>();
+        for (List<MethodMetadata> list : methodMetadataMap.values())
+        {
+            for (MethodMetadata method : list)
+            {
+                if (!methodIndexes.containsKey(method))
+                {
+                    methodIndexes.put(method, methods.size());
+                    methods.add((SimpleMethodMetadata) method);
+                }
+            }
+        }
+        out.writeShort(methods.size());
+        for (SimpleMethodMetadata method : methods)
+        {
+            out.writeUTF(method.getMethodName());
+            out.writeShort(method.getAccess());
+            writeAttributesMap(method.getAnnotationAttributesMap(), out);
+        }
+        out.writeShort(methodMetadataMap.size());
+        for (Map.Entry<String, List<MethodMetadata>> entry : methodMetadataMap.entrySet())
+        {
+            out.writeUTF(entry.getKey());
+            out.writeShort(entry.getValue().size());
+            for (MethodMetadata method : entry.getValue())
+            {
+                out.writeShort(methodIndexes.get(method));
+            }
+        }
+    }
+
+    /**
+     * 读取由{@link #writeMetadata}写出的元数据.
+     *
+     * @param in
+     *            输入来源
+     * @param classLoader
+     *            解析枚举值及转换类引用时使用的类加载器
+     * @return 不可变的元数据快照
+     * @throws IOException
+     *             读取失败、数据格式错误, 或数据与当前的类不再一致(例如枚举常量已不存在)时抛出
+     */
+    public static AnnotationMetadata readMetadata(DataInput in, ClassLoader classLoader) throws IOException
+    {
+        return readMetadata(in, classLoader, null);
+    }
+
+    /**
+     * 读取由{@link #writeMetadata}写出的元数据, 类名和注解类型名取给定类名池中的规范实例.
+     *
+     * @param in
+     *            输入来源
+     * @param classLoader
+     *            解析枚举值及转换类引用时使用的类加载器
+     * @param classNamePool
+     *            类名池, 为{@code null}时不做规范化
+     * @return 不可变的元数据快照
+     * @throws IOException
+     *             读取失败、数据格式错误, 或数据与当前的类不再一致(例如枚举常量已不存在)时抛出
+     */
+    public static AnnotationMetadata readMetadata(DataInput in, ClassLoader classLoader, ClassNamePool classNamePool) throws IOException
+    {
+        return readMetadata(in, classLoader, classNamePool, null);
+    }
+
+    /**
+     * 读取元数据; 写出时方法元数据尚未读取的条目, 其方法元数据推迟到第一次访问时由给定的读取过程填充.
+     *
+     * @param methodMetadataPass
+     *            补充方法元数据的读取过程, 为{@code null}时这样的条目无法恢复, 抛出IOException
+     */
+    static AnnotationMetadata readMetadata(DataInput in, ClassLoader classLoader, ClassNamePool classNamePool,
+            SimpleMetadataReader.MethodMetadataPass methodMetadataPass) throws IOException
+    {
+        try
+        {
+            return doReadMetadata(in, classLoader, classNamePool, methodMetadataPass);
+        } catch (RuntimeException ex)
+        {
+            throw new IOException("无法解码类元数据", ex);
+        }
+    }
+
+    private static AnnotationMetadata doReadMetadata(DataInput in, ClassLoader classLoader, ClassNamePool classNamePool,
+            SimpleMetadataReader.MethodMetadataPass methodMetadataPass) throws IOException
+    {
+        String className = in.readUTF();
+        if (classNamePool != null)
+        {
+            className = classNamePool.canonicalName(className);
+        }
+        int flags = in.readUnsignedByte();
+        String enclosingClassName = readNullableString(in);
+        String superClassName = readNullableString(in);
+        String[] interfaceNames = readStrings(in);
+        String[] memberClassNames = readStrings(in);
+        Set<String> annotationTypes = new LinkedHashSet<String>(Arrays.asList(readStrings(in)));
+
+        int count = in.readUnsignedShort();
+        Map<String, Set<String>> metaAnnotationMap = new LinkedHashMap<String, Set<String>>(count);
+        for (int i = 0; i < count; i++)
+        {
+            String annotationType = in.readUTF();
+            metaAnnotationMap.put(annotationType, new LinkedHashSet<String>(Arrays.asList(readStrings(in))));
+        }
+        Map<String, AnnotationAttributes> attributeMap = readAttributesMap(in, classLoader);
+
+        if ((flags & FLAG_METHODS_DEFERRED) != 0)
+        {
+            if (methodMetadataPass == null)
+            {
+                throw new IOException("条目中没有方法元数据: " + className);
+            }
+            SimpleAnnotationMetadata snapshot = new SimpleAnnotationMetadata(classLoader, className, (flags & FLAG_INTERFACE) != 0,
+                    (flags & FLAG_ABSTRACT) != 0, (flags & FLAG_FINAL) != 0, enclosingClassName, (flags & FLAG_INDEPENDENT_INNER_CLASS) != 0,
+                    superClassName, interfaceNames, memberClassNames, annotationTypes, metaAnnotationMap, attributeMap,
+                    Collections.<String, List<MethodMetadata>> emptyMap(), classNamePool);
+            snapshot.deferMethodMetadata(methodMetadataPass);
+            return snapshot;
+        }
+
+        MethodMetadata[] methods = new MethodMetadata[in.readUnsignedShort()];
+        for (int i = 0; i < methods.length; i++)
+        {
+            String methodName = in.readUTF();
+            int access = in.readUnsignedShort();
+            methods[i] = new SimpleMethodMetadata(methodName, access, className, readAttributesMap(in, classLoader));
+        }
+        count = in.readUnsignedShort();
+        Map<String, List<MethodMetadata>> methodMetadataMap = new LinkedHashMap<String, List<MethodMetadata>>(count);
+        for (int i = 0; i < count; i++)
+        {
+            String annotationType = in.readUTF();
+            MethodMetadata[] list = new MethodMetadata[in.readUnsignedShort()];
+            for (int j = 0; j < list.length; j++)
+            {
+                list[j] = methods[in.readUnsignedShort()];
+            }
+            methodMetadataMap.put(annotationType, Arrays.asList(list));
+        }
+
+        return new SimpleAnnotationMetadata(classLoader, className, (flags & FLAG_INTERFACE) != 0, (flags & FLAG_ABSTRACT) != 0,
+                (flags & FLAG_FINAL) != 0, enclosingClassName, (flags & FLAG_INDEPENDENT_INNER_CLASS) != 0, superClassName, interfaceNames,
+                memberClassNames, annotationTypes, metaAnnotationMap, attributeMap, methodMetadataMap, classNamePool);
+    }
+
+    private static void writeNullableString(String value, DataOutput out) throws IOException
+    {
+        out.writeBoolean(value != null);
+        if (value != null)
+        {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInput in) throws IOException
+    {
+        return (in.readBoolean() ? in.readUTF() : null);
+    }
+
+    private static void writeStrings(Iterable<String> values, DataOutput out) throws IOException
+    {
+        List<String> list = new ArrayList<String>();
+        for (String value : values)
+        {
+            list.add(value);
+        }
+        out.writeShort(list.size());
+        for (String value : list)
+        {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String[] readStrings(DataInput in) throws IOException
+    {
+        String[] values = new String[in.readUnsignedShort()];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = in.readUTF();
+        }
+        return values;
+    }
+
+    private static void writeAttributesMap(Map<String, AnnotationAttributes> attributeMap, DataOutput out) throws IOException
+    {
+        out.writeShort(attributeMap.size());
+        for (Map.Entry<String, AnnotationAttributes> entry : attributeMap.entrySet())
+        {
+            out.writeUTF(entry.getKey());
+            writeAttributes(entry.getValue(), out);
+        }
+    }
+
+    private static Map<String, AnnotationAttributes> readAttributesMap(DataInput in, ClassLoader classLoader) throws IOException
+    {
+        int count = in.readUnsignedShort();
+        Map<String, AnnotationAttributes> attributeMap = new LinkedHashMap<String, AnnotationAttributes>(count);
+        for (int i = 0; i < count; i++)
+        {
+            String annotationType = in.readUTF();
+            attributeMap.put(annotationType, readAttributes(in, classLoader));
+        }
+        return attributeMap;
+    }
+
+    private static void writeAttributes(Map<?, ?> attributes, DataOutput out) throws IOException
+    {
+        out.writeShort(attributes.size());
+        for (Map.Entry<?, ?> entry : attributes.entrySet())
+        {
+            if (!(entry.getKey() instanceof String))
+            {
+                throw new IllegalArgumentException("无法编码的注解属性名: " + entry.getKey());
+            }
+            out.writeUTF((String) entry.getKey());
+            writeValue(entry.getValue(), out);
+        }
+    }
+
+    private static AnnotationAttributes readAttributes(DataInput in, ClassLoader classLoader) throws IOException
+    {
+        int count = in.readUnsignedShort();
+        AnnotationAttributes attributes = new AnnotationAttributes(count);
+        for (int i = 0; i < count; i++)
+        {
+            String attributeName = in.readUTF();
+            attributes.put(attributeName, readValue(in, classLoader));
+        }
+        return attributes;
+    }
+
+    private static void writeValue(Object value, DataOutput out) throws IOException
+    {
+        if (value instanceof String)
+        {
+            out.writeByte(STRING);
+            out.writeUTF((String) value);
+        } else if (value instanceof Integer)
+        {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long)
+        {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float)
+        {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double)
+        {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Byte)
+        {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Boolean)
+        {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Short)
+        {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Character)
+        {
+            out.writeByte(CHAR);
+            out.writeChar((Character) value);
+        } else if (value instanceof Type)
+        {
+            out.writeByte(TYPE);
+            out.writeUTF(((Type) value).getDescriptor());
+        } else if (value instanceof Class)
+        {
+            out.writeByte(CLASS);
+            out.writeUTF(Type.getType((Class<?>) value).getDescriptor());
+        } else if (value instanceof Enum)
+        {
+            out.writeByte(ENUM);
+            out.writeUTF(((Enum<?>) value).getDeclaringClass().getName());
+            out.writeUTF(((Enum<?>) value).name());
+        } else if (value instanceof EnumValue)
+        {
+            out.writeByte(ENUM_VALUE);
+            out.writeUTF(((EnumValue) value).getEnumType());
+            out.writeUTF(((EnumValue) value).getConstantName());
+        } else if (value instanceof Map)
+        {
+            out.writeByte(ANNOTATION);
+            writeAttributes((Map<?, ?>) value, out);
+        } else if (value != null && value.getClass().isArray())
+        {
+            writeArray(value, out);
+        } else
+        {
+            throw new IllegalArgumentException("无法编码的注解属性值: " + value);
+        }
+    }
+
+    private static void writeArray(Object array, DataOutput out) throws IOException
+    {
+        Class<?> componentType = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        out.writeByte(ARRAY);
+        if (componentType.isPrimitive())
+        {
+            // 基本类型数组: 以元素的类型标记写出, 元素本身不再带标记.
+            byte tag = primitiveTag(componentType);
+            out.writeByte(tag);
+            out.writeInt(length);
+            for (int i = 0; i < length; i++)
+            {
+                writePrimitive(tag, Array.get(array, i), out);
+            }
+            return;
+        }
+        if (componentType == String.class)
+        {
+            out.writeByte(STRING);
+        } else if (componentType == Type.class)
+        {
+            out.writeByte(TYPE);
+        } else if (componentType == Class.class)
+        {
+            out.writeByte(CLASS);
+        } else if (componentType == EnumValue.class)
+        {
+            out.writeByte(ENUM_VALUE);
+        } else if (componentType.isEnum())
+        {
+            out.writeByte(ENUM);
+            out.writeUTF(componentType.getName());
+        } else if (Map.class.isAssignableFrom(componentType))
+        {
+            out.writeByte(ANNOTATION);
+        } else
+        {
+            out.writeByte(OBJECT);
+        }
+        out.writeInt(length);
+        for (int i = 0; i < length; i++)
+        {
+            writeValue(Array.get(array, i), out);
+        }
+    }
+
+    private static Object readValue(DataInput in, ClassLoader classLoader) throws IOException
+    {
+        byte tag = in.readByte();
+        switch (tag)
+        {
+            case STRING:
+                return in.readUTF();
+            case TYPE:
+                return Type.getType(in.readUTF());
+            case CLASS:
+                return loadClass(Type.getType(in.readUTF()), classLoader);
+            case ENUM:
+                return resolveEnum(in.readUTF(), in.readUTF(), classLoader);
+            case ENUM_VALUE:
+                return new EnumValue(in.readUTF(), in.readUTF());
+            case ANNOTATION:
+                return readAttributes(in, classLoader);
+            case ARRAY:
+                return readArray(in, classLoader);
+            default:
+                return readPrimitive(tag, in);
+        }
+    }
+
+    private static Object readArray(DataInput in, ClassLoader classLoader) throws IOException
+    {
+        byte componentTag = in.readByte();
+        Class<?> componentType;
+        switch (componentTag)
+        {
+            case STRING:
+                componentType = String.class;
+                break;
+            case TYPE:
+                componentType = Type.class;
+                break;
+            case CLASS:
+                componentType = Class.class;
+                break;
+            case ENUM:
+                componentType = loadEnumType(in.readUTF(), classLoader);
+                break;
+            case ENUM_VALUE:
+                componentType = EnumValue.class;
+                break;
+            case ANNOTATION:
+                componentType = AnnotationAttributes.class;
+                break;
+            case OBJECT:
+                componentType = Object.class;
+                break;
+            default:
+                componentType = primitiveType(componentTag);
+                int length = in.readInt();
+                Object array = Array.newInstance(componentType, length);
+                for (int i = 0; i < length; i++)
+                {
+                    Array.set(array, i, readPrimitive(componentTag, in));
+                }
+                return array;
+        }
+        int length = in.readInt();
+        Object[] array = (Object[]) Array.newInstance(componentType, length);
+        for (int i = 0; i < length; i++)
+        {
+            array[i] = readValue(in, classLoader);
+        }
+        return array;
+    }
+
+    private static byte primitiveTag(Class<?> type)
+    {
+        return (byte) Type.getDescriptor(type).charAt(0);
+    }
+
+    private static Class<?> primitiveType(byte tag) throws IOException
+    {
+        switch (tag)
+        {
+            case INTEGER:
+                return int.class;
+            case LONG:
+                return long.class;
+            case FLOAT:
+                return float.class;
+            case DOUBLE:
+                return double.class;
+            case BYTE:
+                return byte.class;
+            case BOOLEAN:
+                return boolean.class;
+            case SHORT:
+                return short.class;
+            case CHAR:
+                return char.class;
+            default:
+                throw new IOException("无效的类型标记: " + (char) tag);
+        }
+    }
+
+    private static void writePrimitive(byte tag, Object value, DataOutput out) throws IOException
+    {
+        switch (tag)
+        {
+            case INTEGER:
+                out.writeInt((Integer) value);
+                break;
+            case LONG:
+                out.writeLong((Long) value);
+                break;
+            case FLOAT:
+                out.writeFloat((Float) value);
+                break;
+            case DOUBLE:
+                out.writeDouble((Double) value);
+                break;
+            case BYTE:
+                out.writeByte((Byte) value);
+                break;
+            case BOOLEAN:
+                out.writeBoolean((Boolean) value);
+                break;
+            case SHORT:
+                out.writeShort((Short) value);
+                break;
+            default:
+                out.writeChar((Character) value);
+                break;
+        }
+    }
+
+    private static Object readPrimitive(byte tag, DataInput in) throws IOException
+    {
+        switch (tag)
+        {
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case BYTE:
+                return in.readByte();
+            case BOOLEAN:
+                return in.readBoolean();
+            case SHORT:
+                return in.readShort();
+            case CHAR:
+                return in.readChar();
+            default:
+                throw new IOException("无效的类型标记: " + (char) tag);
+        }
+    }
+
+    /**
+     * 与{@link com.jfxgraph.scanner.visitor.AbstractRecursiveAnnotationVisitor#visitEnum}一致: 枚举类型无法加载时保留常量名.
+     * 枚举类型中已没有该常量时(枚举类型在写出后被修改), 条目已过期, 抛出IOException以便重新解析类文件.
+     */
+    private static Object resolveEnum(String enumType, String constantName, ClassLoader classLoader) throws IOException
+    {
+        Class<?> enumClass = loadEnumType(enumType, classLoader);
+        if (!enumClass.isEnum())
+        {
+            return constantName;
+        }
+        for (Object constant : enumClass.getEnumConstants())
+        {
+            if (((Enum<?>) constant).name().equals(constantName))
+            {
+                return constant;
+            }
+        }
+        throw new IOException("枚举类型" + enumType + "中已没有常量" + constantName);
+    }
+
+    /**
+     * 加载写出时即为{@link Class}的属性值(如注解类型中声明的默认值); 类已无法加载时条目已过期, 抛出IOException以便重新解析类文件.
+     */
+    private static Class<?> loadClass(Type type, ClassLoader classLoader) throws IOException
+    {
+        switch (type.getSort())
+        {
+            case Type.VOID:
+                return void.class;
+            case Type.ARRAY:
+            case Type.OBJECT:
+                try
+                {
+                    return Class.forName(type.getSort() == Type.ARRAY ? type.getDescriptor().replace('/', '.') : type.getClassName(), false,
+                            classLoader);
+                } catch (ClassNotFoundException ex)
+                {
+                    throw new IOException("无法加载类" + type.getClassName(), ex);
+                }
+            default:
+                return primitiveType((byte) type.getDescriptor().charAt(0));
+        }
+    }
+
+    private static Class<?> loadEnumType(String enumType, ClassLoader classLoader)
+    {
+        try
+        {
+            return classLoader.loadClass(enumType);
+        } catch (ClassNotFoundException ex)
+        {
+            return String.class;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.jfxgraph.scanner.reader;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.jfxgraph.asm.ClassReader;
+import com.jfxgraph.asm.ClassWriter;
+import com.jfxgraph.asm.Opcodes;
+import com.jfxgraph.asm.TypeHierarchy;
+import com.jfxgraph.scanner.io.Resource;
+import com.jfxgraph.scanner.io.loader.DefaultResourceLoader;
+import com.jfxgraph.scanner.io.loader.ResourceLoader;
+import com.jfxgraph.scanner.type.ClassMetadata;
+import com.jfxgraph.scanner.util.Assert;
+import com.jfxgraph.scanner.util.ClassUtils;
+
+/**
+ * 由{@link MetadataReaderFactory}读取类文件得到继承关系的{@link TypeHierarchy}(线程安全): 交给{@link ClassWriter#setTypeHierarchy}后,
+ * 以{@link ClassWriter#COMPUTE_FRAMES}计算栈帧时不再加载任何应用类, 也不要求这些类对ClassWriter的类加载器可见.
+ * <p>
+ * 每个类型的父类、接口和是否为接口只读取一次并缓存, 同一实例可以供一次转换中的所有ClassWriter共用. 类文件无法读取时(例如版本高于ASM所支持的JDK类),
+ * 退回到引导类加载器中查找(不初始化); 仍找不到时抛出{@link TypeNotPresentException}.
+ * <p>
+ * 以类加载器创建时只读取类文件的头部(访问标志、父类和接口), 不解析注解, 因此不会加载注解类型或枚举类型等应用类.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class MetadataTypeHierarchy implements TypeHierarchy
+{
+    private static final String[] NO_INTERFACES = new String[0];
+
+    // 以类加载器创建时查找类文件, 否则为null
+    private final ResourceLoader resourceLoader;
+
+    private final MetadataReaderFactory metadataReaderFactory;
+
+    // 内部名 -> 类型信息
+    private final Map<String, TypeInfo> typeCache = new ConcurrentHashMap<String, TypeInfo>(256);
+
+    /**
+     * 通过给定类加载器的资源查找类文件; 只读取类文件头部.
+     *
+     * @param classLoader
+     *            查找类文件的类加载器, 为{@code null}时使用默认类加载器
+     */
+    public MetadataTypeHierarchy(ClassLoader classLoader)
+    {
+        this.resourceLoader = (classLoader != null ? new DefaultResourceLoader(classLoader) : new DefaultResourceLoader());
+        this.metadataReaderFactory = null;
+    }
+
+    /**
+     * 通过给定工厂的元数据读取继承关系, 例如复用扫描时已缓存的元数据. 工厂读取类级注解时可能加载注解类型,
+     * 需要避免时应启用其{@link SimpleMetadataReaderFactory#setBytecodeAnnotationIntrospection 纯字节码方式}.
+     *
+     * @param metadataReaderFactory
+     *            读取类文件的工厂, 例如扫描时使用的工厂
+     */
+    public MetadataTypeHierarchy(MetadataReaderFactory metadataReaderFactory)
+    {
+        Assert.notNull(metadataReaderFactory, "MetadataReaderFactory must not be null");
+        this.resourceLoader = null;
+        this.metadataReaderFactory = metadataReaderFactory;
+    }
+
+    @Override
+    public String getSuperName(String type)
+    {
+        return getTypeInfo(type).superName;
+    }
+
+    @Override
+    public String[] getInterfaces(String type)
+    {
+        return getTypeInfo(type).interfaces;
+    }
+
+    @Override
+    public boolean isInterface(String type)
+    {
+        return getTypeInfo(type).isInterface;
+    }
+
+    /**
+     * 返回已缓存的类型数.
+     */
+    public int getCacheSize()
+    {
+        return this.typeCache.size();
+    }
+
+    private TypeInfo getTypeInfo(String type)
+    {
+        TypeInfo typeInfo = this.typeCache.get(type);
+        if (typeInfo == null)
+        {
+            typeInfo = readTypeInfo(type);
+            this.typeCache.put(type, typeInfo);
+        }
+        return typeInfo;
+    }
+
+    private TypeInfo readTypeInfo(String type)
+    {
+        String className = ClassUtils.convertResourcePathToClassName(type);
+        try
+        {
+            return (this.resourceLoader != null ? readClassHeader(type) : readClassMetadata(className));
+        } catch (IOException ex)
+        {
+            return loadBootstrapTypeInfo(className, ex);
+        } catch (IllegalArgumentException ex)
+        {
+            // 类文件版本高于ASM所支持的版本
+            return loadBootstrapTypeInfo(className, ex);
+        }
+    }
+
+    /**
+     * 只读取类文件头部: 构造ClassReader时解析常量池, 不遍历类的任何属性.
+     */
+    private TypeInfo readClassHeader(String type) throws IOException
+    {
+        Resource resource = this.resourceLoader.getResource(ResourceLoader.CLASSPATH_URL_PREFIX + type + ClassUtils.CLASS_FILE_SUFFIX);
+        ClassReader classReader = ClassReaderUtils.acquireClassReader(resource);
+        try
+        {
+            String[] interfaces = classReader.getInterfaces();
+            return new TypeInfo(classReader.getSuperName(), (interfaces.length > 0 ? interfaces : NO_INTERFACES),
+                    (classReader.getAccess() & Opcodes.ACC_INTERFACE) != 0);
+        } finally
+        {
+            ClassReaderUtils.releaseClassReader(classReader);
+        }
+    }
+
+    private TypeInfo readClassMetadata(String className) throws IOException
+    {
+        ClassMetadata metadata = this.metadataReaderFactory.getMetadataReader(className).getClassMetadata();
+        String[] interfaceNames = metadata.getInterfaceNames();
+        String[] interfaces = (interfaceNames.length > 0 ? new String[interfaceNames.length] : NO_INTERFACES);
+        for (int i = 0; i < interfaces.length; i++)
+        {
+            interfaces[i] = ClassUtils.convertClassNameToResourcePath(interfaceNames[i]);
+        }
+        String superName = (metadata.hasSuperClass() ? ClassUtils.convertClassNameToResourcePath(metadata.getSuperClassName()) : null);
+        return new TypeInfo(superName, interfaces, metadata.isInterface());
+    }
+
+    /**
+     * 类文件无法读取时在引导类加载器中查找(不初始化).
+     */
+    private static TypeInfo loadBootstrapTypeInfo(String className, Exception cause)
+    {
+        try
+        {
+            return new TypeInfo(Class.forName(className, false, null));
+        } catch (ClassNotFoundException ex)
+        {
+            throw new TypeNotPresentException(className, cause);
+        }
+    }
+
+    /**
+     * 一个类型的父类、直接接口(内部名)及是否为接口.
+     */
+    private static final class TypeInfo
+    {
+        final String superName;
+
+        final String[] interfaces;
+
+        final boolean isInterface;
+
+        TypeInfo(String superName, String[] interfaces, boolean isInterface)
+        {
+            this.superName = superName;
+            this.interfaces = interfaces;
+            this.isInterface = isInterface;
+        }
+
+        TypeInfo(Class<?> clazz)
+        {
+            Class<?> superclass = clazz.getSuperclass();
+            Class<?>[] classes = clazz.getInterfaces();
+            this.interfaces = (classes.length > 0 ? new String[classes.length] : NO_INTERFACES);
+            for (int i = 0; i < classes.length; i++)
+            {
+                this.interfaces[i] = ClassUtils.convertClassNameToResourcePath(classes[i].getName());
+            }
+            // 与类文件一致, 接口的父类为java.lang.Object.
+            this.superName = (superclass != null ? ClassUtils.convertClassNameToResourcePath(superclass.getName())
+                    : (clazz.isInterface() ? "java/lang/Object" : null));
+            this.isInterface = clazz.isInterface();
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package com.jfxgraph.scanner.reader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jfxgraph.scanner.io.FileSystemResource;
+import com.jfxgraph.scanner.io.Resource;
+import com.jfxgraph.scanner.io.loader.ResourceLoader;
+import com.jfxgraph.scanner.type.AnnotationMetadata;
+import com.jfxgraph.scanner.util.Assert;
+import com.jfxgraph.scanner.util.ResourceUtils;
+
+/**
+ * 带磁盘索引的{@link MetadataReaderFactory}实现: 已解析过的类元数据以{@link MetadataCodec}格式保存在索引文件中,
+ * 下次启动时若类文件(或其所在的jar)的长度与修改时间未变, 则直接由索引恢复元数据, 不再读取和解析类文件.
+ * <p>
+ * 未通过{@link ClassFilePrefilter 预筛选}的类记录为排除条目(时间戳及预筛选器的{@link ClassFilePrefilter#getCacheKey() 键}),
+ * 下次以相同条件扫描时不再读取这些类文件. 与元数据条目一样, 只有类文件本身的变化会使排除条目失效.
+ * <p>
+ * 只有{@code file:}及{@code jar:}协议的资源会被索引, 其他资源始终交由{@link SimpleMetadataReaderFactory}解析.
+ * 索引在首次使用时加载, 调用{@link #save()}时写回, 本次运行中未被请求过的条目(例如已删除或改名的类)不再写回;
+ * 索引文件损坏或版本不符时将被忽略并重新建立.
+ * <p>
+ * 启用{@link #setLazyMethodMetadata 方法元数据推迟读取}时, 索引只保存类头部; 由索引恢复的元数据同样在第一次访问方法元数据时才读取类文件.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class PersistentMetadataReaderFactory extends SimpleMetadataReaderFactory
+{
+    /** 默认的索引文件名 */
+    public static final String DEFAULT_INDEX_FILE_NAME = "jfxgraph-metadata.idx";
+
+    private static final int MAGIC = 0x4A464D49;
+
+    private static final int VERSION = 3;
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentMetadataReaderFactory.class);
+
+    private final File indexFile;
+
+    private final Map<String, IndexEntry> entries = new ConcurrentHashMap<String, IndexEntry>();
+
+    /** 本次运行中jar文件的时间戳, 同一jar内的类共用 */
+    private final Map<String, long[]> jarStamps = new ConcurrentHashMap<String, long[]>();
+
+    /** 本次运行中请求过的条目键, 保存时只保留这些条目 */
+    private final Set<String> requestedKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private volatile boolean loaded;
+
+    private volatile boolean dirty;
+
+    /**
+     * Create a new PersistentMetadataReaderFactory for the default class loader.
+     *
+     * @param indexFile
+     *            索引文件
+     */
+    public PersistentMetadataReaderFactory(File indexFile)
+    {
+        super();
+        Assert.notNull(indexFile, "Index file must not be null");
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Create a new PersistentMetadataReaderFactory for the given resource loader.
+     *
+     * @param indexFile
+     *            索引文件
+     * @param resourceLoader
+     *            the ResourceLoader to use (also determines the ClassLoader to use)
+     */
+    public PersistentMetadataReaderFactory(File indexFile, ResourceLoader resourceLoader)
+    {
+        super(resourceLoader);
+        Assert.notNull(indexFile, "Index file must not be null");
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * 返回索引文件.
+     *
+     * @return File
+     */
+    public File getIndexFile()
+    {
+        return this.indexFile;
+    }
+
+    /**
+     * 返回当前索引的条目数.
+     *
+     * @return int
+     */
+    public int getIndexSize()
+    {
+        load();
+        return this.entries.size();
+    }
+
+    @Override
+    public MetadataReader getMetadataReader(Resource resource) throws IOException
+    {
+        return getMetadataReader(resource, null);
+    }
+
+    /**
+     * 索引中有未过期的条目时直接恢复元数据, 或者(排除条目的预筛选条件相同时)直接返回{@code null}; 否则读取类文件(先预筛选),
+     * 未通过预筛选的类写入排除条目.
+     */
+    @Override
+    public MetadataReader getMetadataReader(Resource resource, ClassFilePrefilter prefilter) throws IOException
+    {
+        load();
+        URL url = resource.getURL();
+        long[] stamp = (resource instanceof FileSystemResource ? stampOf(resource) : stampOf(url));
+        if (stamp == null)
+        {
+            return super.getMetadataReader(resource, prefilter);
+        }
+        String key = url.toString();
+        this.requestedKeys.add(key);
+        IndexEntry entry = this.entries.get(key);
+        String prefilterKey = (prefilter != null ? prefilter.getCacheKey() : null);
+        boolean upToDate = (entry != null && entry.length == stamp[0] && entry.lastModified == stamp[1]);
+        if (upToDate && entry.rejectedBy != null)
+        {
+            if (entry.rejectedBy.equals(prefilterKey))
+            {
+                return null;
+            }
+        } else if (upToDate)
+        {
+            try
+            {
+                AnnotationMetadata metadata = MetadataCodec.readMetadata(new DataInputStream(new ByteArrayInputStream(entry.data)),
+                        getResourceLoader().getClassLoader(), getClassNamePool(),
+                        new SimpleMetadataReader.MethodMetadataPass(resource, getAnnotationTypeIntrospector(), getClassNamePool()));
+                return new SimpleMetadataReader(resource, metadata);
+            } catch (IOException ex)
+            {
+                logger.debug("索引条目无法解码, 重新解析: " + key, ex);
+            }
+        }
+
+        MetadataReader metadataReader = super.getMetadataReader(resource, prefilter);
+        if (metadataReader == null)
+        {
+            if (prefilterKey != null)
+            {
+                this.entries.put(key, new IndexEntry(stamp[0], stamp[1], prefilterKey, null));
+                this.dirty = true;
+            }
+            return null;
+        }
+        byte[] data = encode(metadataReader.getAnnotationMetadata());
+        if (data != null)
+        {
+            this.entries.put(key, new IndexEntry(stamp[0], stamp[1], null, data));
+            this.dirty = true;
+        } else if (this.entries.remove(key) != null)
+        {
+            this.dirty = true;
+        }
+        return metadataReader;
+    }
+
+    /**
+     * 编码元数据, 含有无法编码的注解属性值(或超长的字符串)时返回{@code null}, 不索引该类.
+     */
+    private static byte[] encode(AnnotationMetadata metadata) throws IOException
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            MetadataCodec.writeMetadata(metadata, out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IllegalArgumentException ex)
+        {
+            return null;
+        } catch (UTFDataFormatException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * 若索引有变化, 将其写回索引文件. 本次运行中未被请求过的条目被丢弃, 使已删除或改名的类不会一直留在索引中.
+     * 先写入同目录下的临时文件再替换, 避免写出过程中断导致索引文件损坏.
+     *
+     * @throws IOException
+     *             写出失败时抛出
+     */
+    public synchronized void save() throws IOException
+    {
+        if (this.entries.keySet().retainAll(this.requestedKeys))
+        {
+            this.dirty = true;
+        }
+        if (!this.dirty)
+        {
+            return;
+        }
+        File dir = this.indexFile.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+        {
+            throw new IOException("无法创建索引目录: " + dir);
+        }
+        File tempFile = new File(dir, this.indexFile.getName() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(this.entries.size());
+            for (Map.Entry<String, IndexEntry> entry : this.entries.entrySet())
+            {
+                IndexEntry value = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(value.length);
+                out.writeLong(value.lastModified);
+                if (value.rejectedBy != null)
+                {
+                    out.writeBoolean(true);
+                    out.writeUTF(value.rejectedBy);
+                } else
+                {
+                    out.writeBoolean(false);
+                    out.writeInt(value.data.length);
+                    out.write(value.data);
+                }
+            }
+        } finally
+        {
+            out.close();
+        }
+        try
+        {
+            Files.move(tempFile.toPath(), this.indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex)
+        {
+            Files.move(tempFile.toPath(), this.indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        this.dirty = false;
+        this.jarStamps.clear();
+    }
+
+    /**
+     * 清空索引(包括内存中的条目, 索引文件在下次{@link #save()}时被覆盖).
+     */
+    public synchronized void clearIndex()
+    {
+        this.loaded = true;
+        this.entries.clear();
+        this.jarStamps.clear();
+        this.requestedKeys.clear();
+        this.dirty = true;
+    }
+
+    private void load()
+    {
+        if (this.loaded)
+        {
+            return;
+        }
+        synchronized (this)
+        {
+            if (this.loaded)
+            {
+                return;
+            }
+            if (this.indexFile.isFile())
+            {
+                try
+                {
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.indexFile)));
+                    try
+                    {
+                        if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                        {
+                            throw new IOException("索引文件格式或版本不符");
+                        }
+                        int count = in.readInt();
+                        for (int i = 0; i < count; i++)
+                        {
+                            String key = in.readUTF();
+                            long length = in.readLong();
+                            long lastModified = in.readLong();
+                            if (in.readBoolean())
+                            {
+                                this.entries.put(key, new IndexEntry(length, lastModified, in.readUTF(), null));
+                            } else
+                            {
+                                byte[] data = new byte[in.readInt()];
+                                in.readFully(data);
+                                this.entries.put(key, new IndexEntry(length, lastModified, null, data));
+                            }
+                        }
+                    } finally
+                    {
+                        in.close();
+                    }
+                } catch (IOException ex)
+                {
+                    logger.warn("无法读取元数据索引文件, 将重新建立: " + this.indexFile, ex);
+                    this.entries.clear();
+                }
+            }
+            this.loaded = true;
+        }
+    }
+
+    /**
+     * 返回资源的时间戳{长度, 修改时间}; 无法确定时返回{@code null}(不索引).
+     */
+    private long[] stampOf(URL url) throws IOException
+    {
+        if (ResourceUtils.isFileURL(url))
+        {
+            return stampOf(ResourceUtils.getFile(url));
+        }
+        if (ResourceUtils.isJarURL(url))
+        {
+            URL jarUrl = ResourceUtils.extractJarFileURL(url);
+            if (!ResourceUtils.isFileURL(jarUrl))
+            {
+                return null;
+            }
+            String jarKey = jarUrl.toString();
+            long[] stamp = this.jarStamps.get(jarKey);
+            if (stamp == null)
+            {
+                stamp = stampOf(ResourceUtils.getFile(jarUrl));
+                if (stamp != null)
+                {
+                    this.jarStamps.put(jarKey, stamp);
+                }
+            }
+            return stamp;
+        }
+        return null;
+    }
+
+    /**
+     * 文件系统资源的时间戳取自资源本身; 遍历目录得到的{@link com.jfxgraph.scanner.io.FileSnapshotResource}不再访问文件系统.
+     */
+    private static long[] stampOf(Resource resource) throws IOException
+    {
+        long lastModified = resource.lastModified();
+        if (lastModified == 0L)
+        {
+            return null;
+        }
+        return new long[] { resource.contentLength(), lastModified };
+    }
+
+    private static long[] stampOf(File file)
+    {
+        long lastModified = file.lastModified();
+        if (lastModified == 0L)
+        {
+            return null;
+        }
+        return new long[] { file.length(), lastModified };
+    }
+
+    /**
+     * 索引条目: 编码后的元数据, 或者排除该类的预筛选条件.
+     */
+    private static final class IndexEntry
+    {
+        final long length;
+
+        final long lastModified;
+
+        // 排除该类的预筛选器的键, 为null时data为编码后的元数据
+        final String rejectedBy;
+
+        final byte[] data;
+
+        IndexEntry(long length, long lastModified, String rejectedBy, byte[] data)
+        {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.rejectedBy = rejectedBy;
+            this.data = data;
+        }
+    }
+}
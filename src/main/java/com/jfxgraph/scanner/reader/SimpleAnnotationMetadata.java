@@ -0,0 +1,379 @@
+package com.jfxgraph.scanner.reader;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.jfxgraph.scanner.type.AnnotationMetadata;
+import com.jfxgraph.scanner.type.MethodMetadata;
+import com.jfxgraph.scanner.util.AnnotationAttributes;
+import com.jfxgraph.scanner.util.CollectionUtils;
+import com.jfxgraph.scanner.visitor.AnnotationMetadataReadingVisitor;
+import com.jfxgraph.scanner.visitor.AnnotationReadingVisitorUtils;
+import com.jfxgraph.scanner.visitor.ClassNamePool;
+import com.jfxgraph.scanner.visitor.MethodMetadataReadingVisitor;
+
+/**
+ * {@link AnnotationMetadata}的不可变实现, 保存某一类读取完成后的元数据, 不再持有ASM访问器.
+ * <p>
+ * 注解属性以读取时的原始形式保存(类引用为ASM {@link com.jfxgraph.asm.Type}), 在获取时按需转换.
+ * 各集合在构造时复制为{@link CompactCollections}的紧凑只读形式, 没有元素时使用共享的空实例.
+ * 给定{@link ClassNamePool}时, 类名和注解类型名都取池中的规范实例, 元注解集合也在同一池中的快照之间共用.
+ * 只读取了类头部的快照在第一次访问带注解的方法时才再次读取类文件, 填充方法元数据.
+ * 
+ * @author Albert
+ * @since 1.1
+ * @see MetadataCodec
+ */
+final class SimpleAnnotationMetadata implements AnnotationMetadata
+{
+    private final ClassLoader classLoader;
+
+    private final String className;
+
+    private final boolean isInterface;
+
+    private final boolean isAbstract;
+
+    private final boolean isFinal;
+
+    private final String enclosingClassName;
+
+    private final boolean independentInnerClass;
+
+    private final String superClassName;
+
+    private final String[] interfaceNames;
+
+    private final String[] memberClassNames;
+
+    private final Set<String> annotationTypes;
+
+    private final Map<String, Set<String>> metaAnnotationMap;
+
+    private final Map<String, AnnotationAttributes> attributeMap;
+
+    private volatile Map<String, List<MethodMetadata>> methodMetadataMap;
+
+    // 只读取了类头部时, 在第一次访问方法元数据之前不为null
+    private volatile SimpleMetadataReader.MethodMetadataPass methodMetadataPass;
+
+    SimpleAnnotationMetadata(ClassLoader classLoader, String className, boolean isInterface, boolean isAbstract, boolean isFinal,
+            String enclosingClassName, boolean independentInnerClass, String superClassName, String[] interfaceNames, String[] memberClassNames,
+            Set<String> annotationTypes, Map<String, Set<String>> metaAnnotationMap, Map<String, AnnotationAttributes> attributeMap,
+            Map<String, List<MethodMetadata>> methodMetadataMap, ClassNamePool classNamePool)
+    {
+        this.classLoader = classLoader;
+        this.className = canonicalName(classNamePool, className);
+        this.isInterface = isInterface;
+        this.isAbstract = isAbstract;
+        this.isFinal = isFinal;
+        this.enclosingClassName = canonicalName(classNamePool, enclosingClassName);
+        this.independentInnerClass = independentInnerClass;
+        this.superClassName = canonicalName(classNamePool, superClassName);
+        this.interfaceNames = CompactCollections.array(canonicalNames(classNamePool, interfaceNames));
+        this.memberClassNames = CompactCollections.array(canonicalNames(classNamePool, memberClassNames));
+        this.annotationTypes = (classNamePool != null ? classNamePool.nameSet(annotationTypes) : CompactCollections.<String> set(annotationTypes));
+        Map<String, Set<String>> metaAnnotations = new LinkedHashMap<String, Set<String>>(metaAnnotationMap.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Set<String>> entry : metaAnnotationMap.entrySet())
+        {
+            // 池中的集合已是规范的只读集合, 直接共用而不再按类复制.
+            metaAnnotations.put(canonicalName(classNamePool, entry.getKey()),
+                    classNamePool != null ? classNamePool.nameSet(entry.getValue()) : CompactCollections.set(entry.getValue()));
+        }
+        this.metaAnnotationMap = CompactCollections.map(metaAnnotations);
+        this.attributeMap = CompactCollections.map(attributeMap);
+        this.methodMetadataMap = compactMethodMetadataMap(methodMetadataMap, classNamePool);
+    }
+
+    private static Map<String, List<MethodMetadata>> compactMethodMetadataMap(Map<String, List<MethodMetadata>> methodMetadataMap,
+            ClassNamePool classNamePool)
+    {
+        Map<String, List<MethodMetadata>> methods = new LinkedHashMap<String, List<MethodMetadata>>(methodMetadataMap.size() * 4 / 3 + 1);
+        for (Map.Entry<String, List<MethodMetadata>> entry : methodMetadataMap.entrySet())
+        {
+            methods.put(canonicalName(classNamePool, entry.getKey()), CompactCollections.list(entry.getValue()));
+        }
+        return CompactCollections.map(methods);
+    }
+
+    private static String canonicalName(ClassNamePool classNamePool, String name)
+    {
+        return (classNamePool != null ? classNamePool.canonicalName(name) : name);
+    }
+
+    private static String[] canonicalNames(ClassNamePool classNamePool, String[] names)
+    {
+        if (classNamePool != null && names != null)
+        {
+            for (int i = 0; i < names.length; i++)
+            {
+                names[i] = classNamePool.canonicalName(names[i]);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 为给定的元数据创建快照; 已是快照时直接返回. 快照不引用访问器及其集合, 访问器随后即可回收.
+     * 
+     * @param metadata
+     *            {@link AnnotationMetadataReadingVisitor}或{@code SimpleAnnotationMetadata}
+     * @param classLoader
+     *            转换类引用时使用的类加载器
+     * @param classNamePool
+     *            规范化名字使用的类名池, 可以为{@code null}
+     * @throws IllegalArgumentException
+     *             不支持的元数据实现
+     */
+    static SimpleAnnotationMetadata snapshot(AnnotationMetadata metadata, ClassLoader classLoader, ClassNamePool classNamePool)
+    {
+        if (metadata instanceof SimpleAnnotationMetadata)
+        {
+            return (SimpleAnnotationMetadata) metadata;
+        }
+        if (!(metadata instanceof AnnotationMetadataReadingVisitor))
+        {
+            throw new IllegalArgumentException("不支持的元数据实现: " + metadata.getClass().getName());
+        }
+        AnnotationMetadataReadingVisitor visitor = (AnnotationMetadataReadingVisitor) metadata;
+        return new SimpleAnnotationMetadata(classLoader, visitor.getClassName(), visitor.isInterface(), visitor.isAbstract(), visitor.isFinal(),
+                visitor.getEnclosingClassName(), visitor.hasEnclosingClass() && visitor.isIndependent(), visitor.getSuperClassName(),
+                visitor.getInterfaceNames(), visitor.getMemberClassNames(), visitor.getAnnotationTypes(), visitor.getMetaAnnotationMap(),
+                visitor.getAnnotationAttributesMap(), methodSnapshots(visitor), classNamePool);
+    }
+
+    /**
+     * 为访问器读取到的方法元数据创建快照, 按注解类型分组.
+     */
+    static Map<String, List<MethodMetadata>> methodSnapshots(AnnotationMetadataReadingVisitor visitor)
+    {
+        // 同一方法可能带有多个注解, 快照中保持同一实例.
+        Map<MethodMetadata, MethodMetadata> methods = new IdentityHashMap<MethodMetadata, MethodMetadata>();
+        Map<String, List<MethodMetadata>> methodMetadataMap = new LinkedHashMap<String, List<MethodMetadata>>();
+        for (Map.Entry<String, List<MethodMetadata>> entry : visitor.getMethodMetadataMap().entrySet())
+        {
+            MethodMetadata[] snapshots = new MethodMetadata[entry.getValue().size()];
+            for (int i = 0; i < snapshots.length; i++)
+            {
+                MethodMetadataReadingVisitor method = (MethodMetadataReadingVisitor) entry.getValue().get(i);
+                MethodMetadata snapshot = methods.get(method);
+                if (snapshot == null)
+                {
+                    snapshot = new SimpleMethodMetadata(method.getMethodName(), method.getAccess(), method.getDeclaringClassName(),
+                            method.getAnnotationAttributesMap());
+                    methods.put(method, snapshot);
+                }
+                snapshots[i] = snapshot;
+            }
+            methodMetadataMap.put(entry.getKey(), Arrays.asList(snapshots));
+        }
+        return methodMetadataMap;
+    }
+
+    /**
+     * 方法元数据推迟到第一次访问时由给定的读取过程填充; 只能在快照发布之前调用.
+     */
+    void deferMethodMetadata(SimpleMetadataReader.MethodMetadataPass methodMetadataPass)
+    {
+        this.methodMetadataPass = methodMetadataPass;
+    }
+
+    /**
+     * 方法元数据是否仍推迟未读取.
+     */
+    boolean isMethodMetadataDeferred()
+    {
+        return this.methodMetadataPass != null;
+    }
+
+    private Map<String, List<MethodMetadata>> methodMetadataMap()
+    {
+        if (this.methodMetadataPass != null)
+        {
+            synchronized (this)
+            {
+                SimpleMetadataReader.MethodMetadataPass methodMetadataPass = this.methodMetadataPass;
+                if (methodMetadataPass != null)
+                {
+                    this.methodMetadataMap = compactMethodMetadataMap(methodMetadataPass.readMethodMetadata(), methodMetadataPass.getClassNamePool());
+                    this.methodMetadataPass = null;
+                }
+            }
+        }
+        return this.methodMetadataMap;
+    }
+
+    @Override
+    public String getClassName()
+    {
+        return this.className;
+    }
+
+    @Override
+    public boolean isInterface()
+    {
+        return this.isInterface;
+    }
+
+    @Override
+    public boolean isAbstract()
+    {
+        return this.isAbstract;
+    }
+
+    @Override
+    public boolean isConcrete()
+    {
+        return !(this.isInterface || this.isAbstract);
+    }
+
+    @Override
+    public boolean isFinal()
+    {
+        return this.isFinal;
+    }
+
+    @Override
+    public boolean isIndependent()
+    {
+        return (this.enclosingClassName == null || this.independentInnerClass);
+    }
+
+    @Override
+    public boolean hasEnclosingClass()
+    {
+        return (this.enclosingClassName != null);
+    }
+
+    @Override
+    public String getEnclosingClassName()
+    {
+        return this.enclosingClassName;
+    }
+
+    @Override
+    public boolean hasSuperClass()
+    {
+        return (this.superClassName != null);
+    }
+
+    @Override
+    public String getSuperClassName()
+    {
+        return this.superClassName;
+    }
+
+    @Override
+    public String[] getInterfaceNames()
+    {
+        return this.interfaceNames.clone();
+    }
+
+    @Override
+    public String[] getMemberClassNames()
+    {
+        return this.memberClassNames.clone();
+    }
+
+    @Override
+    public Set<String> getAnnotationTypes()
+    {
+        return this.annotationTypes;
+    }
+
+    @Override
+    public Set<String> getMetaAnnotationTypes(String annotationType)
+    {
+        return this.metaAnnotationMap.get(annotationType);
+    }
+
+    @Override
+    public boolean hasAnnotation(String annotationType)
+    {
+        return this.annotationTypes.contains(annotationType);
+    }
+
+    @Override
+    public boolean hasMetaAnnotation(String metaAnnotationType)
+    {
+        for (Set<String> metaTypes : this.metaAnnotationMap.values())
+        {
+            if (metaTypes.contains(metaAnnotationType))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isAnnotated(String annotationType)
+    {
+        return this.attributeMap.containsKey(annotationType);
+    }
+
+    @Override
+    public AnnotationAttributes getAnnotationAttributes(String annotationType)
+    {
+        return getAnnotationAttributes(annotationType, false);
+    }
+
+    @Override
+    public AnnotationAttributes getAnnotationAttributes(String annotationType, boolean classValuesAsString)
+    {
+        return AnnotationReadingVisitorUtils.convertClassValues(this.classLoader, this.attributeMap.get(annotationType), classValuesAsString, false);
+    }
+
+    @Override
+    public boolean hasAnnotatedMethods(String annotationType)
+    {
+        return methodMetadataMap().containsKey(annotationType);
+    }
+
+    @Override
+    public Set<MethodMetadata> getAnnotatedMethods(String annotationType)
+    {
+        List<MethodMetadata> list = methodMetadataMap().get(annotationType);
+        if (CollectionUtils.isEmpty(list))
+        {
+            return new LinkedHashSet<MethodMetadata>(0);
+        }
+        return new LinkedHashSet<MethodMetadata>(list);
+    }
+
+    ClassLoader getClassLoader()
+    {
+        return this.classLoader;
+    }
+
+    boolean isIndependentInnerClass()
+    {
+        return this.independentInnerClass;
+    }
+
+    Map<String, Set<String>> getMetaAnnotationMap()
+    {
+        return this.metaAnnotationMap;
+    }
+
+    Map<String, AnnotationAttributes> getAnnotationAttributesMap()
+    {
+        return this.attributeMap;
+    }
+
+    Map<String, List<MethodMetadata>> getMethodMetadataMap()
+    {
+        return methodMetadataMap();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.className;
+    }
+}
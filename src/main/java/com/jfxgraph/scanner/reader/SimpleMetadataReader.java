@@ -1,17 +1,23 @@
 package com.jfxgraph.scanner.reader;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 
 import com.jfxgraph.asm.ClassReader;
 import com.jfxgraph.scanner.io.Resource;
 import com.jfxgraph.scanner.type.AnnotationMetadata;
 import com.jfxgraph.scanner.type.ClassMetadata;
+import com.jfxgraph.scanner.type.MethodMetadata;
 import com.jfxgraph.scanner.visitor.AnnotationMetadataReadingVisitor;
+import com.jfxgraph.scanner.visitor.AnnotationTypeIntrospector;
+import com.jfxgraph.scanner.visitor.ClassNamePool;
+import com.jfxgraph.scanner.visitor.ReflectionAnnotationTypeIntrospector;
 
 /**
  * {@link MetadataReader}简单实现（基于ASM的{@link ClassReader}）.
+ * <p>
+ * 读取完成后只保留不可变的{@link SimpleAnnotationMetadata}快照, 不持有ASM访问器及其中间集合.
  * 
  * @author Albert
  * @since 1.0
@@ -26,27 +32,77 @@ final class SimpleMetadataReader implements MetadataReader
 
     SimpleMetadataReader(Resource resource, ClassLoader classLoader) throws IOException
     {
-        InputStream is = new BufferedInputStream(resource.getInputStream());
+        this(resource, new ReflectionAnnotationTypeIntrospector(classLoader));
+    }
+
+    SimpleMetadataReader(Resource resource, AnnotationTypeIntrospector introspector) throws IOException
+    {
+        this(resource, readClass(resource), introspector, null, false);
+    }
+
+    /**
+     * 以已读取的类文件构造(例如已经过{@link ClassFilePrefilter}检查); 给定类名池时, 元数据中的名字取池中的规范实例.
+     * 
+     * @param lazyMethodMetadata
+     *            是否只读取类头部和类级属性, 方法元数据在第一次访问时再次读取类文件得到
+     */
+    SimpleMetadataReader(Resource resource, ClassReader classReader, AnnotationTypeIntrospector introspector, ClassNamePool classNamePool,
+            boolean lazyMethodMetadata)
+    {
+        AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(introspector, classNamePool);
+        classReader.accept(visitor, lazyMethodMetadata ? ClassReader.SKIP_DEBUG | ClassReader.SKIP_FIELDS | ClassReader.SKIP_METHODS
+                : ClassReader.SKIP_DEBUG);
+
+        SimpleAnnotationMetadata snapshot = SimpleAnnotationMetadata.snapshot(visitor, introspector.getClassLoader(), classNamePool);
+        if (lazyMethodMetadata)
+        {
+            snapshot.deferMethodMetadata(new MethodMetadataPass(resource, introspector, classNamePool));
+        }
+        this.annotationMetadata = snapshot;
+        this.classMetadata = this.annotationMetadata;
+        this.resource = resource;
+    }
 
-        ClassReader classReader;
+    /**
+     * 以已有的(例如从持久化索引中恢复的)元数据构造, 不再读取类文件.
+     */
+    SimpleMetadataReader(Resource resource, AnnotationMetadata annotationMetadata)
+    {
+        this.annotationMetadata = annotationMetadata;
+        this.classMetadata = annotationMetadata;
+        this.resource = resource;
+    }
+
+    /**
+     * 读取类文件并解析常量池.
+     * 
+     * @see ClassReaderUtils#readClass(Resource)
+     */
+    static ClassReader readClass(Resource resource) throws IOException
+    {
         try
         {
-            classReader = new ClassReader(is);
+            return ClassReaderUtils.readClass(resource);
         } catch (IllegalArgumentException ex)
         {
             throw new IOException("ASM ClassReader 未能解析类文件 - " + "可能是由于新的Java类文件的版本尚不支持: " + resource, ex);
-        } finally
-        {
-            is.close();
         }
+    }
 
-        AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
-        classReader.accept(visitor, ClassReader.SKIP_DEBUG);
-
-        this.annotationMetadata = visitor;
-        // (since AnnotationMetadataReader extends ClassMetadataReadingVisitor)
-        this.classMetadata = visitor;
-        this.resource = resource;
+    /**
+     * 读取类文件并解析常量池, 使用当前线程可重用的ClassReader; 使用完毕后须调用{@link ClassReaderUtils#releaseClassReader}.
+     * 
+     * @see ClassReaderUtils#acquireClassReader(Resource)
+     */
+    static ClassReader acquireClass(Resource resource) throws IOException
+    {
+        try
+        {
+            return ClassReaderUtils.acquireClassReader(resource);
+        } catch (IllegalArgumentException ex)
+        {
+            throw new IOException("ASM ClassReader 未能解析类文件 - " + "可能是由于新的Java类文件的版本尚不支持: " + resource, ex);
+        }
     }
 
     @Override
@@ -66,4 +122,54 @@ final class SimpleMetadataReader implements MetadataReader
     {
         return this.annotationMetadata;
     }
+
+    /**
+     * 只读取了类头部时补充方法元数据的第二次读取: 重新读取类文件, 跳过字段和方法体, 只收集带注解的方法.
+     * 两次读取之间类文件被修改时, 方法元数据反映的是修改后的内容.
+     */
+    static final class MethodMetadataPass
+    {
+        private final Resource resource;
+
+        private final AnnotationTypeIntrospector introspector;
+
+        private final ClassNamePool classNamePool;
+
+        MethodMetadataPass(Resource resource, AnnotationTypeIntrospector introspector, ClassNamePool classNamePool)
+        {
+            this.resource = resource;
+            this.introspector = introspector;
+            this.classNamePool = classNamePool;
+        }
+
+        ClassNamePool getClassNamePool()
+        {
+            return this.classNamePool;
+        }
+
+        /**
+         * @throws IllegalStateException
+         *             类文件无法再次读取时抛出
+         */
+        Map<String, List<MethodMetadata>> readMethodMetadata()
+        {
+            ClassReader classReader;
+            try
+            {
+                classReader = acquireClass(this.resource);
+            } catch (IOException ex)
+            {
+                throw new IllegalStateException("无法读取方法元数据: " + this.resource, ex);
+            }
+            try
+            {
+                AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(this.introspector, this.classNamePool);
+                classReader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES | ClassReader.SKIP_FIELDS);
+                return SimpleAnnotationMetadata.methodSnapshots(visitor);
+            } finally
+            {
+                ClassReaderUtils.releaseClassReader(classReader);
+            }
+        }
+    }
 }
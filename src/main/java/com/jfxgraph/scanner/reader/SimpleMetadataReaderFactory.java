@@ -2,10 +2,15 @@ package com.jfxgraph.scanner.reader;
 
 import java.io.IOException;
 
+import com.jfxgraph.asm.ClassReader;
 import com.jfxgraph.scanner.io.Resource;
 import com.jfxgraph.scanner.io.loader.DefaultResourceLoader;
 import com.jfxgraph.scanner.io.loader.ResourceLoader;
 import com.jfxgraph.scanner.util.ClassUtils;
+import com.jfxgraph.scanner.visitor.BytecodeAnnotationTypeIntrospector;
+import com.jfxgraph.scanner.visitor.CachingAnnotationTypeIntrospector;
+import com.jfxgraph.scanner.visitor.ClassNamePool;
+import com.jfxgraph.scanner.visitor.ReflectionAnnotationTypeIntrospector;
 
 /**
  * {@link MetadataReaderFactory} 接口的简单实现,为每个请求创建一个新的ClassReader(ASM).
@@ -19,12 +24,21 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory
 
     private final ResourceLoader resourceLoader;
 
+    // 所有读取器共用的注解类型描述缓存.
+    private volatile CachingAnnotationTypeIntrospector annotationTypeIntrospector;
+
+    // 所有读取器共用的类名池, 同一个名字在各元数据中只保存一份.
+    private final ClassNamePool classNamePool = new ClassNamePool();
+
+    private volatile boolean lazyMethodMetadata = false;
+
     /**
      * Create a new SimpleMetadataReaderFactory for the default class loader.
      */
     public SimpleMetadataReaderFactory()
     {
         this.resourceLoader = new DefaultResourceLoader();
+        setBytecodeAnnotationIntrospection(false);
     }
 
     /**
@@ -36,6 +50,7 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory
     public SimpleMetadataReaderFactory(ResourceLoader resourceLoader)
     {
         this.resourceLoader = (resourceLoader != null ? resourceLoader : new DefaultResourceLoader());
+        setBytecodeAnnotationIntrospection(false);
     }
 
     /**
@@ -47,6 +62,7 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory
     public SimpleMetadataReaderFactory(ClassLoader classLoader)
     {
         this.resourceLoader = (classLoader != null ? new DefaultResourceLoader(classLoader) : new DefaultResourceLoader());
+        setBytecodeAnnotationIntrospection(false);
     }
 
     /**
@@ -59,6 +75,69 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory
         return this.resourceLoader;
     }
 
+    /**
+     * 设置是否以纯字节码方式读取注解: 注解类型的属性默认值和元注解通过读取其类文件得到(按注解类型缓存), 枚举属性值保存为
+     * {@link com.jfxgraph.scanner.util.EnumValue}, 直到读取注解属性时才解析. 这样扫描过程不会加载任何应用类. 默认关闭(通过反射加载注解类型).
+     * 
+     * @param bytecodeAnnotationIntrospection
+     *            是否启用
+     */
+    public void setBytecodeAnnotationIntrospection(boolean bytecodeAnnotationIntrospection)
+    {
+        this.annotationTypeIntrospector = new CachingAnnotationTypeIntrospector(bytecodeAnnotationIntrospection ? new BytecodeAnnotationTypeIntrospector(
+                this.resourceLoader) : new ReflectionAnnotationTypeIntrospector(this.resourceLoader.getClassLoader()));
+    }
+
+    /**
+     * 返回是否以纯字节码方式读取注解.
+     */
+    public boolean isBytecodeAnnotationIntrospection()
+    {
+        return (this.annotationTypeIntrospector.getTargetIntrospector() instanceof BytecodeAnnotationTypeIntrospector);
+    }
+
+    /**
+     * 设置是否推迟读取方法元数据: 读取类文件时只解析类头部、InnerClasses/EnclosingMethod和类级注解, 按长度跳过字段表和方法表;
+     * 第一次调用{@link com.jfxgraph.scanner.type.AnnotationMetadata#hasAnnotatedMethods}或
+     * {@link com.jfxgraph.scanner.type.AnnotationMetadata#getAnnotatedMethods}时再读取一次类文件补充方法元数据.
+     * 适用于大多数类只按类级注解和继承关系过滤的扫描; 写入持久化索引的元数据会立即触发第二次读取. 默认关闭.
+     * 
+     * @param lazyMethodMetadata
+     *            是否启用
+     */
+    public void setLazyMethodMetadata(boolean lazyMethodMetadata)
+    {
+        this.lazyMethodMetadata = lazyMethodMetadata;
+    }
+
+    /**
+     * 返回是否推迟读取方法元数据.
+     */
+    public boolean isLazyMethodMetadata()
+    {
+        return this.lazyMethodMetadata;
+    }
+
+    /**
+     * 返回所有读取器共用的注解类型描述缓存, 可用于查看命中/未命中次数.
+     * 
+     * @return CachingAnnotationTypeIntrospector
+     */
+    public CachingAnnotationTypeIntrospector getAnnotationTypeIntrospector()
+    {
+        return this.annotationTypeIntrospector;
+    }
+
+    /**
+     * 返回所有读取器共用的类名池, 可用于查看其中不同名字的个数. 扫描器在每次扫描结束后清空该池.
+     * 
+     * @return ClassNamePool
+     */
+    public ClassNamePool getClassNamePool()
+    {
+        return this.classNamePool;
+    }
+
     /**
      * SimpleMetadataReaderFactory简单实现.
      * @see com.jfxgraph.scanner.reader.MetadataReaderFactory#getMetadataReader(java.lang.String)
@@ -77,6 +156,39 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory
     @Override
     public MetadataReader getMetadataReader(Resource resource) throws IOException
     {
-        return new SimpleMetadataReader(resource, this.resourceLoader.getClassLoader());
+        return readMetadata(resource, null);
+    }
+
+    /**
+     * 读取类文件, 先用预筛选器检查已解析的常量池, 确定不匹配时不再读取完整元数据.
+     * 
+     * @param resource
+     *            类文件资源
+     * @param prefilter
+     *            预筛选器, 为{@code null}时不做预筛选
+     * @return MetadataReader, 预筛选不通过时返回{@code null}
+     * @throws IOException
+     *             读取类文件失败时抛出
+     */
+    public MetadataReader getMetadataReader(Resource resource, ClassFilePrefilter prefilter) throws IOException
+    {
+        return readMetadata(resource, prefilter);
+    }
+
+    private MetadataReader readMetadata(Resource resource, ClassFilePrefilter prefilter) throws IOException
+    {
+        // 元数据读取后只保留快照, 因此可以使用当前线程可重用的ClassReader.
+        ClassReader classReader = SimpleMetadataReader.acquireClass(resource);
+        try
+        {
+            if (prefilter != null && !prefilter.mayMatch(classReader))
+            {
+                return null;
+            }
+            return new SimpleMetadataReader(resource, classReader, this.annotationTypeIntrospector, this.classNamePool, this.lazyMethodMetadata);
+        } finally
+        {
+            ClassReaderUtils.releaseClassReader(classReader);
+        }
     }
 }
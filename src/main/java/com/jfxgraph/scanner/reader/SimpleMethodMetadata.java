@@ -0,0 +1,97 @@
+package com.jfxgraph.scanner.reader;
+
+import java.util.Map;
+
+import com.jfxgraph.asm.Opcodes;
+import com.jfxgraph.scanner.type.MethodMetadata;
+import com.jfxgraph.scanner.util.AnnotationAttributes;
+
+/**
+ * {@link MethodMetadata}的不可变实现, 保存某一方法读取完成后的元数据.
+ * 
+ * @author Albert
+ * @since 1.1
+ * @see SimpleAnnotationMetadata
+ */
+final class SimpleMethodMetadata implements MethodMetadata
+{
+    private final String methodName;
+
+    private final int access;
+
+    private final String declaringClassName;
+
+    private final Map<String, AnnotationAttributes> attributeMap;
+
+    SimpleMethodMetadata(String methodName, int access, String declaringClassName, Map<String, AnnotationAttributes> attributeMap)
+    {
+        this.methodName = methodName;
+        this.access = access;
+        this.declaringClassName = declaringClassName;
+        this.attributeMap = CompactCollections.map(attributeMap);
+    }
+
+    @Override
+    public String getMethodName()
+    {
+        return this.methodName;
+    }
+
+    @Override
+    public String getDeclaringClassName()
+    {
+        return this.declaringClassName;
+    }
+
+    /**
+     * 返回方法的访问标识(see {@link Opcodes}).
+     */
+    int getAccess()
+    {
+        return this.access;
+    }
+
+    @Override
+    public boolean isStatic()
+    {
+        return ((this.access & Opcodes.ACC_STATIC) != 0);
+    }
+
+    @Override
+    public boolean isFinal()
+    {
+        return ((this.access & Opcodes.ACC_FINAL) != 0);
+    }
+
+    @Override
+    public boolean isOverridable()
+    {
+        return (!isStatic() && !isFinal() && ((this.access & Opcodes.ACC_PRIVATE) == 0));
+    }
+
+    @Override
+    public boolean isAnnotated(String annotationType)
+    {
+        return this.attributeMap.containsKey(annotationType);
+    }
+
+    @Override
+    public AnnotationAttributes getAnnotationAttributes(String annotationType)
+    {
+        return this.attributeMap.get(annotationType);
+    }
+
+    /**
+     * 返回原始注解属性, 以注解类型名为键.
+     */
+    Map<String, AnnotationAttributes> getAnnotationAttributesMap()
+    {
+        return this.attributeMap;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.declaringClassName + "." + this.methodName;
+    }
+}
@@ -0,0 +1,24 @@
+package com.jfxgraph.scanner.transform;
+
+import com.jfxgraph.asm.ClassVisitor;
+import com.jfxgraph.asm.ClassWriter;
+
+/**
+ * 为{@link JarTransformer}转换的每个类创建转换链的工厂. 工厂会被多个工作线程同时调用, 必须是线程安全的; 每次调用应返回新的访问器.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public interface ClassVisitorFactory
+{
+    /**
+     * 为给定的类创建转换用的访问器.
+     *
+     * @param className
+     *            类的内部名(例如"com/example/Foo")
+     * @param classWriter
+     *            写出该类的ClassWriter, 即转换链的末端
+     * @return 转换链的起点(通常包装classWriter), 返回{@code null}表示该类不需要转换, 原样复制到输出
+     */
+    ClassVisitor createClassVisitor(String className, ClassWriter classWriter);
+}
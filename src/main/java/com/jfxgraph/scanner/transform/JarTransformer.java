@@ -0,0 +1,678 @@
+package com.jfxgraph.scanner.transform;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jfxgraph.asm.ByteVector;
+import com.jfxgraph.asm.ClassReader;
+import com.jfxgraph.asm.ClassVisitor;
+import com.jfxgraph.asm.ClassWriter;
+import com.jfxgraph.asm.TypeHierarchy;
+import com.jfxgraph.scanner.reader.MetadataTypeHierarchy;
+import com.jfxgraph.scanner.util.Assert;
+
+/**
+ * 将jar或类目录中的类经{@link ClassVisitorFactory}创建的访问器转换后写出为新jar的转换器.
+ * <p>
+ * 条目按批交给工作线程读取和转换, 每个类使用各自的{@link ClassReader}和{@link ClassWriter}; 非类文件原样复制. 一批处理完后由调用线程按输入顺序写出
+ * (jar按原条目顺序, 目录按路径排序), 因此输出与并行度无关, 内存中至多保留一批条目. 转换后的类写入可回收的{@link ByteVector}, 写出后留给后续的类使用,
+ * 不再为每个类分配一个类文件大小的数组; 回收的缓冲区至多保留一批的条目数, 特别大的类的缓冲区不回收. 每次转换的各阶段耗时见返回的{@link TransformMetrics}.
+ * <p>
+ * 输出jar的签名文件不会更新, 转换签名的jar后应自行去除或重新签名.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class JarTransformer
+{
+    private static final Logger logger = LoggerFactory.getLogger(JarTransformer.class);
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    // 并行转换时每批每个工作线程处理的条目数.
+    private static final int ENTRIES_PER_WORKER = 64;
+
+    // 回收的类文件缓冲区的最大内容长度, 更大的类写出后其缓冲区不再保留.
+    private static final int MAX_POOLED_BUFFER_SIZE = 256 * 1024;
+
+    private final ClassVisitorFactory classVisitorFactory;
+
+    // 并行转换使用的线程池, 为null时按parallelism自行创建ForkJoinPool.
+    private ExecutorService executor;
+
+    // 并行度, 小于等于1时顺序转换.
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    // 创建ClassWriter的选项.
+    private int writerFlags = 0;
+
+    // ClassReader.accept的解析选项.
+    private int parsingOptions = 0;
+
+    // 是否将ClassReader交给ClassWriter, 以复制常量池和未修改的方法.
+    private boolean copyPool = true;
+
+    // 计算栈帧时使用的类型层次, 为null时ClassWriter通过类加载器加载类.
+    private TypeHierarchy typeHierarchy;
+
+    /**
+     * @param classVisitorFactory
+     *            为每个类创建转换访问器的工厂
+     */
+    public JarTransformer(ClassVisitorFactory classVisitorFactory)
+    {
+        Assert.notNull(classVisitorFactory, "ClassVisitorFactory must not be null");
+        this.classVisitorFactory = classVisitorFactory;
+    }
+
+    /**
+     * Set the {@link ExecutorService} used to read and transform entries concurrently. The executor
+     * is not shut down by this transformer.
+     */
+    public void setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Set the number of worker threads. Default is the number of available processors; 1 or less
+     * transforms sequentially. Only used if no {@link #setExecutor executor} has been specified: a
+     * {@link ForkJoinPool} of the given parallelism is then created for each transformation.
+     */
+    public void setParallelism(int parallelism)
+    {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Return the number of worker threads.
+     */
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * 设置创建{@link ClassWriter}的选项, 例如{@link ClassWriter#COMPUTE_MAXS}或{@link ClassWriter#COMPUTE_FRAMES}. 默认为0.
+     */
+    public void setWriterFlags(int writerFlags)
+    {
+        this.writerFlags = writerFlags;
+    }
+
+    public int getWriterFlags()
+    {
+        return this.writerFlags;
+    }
+
+    /**
+     * 设置{@link ClassReader#accept(ClassVisitor, int)}的解析选项. 默认为0.
+     */
+    public void setParsingOptions(int parsingOptions)
+    {
+        this.parsingOptions = parsingOptions;
+    }
+
+    public int getParsingOptions()
+    {
+        return this.parsingOptions;
+    }
+
+    /**
+     * 设置是否以{@link ClassWriter#ClassWriter(ClassReader, int)}创建ClassWriter: 复制原常量池, 未被转换的方法直接复制字节码. 默认为{@code true};
+     * 转换会删除大量常量时可以关闭以得到更小的类文件.
+     */
+    public void setCopyPool(boolean copyPool)
+    {
+        this.copyPool = copyPool;
+    }
+
+    public boolean isCopyPool()
+    {
+        return this.copyPool;
+    }
+
+    /**
+     * 设置以{@link ClassWriter#COMPUTE_FRAMES}计算栈帧时使用的类型层次, 所有ClassWriter共用. 通常为以转换的类路径创建的
+     * {@link MetadataTypeHierarchy}, 这样计算时不会加载被转换的类.
+     */
+    public void setTypeHierarchy(TypeHierarchy typeHierarchy)
+    {
+        this.typeHierarchy = typeHierarchy;
+    }
+
+    public TypeHierarchy getTypeHierarchy()
+    {
+        return this.typeHierarchy;
+    }
+
+    /**
+     * 转换一个jar或类目录.
+     *
+     * @param input
+     *            输入的jar文件或类目录
+     * @param output
+     *            输出的jar文件, 已存在时覆盖; 不能是输入文件本身
+     * @return 本次转换的统计
+     * @throws IOException
+     *             读写失败或类文件无法解析时
+     * @throws IllegalArgumentException
+     *             输出文件与输入是同一个文件时
+     */
+    public TransformMetrics transform(File input, File output) throws IOException
+    {
+        Map<File, File> archives = new LinkedHashMap<File, File>(2);
+        archives.put(input, output);
+        return transform(archives);
+    }
+
+    /**
+     * 依次转换多个jar或类目录, 共用同一个线程池.
+     *
+     * @param archives
+     *            输入的jar文件或类目录 -> 输出的jar文件, 输出文件不能是其中任何一个输入
+     * @return 所有转换合计的统计
+     * @throws IOException
+     *             读写失败或类文件无法解析时, 出错的输出文件会被删除
+     * @throws IllegalArgumentException
+     *             某个输出文件同时是输入时, 此时不会写出任何文件
+     */
+    public TransformMetrics transform(Map<File, File> archives) throws IOException
+    {
+        Assert.notNull(archives, "Archives must not be null");
+        // 覆盖输入会在读取前将其截断, 失败时还会删除它.
+        Set<File> inputs = new HashSet<File>();
+        for (File input : archives.keySet())
+        {
+            inputs.add(input.getCanonicalFile());
+        }
+        for (File output : archives.values())
+        {
+            Assert.isTrue(!inputs.contains(output.getCanonicalFile()), "输出文件不能同时是输入: " + output);
+        }
+        TransformMetrics metrics = new TransformMetrics();
+        long start = System.nanoTime();
+        ExecutorService executor = this.executor;
+        int workers = 1;
+        boolean ownExecutor = false;
+        if (executor != null)
+        {
+            workers = Runtime.getRuntime().availableProcessors();
+        } else if (this.parallelism > 1)
+        {
+            executor = new ForkJoinPool(this.parallelism);
+            workers = this.parallelism;
+            ownExecutor = true;
+        }
+        // 写出后回收的类文件缓冲区, 至多保留一批的条目数.
+        BufferPool buffers = new BufferPool(batchSize(executor, workers));
+        try
+        {
+            for (Map.Entry<File, File> archive : archives.entrySet())
+            {
+                transformArchive(archive.getKey(), archive.getValue(), executor, workers, buffers, metrics);
+            }
+        } finally
+        {
+            if (ownExecutor)
+            {
+                executor.shutdown();
+            }
+        }
+        metrics.setElapsedNanos(System.nanoTime() - start);
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Transformed " + archives.size() + " archive(s): " + metrics);
+        }
+        return metrics;
+    }
+
+    private static int batchSize(ExecutorService executor, int workers)
+    {
+        return (executor != null ? workers * ENTRIES_PER_WORKER : ENTRIES_PER_WORKER);
+    }
+
+    private void transformArchive(File input, File output, ExecutorService executor, int workers, BufferPool buffers, TransformMetrics metrics)
+            throws IOException
+    {
+        ArchiveSource source = (input.isDirectory() ? new DirectorySource(input) : new JarSource(input));
+        try
+        {
+            JarOutputStream out = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(output)));
+            boolean completed = false;
+            try
+            {
+                int count = source.size();
+                int batchSize = batchSize(executor, workers);
+                for (int from = 0; from < count; from += batchSize)
+                {
+                    int to = Math.min(from + batchSize, count);
+                    OutputEntry[] entries = (executor != null ? processInParallel(source, from, to, executor, workers, buffers, metrics)
+                            : processSequentially(source, from, to, buffers, metrics));
+                    for (OutputEntry entry : entries)
+                    {
+                        writeEntry(out, entry, metrics);
+                        if (entry.buffer != null)
+                        {
+                            buffers.release(entry.buffer);
+                        }
+                    }
+                }
+                out.finish();
+                completed = true;
+            } finally
+            {
+                out.close();
+                if (!completed && !output.delete())
+                {
+                    logger.warn("Could not delete incomplete output " + output);
+                }
+            }
+        } finally
+        {
+            source.close();
+        }
+        metrics.archiveDone();
+    }
+
+    private OutputEntry[] processSequentially(ArchiveSource source, int from, int to, BufferPool buffers, TransformMetrics metrics)
+            throws IOException
+    {
+        OutputEntry[] entries = new OutputEntry[to - from];
+        for (int i = from; i < to; i++)
+        {
+            entries[i - from] = processEntry(source, i, buffers, metrics);
+        }
+        return entries;
+    }
+
+    /**
+     * 将source的[from, to)分段交给工作线程并行读取和转换, 返回数组与条目顺序一一对应.
+     */
+    private OutputEntry[] processInParallel(final ArchiveSource source, final int from, int to, ExecutorService executor, int workers,
+            final BufferPool buffers, final TransformMetrics metrics) throws IOException
+    {
+        final OutputEntry[] entries = new OutputEntry[to - from];
+        try
+        {
+            // 分段数为并行度的4倍, 以平衡不同大小类文件的处理耗时.
+            int segmentSize = Math.max(1, (entries.length + workers * 4 - 1) / (workers * 4));
+            List<Callable<Void>> segments = new ArrayList<Callable<Void>>();
+            for (int start = from; start < to; start += segmentSize)
+            {
+                final int segmentFrom = start;
+                final int segmentTo = Math.min(start + segmentSize, to);
+                segments.add(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws IOException
+                    {
+                        for (int i = segmentFrom; i < segmentTo; i++)
+                        {
+                            entries[i - from] = processEntry(source, i, buffers, metrics);
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(segments))
+            {
+                future.get();
+            }
+        } catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("并行转换类文件时线程被中断.", ex);
+        } catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("并行转换类文件时发生错误.", cause);
+        }
+        return entries;
+    }
+
+    /**
+     * 读取一个条目, 类文件经转换后返回, 其他条目原样返回.
+     */
+    private OutputEntry processEntry(ArchiveSource source, int index, BufferPool buffers, TransformMetrics metrics)
+            throws IOException
+    {
+        String name = source.getName(index);
+        long time = source.getTime(index);
+        if (source.isDirectory(index))
+        {
+            return new OutputEntry(name, time, null, null);
+        }
+        long start = System.nanoTime();
+        byte[] bytes = source.read(index);
+        long read = System.nanoTime();
+        metrics.entryRead(bytes.length, read - start);
+        if (!name.endsWith(CLASS_FILE_SUFFIX))
+        {
+            metrics.resourceCopied();
+            return new OutputEntry(name, time, bytes, null);
+        }
+        ByteVector buffer = buffers.acquire();
+        ByteVector transformed = transformClass(name, bytes, buffer);
+        if (transformed != null)
+        {
+            metrics.classTransformed(System.nanoTime() - read);
+            return new OutputEntry(name, time, null, transformed);
+        }
+        buffers.release(buffer);
+        metrics.classCopied(System.nanoTime() - read);
+        return new OutputEntry(name, time, bytes, null);
+    }
+
+    /**
+     * 将一个类文件转换后写入buffer, 工厂不需要转换该类时返回{@code null}.
+     */
+    private ByteVector transformClass(String name, byte[] bytes, ByteVector buffer) throws IOException
+    {
+        ClassReader classReader;
+        try
+        {
+            classReader = new ClassReader(bytes);
+        } catch (RuntimeException ex)
+        {
+            throw new IOException("无法解析类文件: " + name, ex);
+        }
+        ClassWriter classWriter = (this.copyPool ? new ClassWriter(classReader, this.writerFlags) : new ClassWriter(this.writerFlags));
+        classWriter.setTypeHierarchy(this.typeHierarchy);
+        ClassVisitor classVisitor = this.classVisitorFactory.createClassVisitor(classReader.getClassName(), classWriter);
+        if (classVisitor == null)
+        {
+            return null;
+        }
+        classReader.accept(classVisitor, this.parsingOptions);
+        return classWriter.toByteVector(buffer);
+    }
+
+    private static void writeEntry(JarOutputStream out, OutputEntry entry, TransformMetrics metrics) throws IOException
+    {
+        long start = System.nanoTime();
+        ZipEntry zipEntry = new ZipEntry(entry.name);
+        zipEntry.setTime(entry.time);
+        out.putNextEntry(zipEntry);
+        int length = 0;
+        if (entry.buffer != null)
+        {
+            entry.buffer.writeTo(out);
+            length = entry.buffer.size();
+        } else if (entry.bytes != null)
+        {
+            out.write(entry.bytes);
+            length = entry.bytes.length;
+        }
+        out.closeEntry();
+        metrics.entryWritten(length, System.nanoTime() - start);
+    }
+
+    private static byte[] readFully(InputStream in, long size) throws IOException
+    {
+        try
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(size > 0 && size < Integer.MAX_VALUE ? (int) size : 4096);
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * 待写出的条目: 原样复制的内容在bytes中, 转换后的类在buffer中(写出后回收), 两者都为{@code null}时为目录条目.
+     */
+    private static final class OutputEntry
+    {
+        final String name;
+
+        final long time;
+
+        final byte[] bytes;
+
+        final ByteVector buffer;
+
+        OutputEntry(String name, long time, byte[] bytes, ByteVector buffer)
+        {
+            this.name = name;
+            this.time = time;
+            this.bytes = bytes;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * 写出后回收的类文件缓冲区(线程安全): 至多保留capacity个, 内容超过{@value #MAX_POOLED_BUFFER_SIZE}字节的缓冲区不回收.
+     */
+    private static final class BufferPool
+    {
+        private final Queue<ByteVector> buffers = new ConcurrentLinkedQueue<ByteVector>();
+
+        // 队列中的缓冲区个数(ConcurrentLinkedQueue.size()需要遍历队列)
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final int capacity;
+
+        BufferPool(int capacity)
+        {
+            this.capacity = capacity;
+        }
+
+        ByteVector acquire()
+        {
+            ByteVector buffer = this.buffers.poll();
+            if (buffer == null)
+            {
+                return new ByteVector();
+            }
+            this.count.decrementAndGet();
+            return buffer;
+        }
+
+        void release(ByteVector buffer)
+        {
+            if (buffer.size() > MAX_POOLED_BUFFER_SIZE)
+            {
+                return;
+            }
+            if (this.count.incrementAndGet() > this.capacity)
+            {
+                this.count.decrementAndGet();
+                return;
+            }
+            this.buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * 按确定顺序排列的输入条目, {@link #read}可以被多个线程同时调用.
+     */
+    private interface ArchiveSource
+    {
+        int size();
+
+        String getName(int index);
+
+        long getTime(int index);
+
+        boolean isDirectory(int index);
+
+        byte[] read(int index) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    /**
+     * jar中的条目, 保持原条目顺序.
+     */
+    private static final class JarSource implements ArchiveSource
+    {
+        private final JarFile jarFile;
+
+        private final List<ZipEntry> entries;
+
+        JarSource(File file) throws IOException
+        {
+            this.jarFile = new JarFile(file, false);
+            this.entries = new ArrayList<ZipEntry>(Collections.list(this.jarFile.entries()));
+        }
+
+        @Override
+        public int size()
+        {
+            return this.entries.size();
+        }
+
+        @Override
+        public String getName(int index)
+        {
+            return this.entries.get(index).getName();
+        }
+
+        @Override
+        public long getTime(int index)
+        {
+            return this.entries.get(index).getTime();
+        }
+
+        @Override
+        public boolean isDirectory(int index)
+        {
+            return this.entries.get(index).isDirectory();
+        }
+
+        @Override
+        public byte[] read(int index) throws IOException
+        {
+            ZipEntry entry = this.entries.get(index);
+            return readFully(this.jarFile.getInputStream(entry), entry.getSize());
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            this.jarFile.close();
+        }
+    }
+
+    /**
+     * 目录中的文件和子目录, 按相对路径深度优先排序.
+     */
+    private static final class DirectorySource implements ArchiveSource
+    {
+        private final List<File> files = new ArrayList<File>();
+
+        private final List<String> names = new ArrayList<String>();
+
+        DirectorySource(File root) throws IOException
+        {
+            collect(root, "");
+        }
+
+        private void collect(File dir, String prefix) throws IOException
+        {
+            File[] children = dir.listFiles();
+            if (children == null)
+            {
+                throw new IOException("无法列出目录: " + dir);
+            }
+            Arrays.sort(children);
+            for (File child : children)
+            {
+                if (child.isDirectory())
+                {
+                    String name = prefix + child.getName() + "/";
+                    this.files.add(child);
+                    this.names.add(name);
+                    collect(child, name);
+                } else
+                {
+                    this.files.add(child);
+                    this.names.add(prefix + child.getName());
+                }
+            }
+        }
+
+        @Override
+        public int size()
+        {
+            return this.files.size();
+        }
+
+        @Override
+        public String getName(int index)
+        {
+            return this.names.get(index);
+        }
+
+        @Override
+        public long getTime(int index)
+        {
+            return this.files.get(index).lastModified();
+        }
+
+        @Override
+        public boolean isDirectory(int index)
+        {
+            return this.files.get(index).isDirectory();
+        }
+
+        @Override
+        public byte[] read(int index) throws IOException
+        {
+            File file = this.files.get(index);
+            return readFully(new FileInputStream(file), file.length());
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.jfxgraph.scanner.transform;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一次{@link JarTransformer#transform 转换}的统计(线程安全): 各类条目的个数、读写的字节数, 以及读取、转换、写出各阶段的耗时.
+ * <p>
+ * 读取和转换由各工作线程并行完成, 其耗时为所有线程之和; 写出由调用线程按顺序完成; 总耗时为实际经过的时间.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class TransformMetrics
+{
+    private final AtomicLong archives = new AtomicLong();
+
+    private final AtomicLong transformedClasses = new AtomicLong();
+
+    private final AtomicLong copiedClasses = new AtomicLong();
+
+    private final AtomicLong copiedResources = new AtomicLong();
+
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private final AtomicLong readNanos = new AtomicLong();
+
+    private final AtomicLong transformNanos = new AtomicLong();
+
+    private final AtomicLong writeNanos = new AtomicLong();
+
+    private volatile long elapsedNanos;
+
+    void archiveDone()
+    {
+        this.archives.incrementAndGet();
+    }
+
+    void entryRead(int length, long nanos)
+    {
+        this.bytesRead.addAndGet(length);
+        this.readNanos.addAndGet(nanos);
+    }
+
+    void classTransformed(long nanos)
+    {
+        this.transformedClasses.incrementAndGet();
+        this.transformNanos.addAndGet(nanos);
+    }
+
+    void classCopied(long nanos)
+    {
+        this.copiedClasses.incrementAndGet();
+        this.transformNanos.addAndGet(nanos);
+    }
+
+    void resourceCopied()
+    {
+        this.copiedResources.incrementAndGet();
+    }
+
+    void entryWritten(int length, long nanos)
+    {
+        this.bytesWritten.addAndGet(length);
+        this.writeNanos.addAndGet(nanos);
+    }
+
+    void setElapsedNanos(long elapsedNanos)
+    {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * 返回已处理的jar或目录数.
+     */
+    public long getArchiveCount()
+    {
+        return this.archives.get();
+    }
+
+    /**
+     * 返回经过转换写出的类数.
+     */
+    public long getTransformedClassCount()
+    {
+        return this.transformedClasses.get();
+    }
+
+    /**
+     * 返回工厂不需要转换、原样复制的类数.
+     */
+    public long getCopiedClassCount()
+    {
+        return this.copiedClasses.get();
+    }
+
+    /**
+     * 返回原样复制的非类文件条目数(不含目录条目).
+     */
+    public long getCopiedResourceCount()
+    {
+        return this.copiedResources.get();
+    }
+
+    /**
+     * 返回读取的条目内容字节数(解压后).
+     */
+    public long getBytesRead()
+    {
+        return this.bytesRead.get();
+    }
+
+    /**
+     * 返回写出的条目内容字节数(压缩前).
+     */
+    public long getBytesWritten()
+    {
+        return this.bytesWritten.get();
+    }
+
+    /**
+     * 返回读取条目内容的耗时(纳秒, 所有工作线程之和).
+     */
+    public long getReadNanos()
+    {
+        return this.readNanos.get();
+    }
+
+    /**
+     * 返回解析和转换类的耗时(纳秒, 所有工作线程之和).
+     */
+    public long getTransformNanos()
+    {
+        return this.transformNanos.get();
+    }
+
+    /**
+     * 返回写出条目的耗时(纳秒).
+     */
+    public long getWriteNanos()
+    {
+        return this.writeNanos.get();
+    }
+
+    /**
+     * 返回整个转换经过的时间(纳秒).
+     */
+    public long getElapsedNanos()
+    {
+        return this.elapsedNanos;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "archives=" + getArchiveCount() + ", transformed=" + getTransformedClassCount() + ", copiedClasses=" + getCopiedClassCount()
+                + ", copiedResources=" + getCopiedResourceCount() + ", read=" + millis(getReadNanos()) + "ms, transform="
+                + millis(getTransformNanos()) + "ms, write=" + millis(getWriteNanos()) + "ms, elapsed=" + millis(getElapsedNanos()) + "ms";
+    }
+
+    private static long millis(long nanos)
+    {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
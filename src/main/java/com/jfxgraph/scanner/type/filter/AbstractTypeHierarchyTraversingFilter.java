@@ -27,6 +27,22 @@ public abstract class AbstractTypeHierarchyTraversingFilter implements TypeFilte
         this.considerInterfaces = considerInterfaces;
     }
 
+    /**
+     * 返回是否沿父类查找匹配.
+     */
+    public final boolean isConsiderInherited()
+    {
+        return this.considerInherited;
+    }
+
+    /**
+     * 返回是否沿接口查找匹配(仅在沿父类查找时生效).
+     */
+    public final boolean isConsiderInterfaces()
+    {
+        return this.considerInterfaces;
+    }
+
     /**
      * 
      * @see com.jfxgraph.scanner.type.filter.TypeFilter#match(com.jfxgraph.scanner.reader.MetadataReader,
@@ -64,6 +64,14 @@ public class AnnotationTypeFilter extends AbstractTypeHierarchyTraversingFilter
         this.considerMetaAnnotations = considerMetaAnnotations;
     }
 
+    /**
+     * 返回要匹配的注解类型.
+     */
+    public final Class<? extends Annotation> getAnnotationType()
+    {
+        return this.annotationType;
+    }
+
     @Override
     protected boolean matchSelf(MetadataReader metadataReader)
     {
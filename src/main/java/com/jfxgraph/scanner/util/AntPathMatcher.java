@@ -8,6 +8,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,7 +47,24 @@ public class AntPathMatcher implements PathMatcher
 
     private String pathSeparator = DEFAULT_PATH_SEPARATOR;
 
-    private final Map<String, AntPathStringMatcher> stringMatcherCache = new ConcurrentHashMap<String, AntPathStringMatcher>(256);
+    /** 默认缓存的模式段数: 256 */
+    public static final int DEFAULT_CACHE_LIMIT = 256;
+
+    private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+
+    // 按模式段缓存编译好的AntPathStringMatcher. 读取不加锁, 每个条目记录最近一次访问的序号;
+    // 加入条目时在evictionLock下按序号淘汰最久未访问的条目, 使条目数不超过cacheLimit.
+    private final ConcurrentHashMap<String, StringMatcherCacheEntry> stringMatcherCache = new ConcurrentHashMap<String, StringMatcherCacheEntry>(
+            DEFAULT_CACHE_LIMIT);
+
+    private final Object evictionLock = new Object();
+
+    // 每次取模式段匹配器时递增, 同时作为缓存条目的访问序号
+    private final AtomicLong accessCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
 
     private boolean trimTokens = true;
 
@@ -62,6 +80,79 @@ public class AntPathMatcher implements PathMatcher
         this.trimTokens = trimTokens;
     }
 
+    /**
+     * 设置最多缓存多少个编译好的模式段(含通配符的段编译为正则表达式). 默认为{@value #DEFAULT_CACHE_LIMIT}, 超出时淘汰最久未使用的段;
+     * 小于等于0时不缓存, 每次匹配都重新编译, 适合只匹配一次的模式. 缩小上限时立即淘汰多出的段.
+     * <p>
+     * 命中缓存时不加锁: 一次{@link ConcurrentHashMap#get}、一次原子递增(访问序号, 同时用于统计命中次数)和一次volatile写.
+     * 未命中时编译在锁外进行, 加入缓存时若已满则在锁内遍历缓存淘汰最久未访问的段, 其开销与缓存大小成正比, 但远小于编译正则表达式.
+     */
+    public void setCacheLimit(int cacheLimit)
+    {
+        this.cacheLimit = cacheLimit;
+        if (cacheLimit <= 0)
+        {
+            clearCache();
+        } else
+        {
+            synchronized (this.evictionLock)
+            {
+                evictExcessEntries(cacheLimit);
+            }
+        }
+    }
+
+    /**
+     * 返回最多缓存的模式段数.
+     */
+    public int getCacheLimit()
+    {
+        return this.cacheLimit;
+    }
+
+    /**
+     * 返回模式段缓存的命中次数.
+     */
+    public long getCacheHitCount()
+    {
+        return this.accessCount.get() - this.missCount.get();
+    }
+
+    /**
+     * 返回模式段缓存未命中(即编译模式段)的次数, 包括不缓存时的每次编译.
+     */
+    public long getCacheMissCount()
+    {
+        return this.missCount.get();
+    }
+
+    /**
+     * 返回因超出缓存上限而被淘汰的模式段数.
+     */
+    public long getCacheEvictionCount()
+    {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * 返回已缓存的模式段数.
+     */
+    public int getCacheSize()
+    {
+        return this.stringMatcherCache.size();
+    }
+
+    /**
+     * 清空模式段缓存(不重置计数).
+     */
+    public void clearCache()
+    {
+        synchronized (this.evictionLock)
+        {
+            this.stringMatcherCache.clear();
+        }
+    }
+
     /**
      * @see com.jfxgraph.scanner.util.PathMatcher#isPattern(java.lang.String)
      */
@@ -89,6 +180,21 @@ public class AntPathMatcher implements PathMatcher
         return doMatch(pattern, path, false, null);
     }
 
+    /**
+     * 编译为{@link AntPathPattern}: 模式只解析一次, 匹配时不再拆分路径. 使用当前的分隔符和{@link #setTrimTokens trimTokens}设置,
+     * 匹配结果与{@link #match}和{@link #matchStart}相同.
+     * 
+     * @param pattern
+     *            路径模式
+     * @return 编译后的模式
+     * @since 1.1
+     * @see PathPatternUtils#compile
+     */
+    public AntPathPattern compile(String pattern)
+    {
+        return new AntPathPattern(this, pattern, this.pathSeparator, this.trimTokens);
+    }
+
     /**
      * Given a pattern and a full path, determine the pattern-mapped part.
      * <p>
@@ -322,13 +428,83 @@ public class AntPathMatcher implements PathMatcher
      */
     private boolean matchStrings(String pattern, String str, Map<String, String> uriTemplateVariables)
     {
-        AntPathStringMatcher matcher = this.stringMatcherCache.get(pattern);
-        if (matcher == null)
+        return getStringMatcher(pattern).matchStrings(str, uriTemplateVariables);
+    }
+
+    /**
+     * 返回模式段的匹配器, 缓存已满时淘汰最久未使用的段. 命中时不加锁, 编译在锁之外进行.
+     */
+    private AntPathStringMatcher getStringMatcher(String pattern)
+    {
+        long access = this.accessCount.incrementAndGet();
+        int limit = this.cacheLimit;
+        if (limit <= 0)
+        {
+            this.missCount.incrementAndGet();
+            return new AntPathStringMatcher(pattern);
+        }
+        StringMatcherCacheEntry entry = this.stringMatcherCache.get(pattern);
+        if (entry != null)
+        {
+            entry.lastAccess = access;
+            return entry.matcher;
+        }
+        this.missCount.incrementAndGet();
+        AntPathStringMatcher matcher = new AntPathStringMatcher(pattern);
+        synchronized (this.evictionLock)
+        {
+            entry = this.stringMatcherCache.get(pattern);
+            if (entry != null)
+            {
+                // 其它线程已编译并加入了同一个段
+                entry.lastAccess = access;
+                return entry.matcher;
+            }
+            evictExcessEntries(limit - 1);
+            this.stringMatcherCache.put(pattern, new StringMatcherCacheEntry(matcher, access));
+        }
+        return matcher;
+    }
+
+    /**
+     * 淘汰最久未访问的段, 直到缓存中最多剩下maxSize个. 须在evictionLock下调用.
+     */
+    private void evictExcessEntries(int maxSize)
+    {
+        // 多出的条目通常只有一个, 每次选出访问序号最小的一个淘汰
+        for (int excess = this.stringMatcherCache.size() - maxSize; excess > 0; excess--)
+        {
+            Map.Entry<String, StringMatcherCacheEntry> eldest = null;
+            for (Map.Entry<String, StringMatcherCacheEntry> candidate : this.stringMatcherCache.entrySet())
+            {
+                if (eldest == null || candidate.getValue().lastAccess < eldest.getValue().lastAccess)
+                {
+                    eldest = candidate;
+                }
+            }
+            if (eldest == null)
+            {
+                return;
+            }
+            this.stringMatcherCache.remove(eldest.getKey());
+            this.evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 模式段缓存的条目: 编译好的匹配器及其最近一次被访问时的序号.
+     */
+    private static final class StringMatcherCacheEntry
+    {
+        final AntPathStringMatcher matcher;
+
+        volatile long lastAccess;
+
+        StringMatcherCacheEntry(AntPathStringMatcher matcher, long lastAccess)
         {
-            matcher = new AntPathStringMatcher(pattern);
-            this.stringMatcherCache.put(pattern, matcher);
+            this.matcher = matcher;
+            this.lastAccess = lastAccess;
         }
-        return matcher.matchStrings(str, uriTemplateVariables);
     }
 
     /**
@@ -457,7 +633,7 @@ public class AntPathMatcher implements PathMatcher
      * The pattern may contain special characters: '*' means zero or more characters; '?' means one and only one
      * character; '{' and '}' indicate a URI template pattern. For example <tt>/users/{user}</tt>.
      */
-    private static class AntPathStringMatcher
+    static class AntPathStringMatcher
     {
 
         private static final Pattern GLOB_PATTERN = Pattern.compile("\\?|\\*|\\{((?:\\{[^/]+?\\}|[^/{}]|\\\\[{}])+?)\\}");
@@ -468,7 +644,7 @@ public class AntPathMatcher implements PathMatcher
 
         private final List<String> variableNames = new LinkedList<String>();
 
-        public AntPathStringMatcher(String pattern)
+        AntPathStringMatcher(String pattern)
         {
             StringBuilder patternBuilder = new StringBuilder();
             Matcher m = GLOB_PATTERN.matcher(pattern);
@@ -0,0 +1,460 @@
+package com.jfxgraph.scanner.util;
+
+/**
+ * {@link AntPathMatcher}编译得到的路径模式(线程安全).
+ * <p>
+ * 模式在创建时按分隔符拆分为段, 并按段的形式分类: 普通字符串、"*"、"**"、"前缀*"、"*后缀"(例如"*.class")、含"*"/"?"的通配段,
+ * 以及含URI模板变量("{...}")的段(编译时即生成其正则表达式). 匹配时直接在路径的字符区间上逐段进行, 不拆分路径, 除模板变量段外不创建任何对象;
+ * 完全匹配通过一遍扫描维护"模式中可能匹配到的段位置"的集合完成, "**"可以匹配任意层.
+ * <p>
+ * 分隔符、是否去除各段首尾空白等选项取创建时{@link AntPathMatcher}的设置; 匹配结果与{@link AntPathMatcher#match}和
+ * {@link AntPathMatcher#matchStart}相同.
+ *
+ * @author Albert
+ * @since 1.1
+ * @see AntPathMatcher#compile
+ */
+public final class AntPathPattern implements PathPattern
+{
+    // 位置集合用long的位表示, 最后一位表示整个模式已匹配完; 段数更多的模式退回到AntPathMatcher.doMatch.
+    private static final int MAX_SEGMENTS = 63;
+
+    private static final int LITERAL = 0;
+
+    private static final int ANY = 1;
+
+    private static final int DOUBLE_WILDCARD = 2;
+
+    private static final int PREFIX = 3;
+
+    private static final int SUFFIX = 4;
+
+    private static final int WILDCARD = 5;
+
+    private static final int TEMPLATE = 6;
+
+    private final AntPathMatcher pathMatcher;
+
+    private final String pattern;
+
+    private final String pathSeparator;
+
+    // 单字符分隔符, 否则为0(分隔符中的每个字符都作为分隔符)
+    private final char separatorChar;
+
+    private final boolean trimTokens;
+
+    private final String[] segments;
+
+    private final int[] kinds;
+
+    // "前缀*"和"*后缀"段中的固定部分
+    private final String[] fixedParts;
+
+    // 含URI模板变量的段编译时即取得匹配器, 不经过AntPathMatcher的缓存
+    private final AntPathMatcher.AntPathStringMatcher[] templateMatchers;
+
+    private final boolean leadingSeparator;
+
+    private final boolean trailingSeparator;
+
+    private final boolean hasDoubleWildcard;
+
+    AntPathPattern(AntPathMatcher pathMatcher, String pattern, String pathSeparator, boolean trimTokens)
+    {
+        Assert.notNull(pattern, "Pattern must not be null");
+        this.pathMatcher = pathMatcher;
+        this.pattern = pattern;
+        this.pathSeparator = pathSeparator;
+        this.separatorChar = (pathSeparator.length() == 1 ? pathSeparator.charAt(0) : 0);
+        this.trimTokens = trimTokens;
+        this.segments = StringUtils.tokenizeToStringArray(pattern, pathSeparator, trimTokens, true);
+        this.kinds = new int[this.segments.length];
+        this.fixedParts = new String[this.segments.length];
+        this.templateMatchers = new AntPathMatcher.AntPathStringMatcher[this.segments.length];
+        boolean doubleWildcard = false;
+        for (int i = 0; i < this.segments.length; i++)
+        {
+            String segment = this.segments[i];
+            int star = segment.indexOf('*');
+            boolean singleStar = (star != -1 && star == segment.lastIndexOf('*') && segment.indexOf('?') == -1);
+            if (segment.indexOf('{') != -1)
+            {
+                this.kinds[i] = TEMPLATE;
+                this.templateMatchers[i] = new AntPathMatcher.AntPathStringMatcher(segment);
+            } else if ("**".equals(segment))
+            {
+                this.kinds[i] = DOUBLE_WILDCARD;
+                doubleWildcard = true;
+            } else if ("*".equals(segment))
+            {
+                this.kinds[i] = ANY;
+            } else if (star == -1 && segment.indexOf('?') == -1)
+            {
+                this.kinds[i] = LITERAL;
+            } else if (singleStar && star == 0)
+            {
+                this.kinds[i] = SUFFIX;
+                this.fixedParts[i] = segment.substring(1);
+            } else if (singleStar && star == segment.length() - 1)
+            {
+                this.kinds[i] = PREFIX;
+                this.fixedParts[i] = segment.substring(0, star);
+            } else
+            {
+                this.kinds[i] = WILDCARD;
+            }
+        }
+        this.hasDoubleWildcard = doubleWildcard;
+        this.leadingSeparator = pattern.startsWith(pathSeparator);
+        this.trailingSeparator = pattern.endsWith(pathSeparator);
+    }
+
+    @Override
+    public String getPattern()
+    {
+        return this.pattern;
+    }
+
+    /**
+     * 返回编译时使用的路径分隔符.
+     */
+    public String getPathSeparator()
+    {
+        return this.pathSeparator;
+    }
+
+    /**
+     * 返回模式的段数(不含空段).
+     */
+    public int getSegmentCount()
+    {
+        return this.segments.length;
+    }
+
+    /**
+     * 返回尚未匹配任何路径段时的匹配状态, 供按目录逐级匹配的调用方使用: 从该状态开始依次以路径的各段调用{@link #step},
+     * 结果与{@link #match}对整个路径的匹配过程相同. 状态是模式中可能匹配到的段位置的集合, 只能用于段数不超过{@link #getMaxStepSegments()}的模式.
+     */
+    public long initialState()
+    {
+        return closure(1L);
+    }
+
+    /**
+     * 用路径中的一段(不含分隔符, 例如文件名)推进匹配状态.
+     *
+     * @param state
+     *            当前的匹配状态
+     * @param segment
+     *            路径段
+     * @return 新的匹配状态
+     */
+    public long step(long state, String segment)
+    {
+        if (state == 0)
+        {
+            return 0;
+        }
+        int start = 0;
+        int end = segment.length();
+        if (this.trimTokens)
+        {
+            while (start < end && segment.charAt(start) <= ' ')
+            {
+                start++;
+            }
+            while (end > start && segment.charAt(end - 1) <= ' ')
+            {
+                end--;
+            }
+            if (start == end)
+            {
+                return state;
+            }
+        }
+        return step(state, segment, start, end);
+    }
+
+    /**
+     * 匹配状态是否表示已匹配完整个模式, 即到此为止的路径(不以分隔符结尾)与模式匹配.
+     */
+    public boolean isMatched(long state)
+    {
+        return (state & (1L << this.segments.length)) != 0;
+    }
+
+    /**
+     * 匹配状态中是否还有可以继续匹配下一段的位置; 否则其后的路径都不可能与模式匹配.
+     */
+    public boolean canContinue(long state)
+    {
+        return (state & ((1L << this.segments.length) - 1)) != 0;
+    }
+
+    /**
+     * 返回可以用{@link #initialState}和{@link #step}逐段匹配的模式的最大段数.
+     */
+    public static int getMaxStepSegments()
+    {
+        return MAX_SEGMENTS;
+    }
+
+    @Override
+    public boolean match(String path)
+    {
+        if (path.startsWith(this.pathSeparator) != this.leadingSeparator)
+        {
+            return false;
+        }
+        int segmentCount = this.segments.length;
+        if (segmentCount > MAX_SEGMENTS)
+        {
+            return this.pathMatcher.doMatch(this.pattern, path, true, null);
+        }
+        long endBit = 1L << segmentCount;
+        long state = closure(1L);
+        int length = path.length();
+        int pos = 0;
+        while (pos < length)
+        {
+            if (isSeparator(path.charAt(pos)))
+            {
+                pos++;
+                continue;
+            }
+            int start = pos;
+            while (pos < length && !isSeparator(path.charAt(pos)))
+            {
+                pos++;
+            }
+            int end = pos;
+            if (this.trimTokens)
+            {
+                while (start < end && path.charAt(start) <= ' ')
+                {
+                    start++;
+                }
+                while (end > start && path.charAt(end - 1) <= ' ')
+                {
+                    end--;
+                }
+                if (start == end)
+                {
+                    continue;
+                }
+            }
+            state = step(state, path, start, end);
+            if (state == 0)
+            {
+                return false;
+            }
+        }
+
+        if (this.hasDoubleWildcard)
+        {
+            return (state & endBit) != 0;
+        }
+        // 不含"**"时与AntPathMatcher.doMatch一样考虑路径末尾的分隔符.
+        boolean pathEndsWithSeparator = path.endsWith(this.pathSeparator);
+        if ((state & endBit) != 0)
+        {
+            return (this.trailingSeparator ? pathEndsWithSeparator : !pathEndsWithSeparator);
+        }
+        return (pathEndsWithSeparator && segmentCount > 0 && this.kinds[segmentCount - 1] == ANY && (state & (endBit >>> 1)) != 0);
+    }
+
+    @Override
+    public boolean matchStart(String path)
+    {
+        if (path.startsWith(this.pathSeparator) != this.leadingSeparator)
+        {
+            return false;
+        }
+        int segmentCount = this.segments.length;
+        int index = 0;
+        int length = path.length();
+        int pos = 0;
+        while (pos < length)
+        {
+            if (isSeparator(path.charAt(pos)))
+            {
+                pos++;
+                continue;
+            }
+            int start = pos;
+            while (pos < length && !isSeparator(path.charAt(pos)))
+            {
+                pos++;
+            }
+            int end = pos;
+            if (this.trimTokens)
+            {
+                while (start < end && path.charAt(start) <= ' ')
+                {
+                    start++;
+                }
+                while (end > start && path.charAt(end - 1) <= ' ')
+                {
+                    end--;
+                }
+                if (start == end)
+                {
+                    continue;
+                }
+            }
+            if (index == segmentCount)
+            {
+                return false;
+            }
+            if (this.kinds[index] == DOUBLE_WILDCARD)
+            {
+                // 路径的开头部分一定可以由"**"匹配.
+                return true;
+            }
+            if (!matchSegment(index, path, start, end))
+            {
+                return false;
+            }
+            index++;
+        }
+        if (index == segmentCount)
+        {
+            return (this.trailingSeparator ? path.endsWith(this.pathSeparator) : !path.endsWith(this.pathSeparator));
+        }
+        return true;
+    }
+
+    private boolean isSeparator(char c)
+    {
+        return (this.separatorChar != 0 ? c == this.separatorChar : this.pathSeparator.indexOf(c) != -1);
+    }
+
+    /**
+     * 用路径中的一段推进位置集合.
+     */
+    private long step(long state, String path, int start, int end)
+    {
+        long next = 0;
+        for (int i = 0; i < this.segments.length; i++)
+        {
+            long bit = 1L << i;
+            if ((state & bit) == 0)
+            {
+                continue;
+            }
+            if (this.kinds[i] == DOUBLE_WILDCARD)
+            {
+                next |= bit;
+            } else if (matchSegment(i, path, start, end))
+            {
+                next |= (bit << 1);
+            }
+        }
+        return closure(next);
+    }
+
+    /**
+     * "**"可以不匹配任何段, 因此处于"**"的位置同时处于其下一位置.
+     */
+    private long closure(long state)
+    {
+        for (int i = 0; i < this.segments.length; i++)
+        {
+            if (this.kinds[i] == DOUBLE_WILDCARD && (state & (1L << i)) != 0)
+            {
+                state |= (1L << (i + 1));
+            }
+        }
+        return state;
+    }
+
+    private boolean matchSegment(int index, String str, int start, int end)
+    {
+        int length = end - start;
+        switch (this.kinds[index])
+        {
+        case ANY:
+            return true;
+        case LITERAL:
+            String segment = this.segments[index];
+            return (segment.length() == length && str.regionMatches(start, segment, 0, length));
+        case SUFFIX:
+            String suffix = this.fixedParts[index];
+            return (suffix.length() <= length && str.regionMatches(end - suffix.length(), suffix, 0, suffix.length()));
+        case PREFIX:
+            String prefix = this.fixedParts[index];
+            return (prefix.length() <= length && str.regionMatches(start, prefix, 0, prefix.length()));
+        case WILDCARD:
+            return matchWildcard(this.segments[index], str, start, end);
+        case TEMPLATE:
+            return this.templateMatchers[index].matchStrings(str.substring(start, end), null);
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * 按"*"和"?"通配符匹配路径中的一段, 不匹配时回溯到最近的"*".
+     */
+    private static boolean matchWildcard(String pattern, String str, int start, int end)
+    {
+        int p = 0;
+        int s = start;
+        int starIndex = -1;
+        int starMatch = start;
+        int patternLength = pattern.length();
+        while (s < end)
+        {
+            char c = (p < patternLength ? pattern.charAt(p) : 0);
+            if (p < patternLength && c != '*' && (c == '?' || c == str.charAt(s)))
+            {
+                p++;
+                s++;
+            } else if (c == '*' && p < patternLength)
+            {
+                starIndex = p++;
+                starMatch = s;
+            } else if (starIndex != -1)
+            {
+                p = starIndex + 1;
+                s = ++starMatch;
+            } else
+            {
+                return false;
+            }
+        }
+        while (p < patternLength && pattern.charAt(p) == '*')
+        {
+            p++;
+        }
+        return p == patternLength;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof AntPathPattern))
+        {
+            return false;
+        }
+        AntPathPattern other = (AntPathPattern) obj;
+        return (this.pattern.equals(other.pattern) && this.pathSeparator.equals(other.pathSeparator) && this.trimTokens == other.trimTokens);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.pattern.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.pattern;
+    }
+}
@@ -0,0 +1,104 @@
+package com.jfxgraph.scanner.util;
+
+import java.io.Serializable;
+
+/**
+ * 未加载枚举类型时的枚举注解属性值(枚举类型名 + 常量名), 在读取注解属性时才解析为真正的枚举常量.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public final class EnumValue implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final String enumType;
+
+    private final String constantName;
+
+    /**
+     * @param enumType
+     *            枚举类型的类名
+     * @param constantName
+     *            枚举常量名
+     */
+    public EnumValue(String enumType, String constantName)
+    {
+        Assert.notNull(enumType, "Enum type must not be null");
+        Assert.notNull(constantName, "Constant name must not be null");
+        this.enumType = enumType;
+        this.constantName = constantName;
+    }
+
+    /**
+     * 返回枚举类型的类名.
+     */
+    public String getEnumType()
+    {
+        return this.enumType;
+    }
+
+    /**
+     * 返回枚举常量名.
+     */
+    public String getConstantName()
+    {
+        return this.constantName;
+    }
+
+    /**
+     * 用给定的类加载器解析枚举常量; 枚举类型无法加载或常量不存在时返回常量名.
+     *
+     * @param classLoader
+     *            类加载器
+     * @return 枚举常量, 或常量名
+     */
+    public Object resolve(ClassLoader classLoader)
+    {
+        try
+        {
+            Class<?> enumClass = classLoader.loadClass(this.enumType);
+            if (enumClass.isEnum())
+            {
+                for (Object constant : enumClass.getEnumConstants())
+                {
+                    if (((Enum<?>) constant).name().equals(this.constantName))
+                    {
+                        return constant;
+                    }
+                }
+            }
+        } catch (ClassNotFoundException ex)
+        {
+            // Enum type not found - keep the constant name.
+        }
+        return this.constantName;
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if (this == other)
+        {
+            return true;
+        }
+        if (!(other instanceof EnumValue))
+        {
+            return false;
+        }
+        EnumValue otherValue = (EnumValue) other;
+        return (this.enumType.equals(otherValue.enumType) && this.constantName.equals(otherValue.constantName));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.enumType.hashCode() * 29 + this.constantName.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.constantName;
+    }
+}
@@ -0,0 +1,36 @@
+package com.jfxgraph.scanner.util;
+
+/**
+ * 由{@link PathPatternUtils#compile}预先解析的路径模式.
+ * <p>
+ * 同一模式需要与大量路径匹配时(例如扫描中的"**&#47;*.class"), 先编译再逐个匹配, 避免每次匹配都重新解析模式.
+ * 实现须是线程安全的.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public interface PathPattern
+{
+    /**
+     * 返回编译前的模式字符串.
+     */
+    String getPattern();
+
+    /**
+     * 与{@link PathMatcher#match(String, String)}相同: 判断路径是否与模式完全匹配.
+     *
+     * @param path
+     *            要匹配的路径
+     * @return {@code true} 如果路径与模式匹配
+     */
+    boolean match(String path);
+
+    /**
+     * 与{@link PathMatcher#matchStart(String, String)}相同: 判断路径是否至少与模式的开头部分匹配.
+     *
+     * @param path
+     *            要匹配的路径
+     * @return {@code true} 如果路径与模式的开头部分匹配
+     */
+    boolean matchStart(String path);
+}
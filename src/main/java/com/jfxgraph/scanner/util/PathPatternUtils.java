@@ -0,0 +1,70 @@
+package com.jfxgraph.scanner.util;
+
+/**
+ * 路径模式相关的工具类.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public abstract class PathPatternUtils
+{
+    /**
+     * 用给定的路径匹配器编译路径模式: {@link AntPathMatcher}编译为{@link AntPathPattern}, 其它实现返回逐次委托给
+     * {@link PathMatcher#match}和{@link PathMatcher#matchStart}的模式对象.
+     *
+     * @param pathMatcher
+     *            路径匹配器
+     * @param pattern
+     *            路径模式
+     * @return 编译后的模式
+     */
+    public static PathPattern compile(PathMatcher pathMatcher, String pattern)
+    {
+        Assert.notNull(pathMatcher, "PathMatcher must not be null");
+        if (pathMatcher instanceof AntPathMatcher)
+        {
+            return ((AntPathMatcher) pathMatcher).compile(pattern);
+        }
+        return new DelegatingPathPattern(pathMatcher, pattern);
+    }
+
+    /**
+     * 不预先解析模式, 每次匹配都委托给路径匹配器.
+     */
+    private static final class DelegatingPathPattern implements PathPattern
+    {
+        private final PathMatcher pathMatcher;
+
+        private final String pattern;
+
+        DelegatingPathPattern(PathMatcher pathMatcher, String pattern)
+        {
+            this.pathMatcher = pathMatcher;
+            this.pattern = pattern;
+        }
+
+        @Override
+        public String getPattern()
+        {
+            return this.pattern;
+        }
+
+        @Override
+        public boolean match(String path)
+        {
+            return this.pathMatcher.match(this.pattern, path);
+        }
+
+        @Override
+        public boolean matchStart(String path)
+        {
+            return this.pathMatcher.matchStart(this.pattern, path);
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.pattern;
+        }
+    }
+}
@@ -3,8 +3,6 @@
  */
 package com.jfxgraph.scanner.visitor;
 
-import java.lang.reflect.Field;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,7 +10,6 @@ import com.jfxgraph.asm.AnnotationVisitor;
 import com.jfxgraph.asm.Opcodes;
 import com.jfxgraph.asm.Type;
 import com.jfxgraph.scanner.util.AnnotationAttributes;
-import com.jfxgraph.scanner.util.ReflectionUtils;
 
 /**
  * AbstractRecursiveAnnotationVisitor.java
@@ -26,9 +23,16 @@ public abstract class AbstractRecursiveAnnotationVisitor extends AnnotationVisit
 
     protected final ClassLoader classLoader;
 
+    protected final AnnotationTypeIntrospector introspector;
+
     public AbstractRecursiveAnnotationVisitor(ClassLoader classLoader, AnnotationAttributes attributes) {
+        this(new ReflectionAnnotationTypeIntrospector(classLoader), attributes);
+    }
+
+    public AbstractRecursiveAnnotationVisitor(AnnotationTypeIntrospector introspector, AnnotationAttributes attributes) {
         super(Opcodes.ASM4);
-        this.classLoader = classLoader;
+        this.classLoader = introspector.getClassLoader();
+        this.introspector = introspector;
         this.attributes = attributes;
     }
 
@@ -41,28 +45,14 @@ public abstract class AbstractRecursiveAnnotationVisitor extends AnnotationVisit
         String annotationType = Type.getType(asmTypeDescriptor).getClassName();
         AnnotationAttributes nestedAttributes = new AnnotationAttributes();
         this.attributes.put(attributeName, nestedAttributes);
-        return new RecursiveAnnotationAttributesVisitor(annotationType, nestedAttributes, this.classLoader);
+        return new RecursiveAnnotationAttributesVisitor(annotationType, nestedAttributes, this.introspector);
     }
 
     public AnnotationVisitor visitArray(String attributeName) {
-        return new RecursiveAnnotationArrayVisitor(attributeName, this.attributes, this.classLoader);
+        return new RecursiveAnnotationArrayVisitor(attributeName, this.attributes, this.introspector);
     }
 
     public void visitEnum(String attributeName, String asmTypeDescriptor, String attributeValue) {
-        Object valueToUse = attributeValue;
-        try {
-            Class<?> enumType = this.classLoader.loadClass(Type.getType(asmTypeDescriptor).getClassName());
-            Field enumConstant = ReflectionUtils.findField(enumType, attributeValue);
-            if (enumConstant != null) {
-                valueToUse = enumConstant.get(null);
-            }
-        }
-        catch (ClassNotFoundException ex) {
-            this.logger.debug("Failed to classload enum type while reading annotation metadata", ex);
-        }
-        catch (IllegalAccessException ex) {
-            this.logger.warn("Could not access enum value while reading annotation metadata", ex);
-        }
-        this.attributes.put(attributeName, valueToUse);
+        visit(attributeName, this.introspector.resolveEnumValue(asmTypeDescriptor, attributeValue));
     }
 }
@@ -3,13 +3,10 @@
  */
 package com.jfxgraph.scanner.visitor;
 
-import java.lang.annotation.Annotation;
-import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
 import com.jfxgraph.scanner.util.AnnotationAttributes;
-import com.jfxgraph.scanner.util.AnnotationUtils;
 
 /**
  * 〈一句话功能简述〉
@@ -34,34 +31,35 @@ public class AnnotationAttributesReadingVisitor extends RecursiveAnnotationAttri
             String annotationType, Map<String, AnnotationAttributes> attributesMap,
             Map<String, Set<String>> metaAnnotationMap, ClassLoader classLoader) {
 
-        super(annotationType, new AnnotationAttributes(), classLoader);
+        this(annotationType, attributesMap, metaAnnotationMap, new ReflectionAnnotationTypeIntrospector(classLoader));
+    }
+
+    public AnnotationAttributesReadingVisitor(
+            String annotationType, Map<String, AnnotationAttributes> attributesMap,
+            Map<String, Set<String>> metaAnnotationMap, AnnotationTypeIntrospector introspector) {
+
+        super(annotationType, new AnnotationAttributes(), introspector);
         this.annotationType = annotationType;
         this.attributesMap = attributesMap;
         this.metaAnnotationMap = metaAnnotationMap;
     }
 
     @Override
-    public void doVisitEnd(Class<?> annotationClass) {
-        super.doVisitEnd(annotationClass);
+    public void doVisitEnd(AnnotationTypeDescriptor descriptor) {
+        super.doVisitEnd(descriptor);
         this.attributesMap.put(this.annotationType, this.attributes);
-        registerMetaAnnotations(annotationClass);
+        registerMetaAnnotations(descriptor);
     }
 
-    private void registerMetaAnnotations(Class<?> annotationClass) {
+    private void registerMetaAnnotations(AnnotationTypeDescriptor descriptor) {
         // Register annotations that the annotation type is annotated with.
-        Set<String> metaAnnotationTypeNames = new LinkedHashSet<String>();
-        for (Annotation metaAnnotation : annotationClass.getAnnotations()) {
-            metaAnnotationTypeNames.add(metaAnnotation.annotationType().getName());
-            if (!this.attributesMap.containsKey(metaAnnotation.annotationType().getName())) {
-                this.attributesMap.put(metaAnnotation.annotationType().getName(),
-                        AnnotationUtils.getAnnotationAttributes(metaAnnotation, true, true));
-            }
-            for (Annotation metaMetaAnnotation : metaAnnotation.annotationType().getAnnotations()) {
-                metaAnnotationTypeNames.add(metaMetaAnnotation.annotationType().getName());
+        for (Map.Entry<String, AnnotationAttributes> entry : descriptor.getMetaAnnotationAttributes().entrySet()) {
+            if (!this.attributesMap.containsKey(entry.getKey())) {
+                this.attributesMap.put(entry.getKey(), AnnotationReadingVisitorUtils.copyAttributes(entry.getValue()));
             }
         }
         if (this.metaAnnotationMap != null) {
-            this.metaAnnotationMap.put(annotationClass.getName(), metaAnnotationTypeNames);
+            this.metaAnnotationMap.put(this.annotationType, descriptor.getMetaAnnotationTypes());
         }
     }
 }
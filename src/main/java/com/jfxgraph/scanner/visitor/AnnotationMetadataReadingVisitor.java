@@ -4,6 +4,7 @@
 package com.jfxgraph.scanner.visitor;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -35,6 +36,8 @@ public class AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisito
 
     private final ClassLoader classLoader;
 
+    private final AnnotationTypeIntrospector introspector;
+
     private final Set<String> annotationSet = new LinkedHashSet<String>();
 
     private final Map<String, Set<String>> metaAnnotationMap = new LinkedHashMap<String, Set<String>>(4);
@@ -44,19 +47,37 @@ public class AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisito
     private final MultiValueMap<String, MethodMetadata> methodMetadataMap = new LinkedMultiValueMap<String, MethodMetadata>();
 
     public AnnotationMetadataReadingVisitor(ClassLoader classLoader) {
-        this.classLoader = classLoader;
+        this(new ReflectionAnnotationTypeIntrospector(classLoader));
+    }
+
+    /**
+     * 使用给定的注解类型解析策略, 例如{@link BytecodeAnnotationTypeIntrospector}可在不加载注解类型的情况下读取注解.
+     */
+    public AnnotationMetadataReadingVisitor(AnnotationTypeIntrospector introspector) {
+        this(introspector, null);
+    }
+
+    /**
+     * 使用给定的注解类型解析策略和类名池; 类名池为{@code null}时每次都创建新的名字字符串.
+     */
+    public AnnotationMetadataReadingVisitor(AnnotationTypeIntrospector introspector, ClassNamePool classNamePool) {
+        super(classNamePool);
+        this.classLoader = introspector.getClassLoader();
+        this.introspector = introspector;
     }
 
     @Override
     public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
-        return new MethodMetadataReadingVisitor(name, access, this.getClassName(), this.classLoader, this.methodMetadataMap);
+        return new MethodMetadataReadingVisitor(name, access, this.getClassName(), this.introspector, this.methodMetadataMap,
+                getClassNamePool());
     }
 
     @Override
     public AnnotationVisitor visitAnnotation(final String desc, boolean visible) {
-        String className = Type.getType(desc).getClassName();
+        ClassNamePool classNamePool = getClassNamePool();
+        String className = (classNamePool != null ? classNamePool.typeName(desc) : Type.getType(desc).getClassName());
         this.annotationSet.add(className);
-        return new AnnotationAttributesReadingVisitor(className, this.attributeMap, this.metaAnnotationMap, this.classLoader);
+        return new AnnotationAttributesReadingVisitor(className, this.attributeMap, this.metaAnnotationMap, this.introspector);
     }
 
     @Override
@@ -103,53 +124,7 @@ public class AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisito
     public AnnotationAttributes getAnnotationAttributes(String annotationType, boolean classValuesAsString, boolean nestedAttributesAsMap) {
 
         AnnotationAttributes raw = this.attributeMap.get(annotationType);
-        return convertClassValues(raw, classValuesAsString, nestedAttributesAsMap);
-    }
-
-    private AnnotationAttributes convertClassValues(AnnotationAttributes original, boolean classValuesAsString, boolean nestedAttributesAsMap) {
-
-        if (original == null) {
-            return null;
-        }
-        AnnotationAttributes result = new AnnotationAttributes(original.size());
-        for (Map.Entry<String, Object> entry : original.entrySet()) {
-            try {
-                Object value = entry.getValue();
-                if (value instanceof AnnotationAttributes) {
-                    value = convertClassValues((AnnotationAttributes) value, classValuesAsString, nestedAttributesAsMap);
-                } else if (value instanceof AnnotationAttributes[]) {
-                    AnnotationAttributes[] values = (AnnotationAttributes[]) value;
-                    for (int i = 0; i < values.length; i++) {
-                        values[i] = convertClassValues(values[i], classValuesAsString, nestedAttributesAsMap);
-                    }
-                } else if (value instanceof Type) {
-                    value = (classValuesAsString ? ((Type) value).getClassName() : this.classLoader.loadClass(((Type) value).getClassName()));
-                } else if (value instanceof Type[]) {
-                    Type[] array = (Type[]) value;
-                    Object[] convArray = (classValuesAsString ? new String[array.length] : new Class[array.length]);
-                    for (int i = 0; i < array.length; i++) {
-                        convArray[i] = (classValuesAsString ? array[i].getClassName() : this.classLoader.loadClass(array[i].getClassName()));
-                    }
-                    value = convArray;
-                } else if (classValuesAsString) {
-                    if (value instanceof Class) {
-                        value = ((Class<?>) value).getName();
-                    } else if (value instanceof Class[]) {
-                        Class<?>[] clazzArray = (Class[]) value;
-                        String[] newValue = new String[clazzArray.length];
-                        for (int i = 0; i < clazzArray.length; i++) {
-                            newValue[i] = clazzArray[i].getName();
-                        }
-                        value = newValue;
-                    }
-                }
-                result.put(entry.getKey(), value);
-            } catch (Exception ex) {
-                // Class not found - can't resolve class reference in annotation
-                // attribute.
-            }
-        }
-        return result;
+        return AnnotationReadingVisitorUtils.convertClassValues(this.classLoader, raw, classValuesAsString, nestedAttributesAsMap);
     }
 
     @Override
@@ -167,4 +142,25 @@ public class AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisito
         annotatedMethods.addAll(list);
         return annotatedMethods;
     }
+
+    /**
+     * 返回读取到的原始注解属性(类引用仍为ASM {@link Type}), 以注解类型名为键, 供元数据快照及序列化使用.
+     */
+    public Map<String, AnnotationAttributes> getAnnotationAttributesMap() {
+        return Collections.unmodifiableMap(this.attributeMap);
+    }
+
+    /**
+     * 返回注解类型到其元注解类型名集合的映射, 供元数据快照及序列化使用.
+     */
+    public Map<String, Set<String>> getMetaAnnotationMap() {
+        return Collections.unmodifiableMap(this.metaAnnotationMap);
+    }
+
+    /**
+     * 返回注解类型到带有该注解的方法元数据的映射, 供元数据快照及序列化使用.
+     */
+    public Map<String, List<MethodMetadata>> getMethodMetadataMap() {
+        return Collections.unmodifiableMap(this.methodMetadataMap);
+    }
 }
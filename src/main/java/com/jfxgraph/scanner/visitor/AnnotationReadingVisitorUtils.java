@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2012-2013,Epic-HUST Technology(Wuhan)Co.,Ltd. All Rights Reserved.
+ */
+package com.jfxgraph.scanner.visitor;
+
+import java.lang.reflect.Array;
+import java.util.Map;
+
+import com.jfxgraph.asm.Type;
+import com.jfxgraph.scanner.util.AnnotationAttributes;
+import com.jfxgraph.scanner.util.EnumValue;
+
+/**
+ * 注解元数据读取的内部工具类, 供注解访问器及元数据快照共用.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public abstract class AnnotationReadingVisitorUtils
+{
+    /**
+     * 将原始注解属性中的ASM {@link Type}/{@link Class}值转换为调用方需要的形式, {@link EnumValue}解析为枚举常量,
+     * 返回新的属性集合(不修改原始集合).
+     *
+     * @param classLoader
+     *            加载类引用时使用的类加载器
+     * @param original
+     *            原始注解属性, 可以为{@code null}
+     * @param classValuesAsString
+     *            是否将类引用转换为类名字符串
+     * @param nestedAttributesAsMap
+     *            是否以Map形式返回嵌套注解
+     * @return 转换后的注解属性, original为{@code null}时返回{@code null}
+     */
+    public static AnnotationAttributes convertClassValues(ClassLoader classLoader, AnnotationAttributes original, boolean classValuesAsString,
+            boolean nestedAttributesAsMap)
+    {
+        if (original == null)
+        {
+            return null;
+        }
+        AnnotationAttributes result = new AnnotationAttributes(original.size());
+        for (Map.Entry<String, Object> entry : original.entrySet())
+        {
+            try
+            {
+                Object value = entry.getValue();
+                if (value instanceof AnnotationAttributes)
+                {
+                    value = convertClassValues(classLoader, (AnnotationAttributes) value, classValuesAsString, nestedAttributesAsMap);
+                } else if (value instanceof AnnotationAttributes[])
+                {
+                    AnnotationAttributes[] values = ((AnnotationAttributes[]) value).clone();
+                    for (int i = 0; i < values.length; i++)
+                    {
+                        values[i] = convertClassValues(classLoader, values[i], classValuesAsString, nestedAttributesAsMap);
+                    }
+                    value = values;
+                } else if (value instanceof EnumValue)
+                {
+                    value = ((EnumValue) value).resolve(classLoader);
+                } else if (value instanceof EnumValue[])
+                {
+                    value = resolveEnumValues(classLoader, (EnumValue[]) value);
+                } else if (value instanceof Type)
+                {
+                    value = (classValuesAsString ? ((Type) value).getClassName() : classLoader.loadClass(((Type) value).getClassName()));
+                } else if (value instanceof Type[])
+                {
+                    Type[] array = (Type[]) value;
+                    Object[] convArray = (classValuesAsString ? new String[array.length] : new Class[array.length]);
+                    for (int i = 0; i < array.length; i++)
+                    {
+                        convArray[i] = (classValuesAsString ? array[i].getClassName() : classLoader.loadClass(array[i].getClassName()));
+                    }
+                    value = convArray;
+                } else if (classValuesAsString)
+                {
+                    if (value instanceof Class)
+                    {
+                        value = ((Class<?>) value).getName();
+                    } else if (value instanceof Class[])
+                    {
+                        Class<?>[] clazzArray = (Class[]) value;
+                        String[] newValue = new String[clazzArray.length];
+                        for (int i = 0; i < clazzArray.length; i++)
+                        {
+                            newValue[i] = clazzArray[i].getName();
+                        }
+                        value = newValue;
+                    }
+                }
+                result.put(entry.getKey(), value);
+            } catch (Exception ex)
+            {
+                // Class not found - can't resolve class reference in annotation
+                // attribute.
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 返回注解属性的深拷贝: 数组值和嵌套注解(包括嵌套注解数组)均复制, 用于将注解类型间共用的属性(例如缓存的默认值)交给单个类.
+     *
+     * @param attributes
+     *            注解属性
+     * @return 新的注解属性
+     */
+    public static AnnotationAttributes copyAttributes(AnnotationAttributes attributes)
+    {
+        AnnotationAttributes result = new AnnotationAttributes(attributes.size());
+        for (Map.Entry<String, Object> entry : attributes.entrySet())
+        {
+            result.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * 复制可变的注解属性值(数组及嵌套注解), 其他值原样返回.
+     */
+    static Object copyValue(Object value)
+    {
+        if (value instanceof AnnotationAttributes)
+        {
+            return copyAttributes((AnnotationAttributes) value);
+        }
+        if (value instanceof Object[])
+        {
+            Object[] array = ((Object[]) value).clone();
+            for (int i = 0; i < array.length; i++)
+            {
+                array[i] = copyValue(array[i]);
+            }
+            return array;
+        }
+        if (value != null && value.getClass().isArray())
+        {
+            int length = Array.getLength(value);
+            Object array = Array.newInstance(value.getClass().getComponentType(), length);
+            System.arraycopy(value, 0, array, 0, length);
+            return array;
+        }
+        return value;
+    }
+
+    /**
+     * 解析枚举值数组: 全部可以解析时返回枚举类型的数组, 否则返回常量名数组.
+     */
+    private static Object[] resolveEnumValues(ClassLoader classLoader, EnumValue[] values)
+    {
+        Object[] resolved = new Object[values.length];
+        Class<?> enumType = null;
+        for (int i = 0; i < values.length; i++)
+        {
+            resolved[i] = values[i].resolve(classLoader);
+            if (!(resolved[i] instanceof Enum))
+            {
+                String[] names = new String[values.length];
+                for (int j = 0; j < values.length; j++)
+                {
+                    names[j] = values[j].getConstantName();
+                }
+                return names;
+            }
+            enumType = ((Enum<?>) resolved[i]).getDeclaringClass();
+        }
+        if (enumType == null)
+        {
+            return resolved;
+        }
+        Object[] typed = (Object[]) Array.newInstance(enumType, resolved.length);
+        System.arraycopy(resolved, 0, typed, 0, resolved.length);
+        return typed;
+    }
+}
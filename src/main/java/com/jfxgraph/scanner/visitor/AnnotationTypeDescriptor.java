@@ -0,0 +1,133 @@
+package com.jfxgraph.scanner.visitor;
+
+import java.lang.annotation.Inherited;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.jfxgraph.scanner.util.AnnotationAttributes;
+
+/**
+ * 注解类型的描述: 属性默认值、元注解(及任意层级的元注解)、元注解属性以及是否{@link Inherited}. 同一注解类型在所有类上共用一份描述,
+ * 读取注解时无需再次解析注解类型.
+ *
+ * @author Albert
+ * @since 1.1
+ * @see AnnotationTypeIntrospector
+ */
+public final class AnnotationTypeDescriptor
+{
+    private final String annotationType;
+
+    private final AnnotationAttributes defaultValues;
+
+    private final Set<String> metaAnnotationTypes;
+
+    private final Map<String, AnnotationAttributes> metaAnnotationAttributes;
+
+    private final Set<String> transitiveMetaAnnotationTypes;
+
+    private final boolean inherited;
+
+    /**
+     * @param annotationType
+     *            注解类型名
+     * @param defaultValues
+     *            属性默认值
+     * @param metaAnnotationTypes
+     *            元注解类型名(注解类型上的注解, 以及这些注解上的注解)
+     * @param metaAnnotationAttributes
+     *            注解类型上直接声明的注解的属性, 以注解类型名为键
+     */
+    public AnnotationTypeDescriptor(String annotationType, AnnotationAttributes defaultValues, Set<String> metaAnnotationTypes,
+            Map<String, AnnotationAttributes> metaAnnotationAttributes)
+    {
+        this.annotationType = annotationType;
+        this.defaultValues = defaultValues;
+        this.metaAnnotationTypes = Collections.unmodifiableSet(new LinkedHashSet<String>(metaAnnotationTypes));
+        this.metaAnnotationAttributes = Collections.unmodifiableMap(new LinkedHashMap<String, AnnotationAttributes>(metaAnnotationAttributes));
+        this.transitiveMetaAnnotationTypes = this.metaAnnotationTypes;
+        this.inherited = metaAnnotationAttributes.containsKey(Inherited.class.getName());
+    }
+
+    private AnnotationTypeDescriptor(AnnotationTypeDescriptor original, Set<String> transitiveMetaAnnotationTypes)
+    {
+        this.annotationType = original.annotationType;
+        this.defaultValues = original.defaultValues;
+        this.metaAnnotationTypes = original.metaAnnotationTypes;
+        this.metaAnnotationAttributes = original.metaAnnotationAttributes;
+        this.transitiveMetaAnnotationTypes = Collections.unmodifiableSet(new LinkedHashSet<String>(transitiveMetaAnnotationTypes));
+        this.inherited = original.inherited;
+    }
+
+    /**
+     * 返回以给定集合作为任意层级元注解的副本.
+     *
+     * @param transitiveMetaAnnotationTypes
+     *            任意层级的元注解类型名
+     * @return AnnotationTypeDescriptor
+     */
+    public AnnotationTypeDescriptor withTransitiveMetaAnnotationTypes(Set<String> transitiveMetaAnnotationTypes)
+    {
+        return new AnnotationTypeDescriptor(this, transitiveMetaAnnotationTypes);
+    }
+
+    /**
+     * 返回注解类型名.
+     */
+    public String getAnnotationType()
+    {
+        return this.annotationType;
+    }
+
+    /**
+     * 将尚未出现在attributes中的默认值补充进去. 默认值由所有类共用, 数组和嵌套注解以副本放入, 修改某个类的属性不会影响其他类.
+     *
+     * @param attributes
+     *            读取到的注解属性
+     */
+    public void applyDefaultValues(AnnotationAttributes attributes)
+    {
+        for (Map.Entry<String, Object> entry : this.defaultValues.entrySet())
+        {
+            if (!attributes.containsKey(entry.getKey()))
+            {
+                attributes.put(entry.getKey(), AnnotationReadingVisitorUtils.copyValue(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * 返回元注解类型名.
+     */
+    public Set<String> getMetaAnnotationTypes()
+    {
+        return this.metaAnnotationTypes;
+    }
+
+    /**
+     * 返回注解类型上直接声明的注解的属性, 以注解类型名为键.
+     */
+    public Map<String, AnnotationAttributes> getMetaAnnotationAttributes()
+    {
+        return this.metaAnnotationAttributes;
+    }
+
+    /**
+     * 返回任意层级的元注解类型名; 未经{@link CachingAnnotationTypeIntrospector}解析时与{@link #getMetaAnnotationTypes()}相同.
+     */
+    public Set<String> getTransitiveMetaAnnotationTypes()
+    {
+        return this.transitiveMetaAnnotationTypes;
+    }
+
+    /**
+     * 返回注解类型是否标注了{@link Inherited}.
+     */
+    public boolean isInherited()
+    {
+        return this.inherited;
+    }
+}
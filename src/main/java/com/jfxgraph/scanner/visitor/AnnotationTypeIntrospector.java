@@ -0,0 +1,37 @@
+package com.jfxgraph.scanner.visitor;
+
+/**
+ * 注解访问器解析注解类型及枚举值的策略: 基于反射(加载注解类型)或直接读取注解类型的类文件.
+ *
+ * @author Albert
+ * @since 1.1
+ * @see ReflectionAnnotationTypeIntrospector
+ * @see BytecodeAnnotationTypeIntrospector
+ */
+public interface AnnotationTypeIntrospector
+{
+    /**
+     * 返回转换注解属性中的类引用时使用的类加载器.
+     */
+    ClassLoader getClassLoader();
+
+    /**
+     * 返回注解类型的描述.
+     *
+     * @param annotationType
+     *            注解类型名
+     * @return 注解类型的描述, 无法解析时返回{@code null}
+     */
+    AnnotationTypeDescriptor getDescriptor(String annotationType);
+
+    /**
+     * 返回枚举类型注解属性的值.
+     *
+     * @param asmTypeDescriptor
+     *            枚举类型的ASM描述符
+     * @param constantName
+     *            枚举常量名
+     * @return 枚举常量, {@link com.jfxgraph.scanner.util.EnumValue}或常量名
+     */
+    Object resolveEnumValue(String asmTypeDescriptor, String constantName);
+}
@@ -0,0 +1,252 @@
+package com.jfxgraph.scanner.visitor;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jfxgraph.asm.AnnotationVisitor;
+import com.jfxgraph.asm.ClassReader;
+import com.jfxgraph.asm.ClassVisitor;
+import com.jfxgraph.asm.MethodVisitor;
+import com.jfxgraph.asm.Opcodes;
+import com.jfxgraph.asm.Type;
+import com.jfxgraph.scanner.io.Resource;
+import com.jfxgraph.scanner.io.loader.ResourceLoader;
+import com.jfxgraph.scanner.reader.ClassReaderUtils;
+import com.jfxgraph.scanner.util.AnnotationAttributes;
+import com.jfxgraph.scanner.util.ClassUtils;
+import com.jfxgraph.scanner.util.EnumValue;
+
+/**
+ * 不加载类的{@link AnnotationTypeIntrospector}: 属性默认值和元注解通过ASM读取注解类型自身的类文件得到(每个类文件只读取一次),
+ * 枚举值保存为{@link EnumValue}, 在读取注解属性时才解析. 因此扫描过程不会加载任何应用类.
+ * <p>
+ * JDK自带的类型({@code java.}开头)由引导类加载器提供且其类文件版本可能高于ASM支持的版本, 仍通过反射解析.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class BytecodeAnnotationTypeIntrospector implements AnnotationTypeIntrospector
+{
+    private static final Logger logger = LoggerFactory.getLogger(BytecodeAnnotationTypeIntrospector.class);
+
+    private static final AnnotationTypeHeader MISSING = new AnnotationTypeHeader();
+
+    private final ResourceLoader resourceLoader;
+
+    private final ReflectionAnnotationTypeIntrospector jdkIntrospector;
+
+    private final Map<String, AnnotationTypeHeader> headerCache = new ConcurrentHashMap<String, AnnotationTypeHeader>();
+
+    // 当前线程正在读取的注解类型, 防止注解类型通过自身注解相互引用时无限递归.
+    private final ThreadLocal<Set<String>> typesCurrentlyInRead = new ThreadLocal<Set<String>>()
+    {
+        @Override
+        protected Set<String> initialValue()
+        {
+            return new HashSet<String>();
+        }
+    };
+
+    /**
+     * @param resourceLoader
+     *            用于定位注解类型类文件的资源加载器, 其类加载器也用于之后转换注解属性中的类引用
+     */
+    public BytecodeAnnotationTypeIntrospector(ResourceLoader resourceLoader)
+    {
+        this.resourceLoader = resourceLoader;
+        this.jdkIntrospector = new ReflectionAnnotationTypeIntrospector(resourceLoader.getClassLoader());
+    }
+
+    @Override
+    public ClassLoader getClassLoader()
+    {
+        return this.resourceLoader.getClassLoader();
+    }
+
+    @Override
+    public AnnotationTypeDescriptor getDescriptor(String annotationType)
+    {
+        if (isJdkType(annotationType))
+        {
+            return this.jdkIntrospector.getDescriptor(annotationType);
+        }
+        AnnotationTypeHeader header = getHeader(annotationType);
+        if (header == null)
+        {
+            return null;
+        }
+        Set<String> metaAnnotationTypes = new LinkedHashSet<String>();
+        for (String metaAnnotationType : header.annotations.keySet())
+        {
+            metaAnnotationTypes.add(metaAnnotationType);
+            metaAnnotationTypes.addAll(getDirectAnnotationTypes(metaAnnotationType));
+        }
+        return new AnnotationTypeDescriptor(annotationType, header.defaultValues, metaAnnotationTypes, header.annotations);
+    }
+
+    @Override
+    public Object resolveEnumValue(String asmTypeDescriptor, String constantName)
+    {
+        String enumType = Type.getType(asmTypeDescriptor).getClassName();
+        if (isJdkType(enumType))
+        {
+            return this.jdkIntrospector.resolveEnumValue(asmTypeDescriptor, constantName);
+        }
+        return new EnumValue(enumType, constantName);
+    }
+
+    private Set<String> getDirectAnnotationTypes(String annotationType)
+    {
+        if (isJdkType(annotationType))
+        {
+            AnnotationTypeDescriptor descriptor = this.jdkIntrospector.getDescriptor(annotationType);
+            return (descriptor != null ? descriptor.getMetaAnnotationAttributes().keySet() : Collections.<String> emptySet());
+        }
+        AnnotationTypeHeader header = getHeader(annotationType);
+        return (header != null ? header.annotations.keySet() : Collections.<String> emptySet());
+    }
+
+    /**
+     * 读取注解类型的类文件, 无法读取时返回{@code null}.
+     */
+    private AnnotationTypeHeader getHeader(String annotationType)
+    {
+        AnnotationTypeHeader header = this.headerCache.get(annotationType);
+        if (header != null)
+        {
+            return (header != MISSING ? header : null);
+        }
+        Set<String> currentTypes = this.typesCurrentlyInRead.get();
+        if (!currentTypes.add(annotationType))
+        {
+            return null;
+        }
+        try
+        {
+            header = readHeader(annotationType);
+        } finally
+        {
+            currentTypes.remove(annotationType);
+        }
+        this.headerCache.put(annotationType, (header != null ? header : MISSING));
+        return header;
+    }
+
+    private AnnotationTypeHeader readHeader(String annotationType)
+    {
+        String location = ResourceLoader.CLASSPATH_URL_PREFIX + ClassUtils.convertClassNameToResourcePath(annotationType) + ClassUtils.CLASS_FILE_SUFFIX;
+        Resource resource = this.resourceLoader.getResource(location);
+        try
+        {
+            ClassReader classReader = ClassReaderUtils.readClass(resource);
+            AnnotationTypeHeader header = new AnnotationTypeHeader();
+            classReader.accept(new AnnotationTypeReadingVisitor(header), ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            return header;
+        } catch (IOException ex)
+        {
+            logger.debug("Failed to read class file of annotation type [" + annotationType + "]. This is a non-fatal error, "
+                    + "but certain annotation metadata may be unavailable.", ex);
+        } catch (IllegalArgumentException ex)
+        {
+            logger.debug("ASM ClassReader failed to parse class file of annotation type [" + annotationType + "]", ex);
+        }
+        return null;
+    }
+
+    private static boolean isJdkType(String className)
+    {
+        return className.startsWith("java.");
+    }
+
+    /**
+     * 注解类型类文件中读取到的信息: 属性默认值及类上的(运行时可见)注解.
+     */
+    private static final class AnnotationTypeHeader
+    {
+        final AnnotationAttributes defaultValues = new AnnotationAttributes();
+
+        final Map<String, AnnotationAttributes> annotations = new LinkedHashMap<String, AnnotationAttributes>(4);
+    }
+
+    /**
+     * 读取注解类型的类级注解及各属性方法的AnnotationDefault.
+     */
+    private final class AnnotationTypeReadingVisitor extends ClassVisitor
+    {
+        private final AnnotationTypeHeader header;
+
+        AnnotationTypeReadingVisitor(AnnotationTypeHeader header)
+        {
+            super(Opcodes.ASM4);
+            this.header = header;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String desc, boolean visible)
+        {
+            if (!visible)
+            {
+                // 与反射一致, 只考虑运行时可见的注解
+                return null;
+            }
+            String annotationType = Type.getType(desc).getClassName();
+            AnnotationAttributes attributes = new AnnotationAttributes();
+            this.header.annotations.put(annotationType, attributes);
+            return new RecursiveAnnotationAttributesVisitor(annotationType, attributes, BytecodeAnnotationTypeIntrospector.this);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, final String name, String desc, String signature, String[] exceptions)
+        {
+            return new MethodVisitor(Opcodes.ASM4)
+            {
+                @Override
+                public AnnotationVisitor visitAnnotationDefault()
+                {
+                    return new DefaultValueVisitor(name, header.defaultValues);
+                }
+            };
+        }
+    }
+
+    /**
+     * 读取属性默认值: ASM以{@code null}作为默认值的属性名, 这里换成属性方法名.
+     */
+    private final class DefaultValueVisitor extends AbstractRecursiveAnnotationVisitor
+    {
+        private final String attributeName;
+
+        DefaultValueVisitor(String attributeName, AnnotationAttributes defaultValues)
+        {
+            super(BytecodeAnnotationTypeIntrospector.this, defaultValues);
+            this.attributeName = attributeName;
+        }
+
+        @Override
+        public void visit(String name, Object value)
+        {
+            super.visit(this.attributeName, value);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String asmTypeDescriptor)
+        {
+            return super.visitAnnotation(this.attributeName, asmTypeDescriptor);
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name)
+        {
+            return super.visitArray(this.attributeName);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.jfxgraph.scanner.visitor;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jfxgraph.scanner.util.AnnotationAttributes;
+import com.jfxgraph.scanner.util.Assert;
+
+/**
+ * 按注解类型缓存{@link AnnotationTypeDescriptor}的{@link AnnotationTypeIntrospector}装饰器(线程安全), 供同一
+ * {@link com.jfxgraph.scanner.reader.MetadataReaderFactory}读取的所有类共用: 每个注解类型的默认值和元注解只解析一次,
+ * 并在首次解析时补充任意层级的元注解.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class CachingAnnotationTypeIntrospector implements AnnotationTypeIntrospector
+{
+    // 无法解析的注解类型, 同样缓存以免重复查找
+    private static final AnnotationTypeDescriptor UNRESOLVABLE = new AnnotationTypeDescriptor("", new AnnotationAttributes(0),
+            Collections.<String> emptySet(), Collections.<String, AnnotationAttributes> emptyMap());
+
+    private final AnnotationTypeIntrospector targetIntrospector;
+
+    private final Map<String, AnnotationTypeDescriptor> descriptorCache = new ConcurrentHashMap<String, AnnotationTypeDescriptor>(64);
+
+    // 未补充任意层级元注解的描述, 仅用于遍历元注解
+    private final Map<String, AnnotationTypeDescriptor> targetDescriptorCache = new ConcurrentHashMap<String, AnnotationTypeDescriptor>(64);
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param targetIntrospector
+     *            实际解析注解类型的introspector
+     */
+    public CachingAnnotationTypeIntrospector(AnnotationTypeIntrospector targetIntrospector)
+    {
+        Assert.notNull(targetIntrospector, "Target introspector must not be null");
+        this.targetIntrospector = targetIntrospector;
+    }
+
+    /**
+     * 返回实际解析注解类型的introspector.
+     */
+    public final AnnotationTypeIntrospector getTargetIntrospector()
+    {
+        return this.targetIntrospector;
+    }
+
+    @Override
+    public ClassLoader getClassLoader()
+    {
+        return this.targetIntrospector.getClassLoader();
+    }
+
+    @Override
+    public AnnotationTypeDescriptor getDescriptor(String annotationType)
+    {
+        AnnotationTypeDescriptor descriptor = this.descriptorCache.get(annotationType);
+        if (descriptor != null)
+        {
+            this.hitCount.incrementAndGet();
+            return (descriptor != UNRESOLVABLE ? descriptor : null);
+        }
+        this.missCount.incrementAndGet();
+        descriptor = getTargetDescriptor(annotationType);
+        if (descriptor != null)
+        {
+            descriptor = descriptor.withTransitiveMetaAnnotationTypes(collectTransitiveMetaAnnotationTypes(descriptor));
+        }
+        this.descriptorCache.put(annotationType, (descriptor != null ? descriptor : UNRESOLVABLE));
+        return descriptor;
+    }
+
+    @Override
+    public Object resolveEnumValue(String asmTypeDescriptor, String constantName)
+    {
+        return this.targetIntrospector.resolveEnumValue(asmTypeDescriptor, constantName);
+    }
+
+    /**
+     * 返回缓存命中次数.
+     */
+    public long getHitCount()
+    {
+        return this.hitCount.get();
+    }
+
+    /**
+     * 返回缓存未命中(即实际解析注解类型)的次数.
+     */
+    public long getMissCount()
+    {
+        return this.missCount.get();
+    }
+
+    /**
+     * 返回已缓存的注解类型数.
+     */
+    public int getCacheSize()
+    {
+        return this.descriptorCache.size();
+    }
+
+    /**
+     * 清空缓存(不重置计数).
+     */
+    public void clearCache()
+    {
+        this.descriptorCache.clear();
+        this.targetDescriptorCache.clear();
+    }
+
+    private AnnotationTypeDescriptor getTargetDescriptor(String annotationType)
+    {
+        AnnotationTypeDescriptor descriptor = this.targetDescriptorCache.get(annotationType);
+        if (descriptor == null)
+        {
+            descriptor = this.targetIntrospector.getDescriptor(annotationType);
+            this.targetDescriptorCache.put(annotationType, (descriptor != null ? descriptor : UNRESOLVABLE));
+        }
+        return (descriptor != UNRESOLVABLE ? descriptor : null);
+    }
+
+    /**
+     * 沿注解类型上的注解逐层展开, 收集任意层级的元注解(元注解可能相互引用, 例如{@link java.lang.annotation.Documented}).
+     */
+    private Set<String> collectTransitiveMetaAnnotationTypes(AnnotationTypeDescriptor descriptor)
+    {
+        Set<String> result = new LinkedHashSet<String>(descriptor.getMetaAnnotationTypes());
+        Set<String> visited = new HashSet<String>();
+        visited.add(descriptor.getAnnotationType());
+        Deque<String> queue = new ArrayDeque<String>(descriptor.getMetaAnnotationAttributes().keySet());
+        while (!queue.isEmpty())
+        {
+            String metaAnnotationType = queue.poll();
+            if (!visited.add(metaAnnotationType))
+            {
+                continue;
+            }
+            result.add(metaAnnotationType);
+            AnnotationTypeDescriptor metaDescriptor = getTargetDescriptor(metaAnnotationType);
+            if (metaDescriptor != null)
+            {
+                queue.addAll(metaDescriptor.getMetaAnnotationAttributes().keySet());
+            }
+        }
+        return result;
+    }
+}
@@ -44,6 +44,9 @@ import com.jfxgraph.scanner.util.ClassUtils;
 public class ClassMetadataReadingVisitor extends ClassVisitor implements ClassMetadata {
     private String className;
 
+    // 类自身的内部名, 用于在内部类属性中识别自身而不经过类名池转换
+    private String internalName;
+
     private boolean isInterface;
 
     private boolean isAbstract;
@@ -60,37 +63,48 @@ public class ClassMetadataReadingVisitor extends ClassVisitor implements ClassMe
 
     private Set<String> memberClassNames = new LinkedHashSet<String>();
 
+    private final ClassNamePool classNamePool;
+
     public ClassMetadataReadingVisitor() {
+        this(null);
+    }
+
+    /**
+     * 使用给定的类名池转换类名, 为{@code null}时每次都创建新的字符串.
+     */
+    public ClassMetadataReadingVisitor(ClassNamePool classNamePool) {
         super(Opcodes.ASM4);
+        this.classNamePool = classNamePool;
     }
 
     @Override
     public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
-        this.className = ClassUtils.convertResourcePathToClassName(name);
+        this.internalName = name;
+        this.className = (this.classNamePool != null ? this.classNamePool.declaredClassName(name) : ClassUtils.convertResourcePathToClassName(name));
         this.isInterface = ((access & Opcodes.ACC_INTERFACE) != 0);
         this.isAbstract = ((access & Opcodes.ACC_ABSTRACT) != 0);
         this.isFinal = ((access & Opcodes.ACC_FINAL) != 0);
         if (superName != null) {
-            this.superClassName = ClassUtils.convertResourcePathToClassName(superName);
+            this.superClassName = toClassName(superName);
         }
         this.interfaces = new String[interfaces.length];
         for (int i = 0; i < interfaces.length; i++) {
-            this.interfaces[i] = ClassUtils.convertResourcePathToClassName(interfaces[i]);
+            this.interfaces[i] = toClassName(interfaces[i]);
         }
     }
 
     @Override
     public void visitOuterClass(String owner, String name, String desc) {
         // super.visitOuterClass(owner, name, desc);
-        this.enclosingClassName = ClassUtils.convertResourcePathToClassName(owner);
+        this.enclosingClassName = toClassName(owner);
     }
 
     @Override
     public void visitInnerClass(String name, String outerName, String innerName, int access) {
         // super.visitInnerClass(name, outerName, innerName, access);
         if (outerName != null) {
-            String fqName = ClassUtils.convertResourcePathToClassName(name);
-            String fqOuterName = ClassUtils.convertResourcePathToClassName(outerName);
+            String fqName = (name.equals(this.internalName) ? this.className : toClassName(name));
+            String fqOuterName = toClassName(outerName);
             if (this.className.equals(fqName)) {
                 this.enclosingClassName = fqOuterName;
                 this.independentInnerClass = ((access & Opcodes.ACC_STATIC) != 0);
@@ -133,6 +147,17 @@ public class ClassMetadataReadingVisitor extends ClassVisitor implements ClassMe
         // no-op
     }
 
+    /**
+     * 返回使用的类名池, 可能为{@code null}.
+     */
+    protected final ClassNamePool getClassNamePool() {
+        return this.classNamePool;
+    }
+
+    private String toClassName(String internalName) {
+        return (this.classNamePool != null ? this.classNamePool.className(internalName) : ClassUtils.convertResourcePathToClassName(internalName));
+    }
+
     @Override
     public String getClassName() {
         return this.className;
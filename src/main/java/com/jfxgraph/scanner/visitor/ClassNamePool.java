@@ -0,0 +1,157 @@
+package com.jfxgraph.scanner.visitor;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.jfxgraph.asm.Type;
+import com.jfxgraph.scanner.util.ClassUtils;
+
+/**
+ * 一次扫描范围内共用的类名池(线程安全): 将类名、注解类型名等字符串规范化为同一个实例.
+ * <p>
+ * 同一个类名(例如java.lang.Object、常用的注解类型、公共接口)会出现在成千上万个类文件中; 每个访问器都各自转换时, 缓存中的元数据会为每次出现保存一个新的字符串.
+ * 通过本池转换后, 所有元数据引用同一个实例, 占用的内存只与不同名字的个数有关. 内部名和类型描述符到类名的转换结果也会缓存, 重复出现时不再创建新的字符串.
+ * <p>
+ * 池只增不减, {@link com.jfxgraph.scanner.ClassPathAnnotationScanner}在每次扫描结束后将其{@link #clear() 清空}, 占用的内存只与一次扫描中不同名字的个数有关;
+ * 缓存中已有的元数据仍引用清空前的实例. 被读取的类自身的名字只出现在一个类文件中, 其内部名不缓存(见{@link #declaredClassName}).
+ *
+ * @author Albert
+ * @since 1.1
+ * @see com.jfxgraph.scanner.reader.SimpleMetadataReaderFactory#getClassNamePool()
+ */
+public class ClassNamePool
+{
+    private final ConcurrentMap<String, String> names = new ConcurrentHashMap<String, String>(256);
+
+    // 内部名(例如"java/lang/Object") -> 类名
+    private final ConcurrentMap<String, String> internalNames = new ConcurrentHashMap<String, String>(256);
+
+    // 类型描述符(例如"Ljava/lang/Deprecated;") -> 类名
+    private final ConcurrentMap<String, String> descriptors = new ConcurrentHashMap<String, String>(64);
+
+    private final ConcurrentMap<Set<String>, Set<String>> nameSets = new ConcurrentHashMap<Set<String>, Set<String>>(64);
+
+    /**
+     * 返回与给定字符串相等的规范实例.
+     *
+     * @param name
+     *            字符串, 可以为{@code null}
+     * @return 规范实例, name为{@code null}时返回{@code null}
+     */
+    public String canonicalName(String name)
+    {
+        if (name == null)
+        {
+            return null;
+        }
+        String existing = this.names.putIfAbsent(name, name);
+        return (existing != null ? existing : name);
+    }
+
+    /**
+     * 将内部名(以"/"分隔)转换为规范的类名.
+     *
+     * @param internalName
+     *            内部名, 可以为{@code null}
+     * @return 规范的类名, internalName为{@code null}时返回{@code null}
+     */
+    public String className(String internalName)
+    {
+        if (internalName == null)
+        {
+            return null;
+        }
+        String className = this.internalNames.get(internalName);
+        if (className == null)
+        {
+            className = canonicalName(ClassUtils.convertResourcePathToClassName(internalName));
+            this.internalNames.putIfAbsent(internalName, className);
+        }
+        return className;
+    }
+
+    /**
+     * 将被读取的类自身的内部名转换为规范的类名. 与{@link #className}不同, 不缓存内部名到类名的映射:
+     * 每个类的名字只在自身的类文件中声明一次, 缓存它只会让映射随扫描过的类数增长.
+     *
+     * @param internalName
+     *            内部名
+     * @return 规范的类名
+     */
+    public String declaredClassName(String internalName)
+    {
+        String className = this.internalNames.get(internalName);
+        return (className != null ? className : canonicalName(ClassUtils.convertResourcePathToClassName(internalName)));
+    }
+
+    /**
+     * 将类型描述符转换为规范的类名, 结果与{@code Type.getType(descriptor).getClassName()}相同.
+     *
+     * @param descriptor
+     *            类型描述符
+     * @return 规范的类名
+     */
+    public String typeName(String descriptor)
+    {
+        String className = this.descriptors.get(descriptor);
+        if (className == null)
+        {
+            className = canonicalName(Type.getType(descriptor).getClassName());
+            this.descriptors.putIfAbsent(descriptor, className);
+        }
+        return className;
+    }
+
+    /**
+     * 返回与给定集合相等的规范只读集合, 相等的名字集合(例如同一注解类型的元注解)只保存一份, 元素顺序取第一次加入时的顺序.
+     *
+     * @param names
+     *            名字集合
+     * @return 规范的只读集合
+     */
+    public Set<String> nameSet(Set<String> names)
+    {
+        if (names.isEmpty())
+        {
+            return Collections.emptySet();
+        }
+        Set<String> nameSet = this.nameSets.get(names);
+        if (nameSet == null)
+        {
+            Set<String> canonical = new LinkedHashSet<String>(names.size() * 4 / 3 + 1);
+            for (String name : names)
+            {
+                canonical.add(canonicalName(name));
+            }
+            nameSet = Collections.unmodifiableSet(canonical);
+            Set<String> existing = this.nameSets.putIfAbsent(nameSet, nameSet);
+            if (existing != null)
+            {
+                nameSet = existing;
+            }
+        }
+        return nameSet;
+    }
+
+    /**
+     * 返回池中不同名字的个数.
+     */
+    public int size()
+    {
+        return this.names.size();
+    }
+
+    /**
+     * 清空池.
+     */
+    public void clear()
+    {
+        this.nameSets.clear();
+        this.descriptors.clear();
+        this.internalNames.clear();
+        this.names.clear();
+    }
+}
@@ -3,6 +3,7 @@
  */
 package com.jfxgraph.scanner.visitor;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -30,27 +31,43 @@ public final class MethodMetadataReadingVisitor extends MethodVisitor implements
 
     private String declaringClassName;
 
-    private final ClassLoader classLoader;
+    private final AnnotationTypeIntrospector introspector;
 
     private final MultiValueMap<String, MethodMetadata> methodMetadataMap;
 
     private final Map<String, AnnotationAttributes> attributeMap = new LinkedHashMap<String, AnnotationAttributes>(2);
 
+    private final ClassNamePool classNamePool;
+
     public MethodMetadataReadingVisitor(String name, int access, String declaringClassName, ClassLoader classLoader,
             MultiValueMap<String, MethodMetadata> methodMetadataMap) {
+        this(name, access, declaringClassName, new ReflectionAnnotationTypeIntrospector(classLoader), methodMetadataMap);
+    }
+
+    public MethodMetadataReadingVisitor(String name, int access, String declaringClassName, AnnotationTypeIntrospector introspector,
+            MultiValueMap<String, MethodMetadata> methodMetadataMap) {
+        this(name, access, declaringClassName, introspector, methodMetadataMap, null);
+    }
+
+    /**
+     * 注解类型名通过给定的类名池转换, 为{@code null}时每次都创建新的字符串.
+     */
+    public MethodMetadataReadingVisitor(String name, int access, String declaringClassName, AnnotationTypeIntrospector introspector,
+            MultiValueMap<String, MethodMetadata> methodMetadataMap, ClassNamePool classNamePool) {
         super(Opcodes.ASM4);
         this.name = name;
         this.access = access;
         this.declaringClassName = declaringClassName;
-        this.classLoader = classLoader;
+        this.introspector = introspector;
         this.methodMetadataMap = methodMetadataMap;
+        this.classNamePool = classNamePool;
     }
 
     @Override
     public AnnotationVisitor visitAnnotation(final String desc, boolean visible) {
-        String className = Type.getType(desc).getClassName();
+        String className = (this.classNamePool != null ? this.classNamePool.typeName(desc) : Type.getType(desc).getClassName());
         methodMetadataMap.add(className, this);
-        return new AnnotationAttributesReadingVisitor(className, this.attributeMap, null, this.classLoader);
+        return new AnnotationAttributesReadingVisitor(className, this.attributeMap, null, this.introspector);
     }
 
     public String getMethodName() {
@@ -81,4 +98,18 @@ public final class MethodMetadataReadingVisitor extends MethodVisitor implements
         return this.declaringClassName;
     }
 
+    /**
+     * 返回方法的访问标识(see {@link Opcodes}).
+     */
+    public int getAccess() {
+        return this.access;
+    }
+
+    /**
+     * 返回读取到的原始注解属性, 以注解类型名为键, 供元数据快照及序列化使用.
+     */
+    public Map<String, AnnotationAttributes> getAnnotationAttributesMap() {
+        return Collections.unmodifiableMap(this.attributeMap);
+    }
+
 }
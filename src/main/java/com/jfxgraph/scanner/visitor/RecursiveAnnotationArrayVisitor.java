@@ -22,6 +22,12 @@ public final class RecursiveAnnotationArrayVisitor extends AbstractRecursiveAnno
         this.attributeName = attributeName;
     }
 
+    public RecursiveAnnotationArrayVisitor(
+            String attributeName, AnnotationAttributes attributes, AnnotationTypeIntrospector introspector) {
+        super(introspector, attributes);
+        this.attributeName = attributeName;
+    }
+
     @Override
     public void visit(String attributeName, Object attributeValue) {
         Object newValue = attributeValue;
@@ -30,7 +36,14 @@ public final class RecursiveAnnotationArrayVisitor extends AbstractRecursiveAnno
             newValue = ObjectUtils.addObjectToArray((Object[]) existingValue, newValue);
         }
         else {
-            Object[] newArray = (Object[]) Array.newInstance(newValue.getClass(), 1);
+            Class<?> arrayClass = newValue.getClass();
+            if (Enum.class.isAssignableFrom(arrayClass)) {
+                // enum constants with a body are anonymous subclasses of the enum type
+                while (arrayClass.getSuperclass() != null && !arrayClass.isEnum()) {
+                    arrayClass = arrayClass.getSuperclass();
+                }
+            }
+            Object[] newArray = (Object[]) Array.newInstance(arrayClass, 1);
             newArray[0] = newValue;
             newValue = newArray;
         }
@@ -42,7 +55,7 @@ public final class RecursiveAnnotationArrayVisitor extends AbstractRecursiveAnno
         String annotationType = Type.getType(asmTypeDescriptor).getClassName();
         AnnotationAttributes nestedAttributes = new AnnotationAttributes();
         this.allNestedAttributes.add(nestedAttributes);
-        return new RecursiveAnnotationAttributesVisitor(annotationType, nestedAttributes, this.classLoader);
+        return new RecursiveAnnotationAttributesVisitor(annotationType, nestedAttributes, this.introspector);
     }
 
     public void visitEnd() {
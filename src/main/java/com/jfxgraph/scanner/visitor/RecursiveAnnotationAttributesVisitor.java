@@ -1,13 +1,26 @@
 package com.jfxgraph.scanner.visitor;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Method;
-
 import com.jfxgraph.scanner.util.AnnotationAttributes;
-import com.jfxgraph.scanner.util.AnnotationUtils;
 
 public class RecursiveAnnotationAttributesVisitor extends AbstractRecursiveAnnotationVisitor {
 
+    // 访问器类(或其父类, 直到本类)是否覆盖了已过时的doVisitEnd(Class), 每个类只检查一次
+    private static final ClassValue<Boolean> classHookOverridden = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> visitorClass) {
+            for (Class<?> type = visitorClass; type != RecursiveAnnotationAttributesVisitor.class; type = type.getSuperclass()) {
+                try {
+                    type.getDeclaredMethod("doVisitEnd", Class.class);
+                    return Boolean.TRUE;
+                }
+                catch (NoSuchMethodException ex) {
+                    // check the superclass
+                }
+            }
+            return Boolean.FALSE;
+        }
+    };
+
     private final String annotationType;
 
 
@@ -17,45 +30,53 @@ public class RecursiveAnnotationAttributesVisitor extends AbstractRecursiveAnnot
         this.annotationType = annotationType;
     }
 
+    public RecursiveAnnotationAttributesVisitor(
+            String annotationType, AnnotationAttributes attributes, AnnotationTypeIntrospector introspector) {
+        super(introspector, attributes);
+        this.annotationType = annotationType;
+    }
+
 
     public final void visitEnd() {
-        try {
-            Class<?> annotationClass = this.classLoader.loadClass(this.annotationType);
-            this.doVisitEnd(annotationClass);
-        }
-        catch (ClassNotFoundException ex) {
-            this.logger.debug("Failed to classload type while reading annotation " +
-                    "metadata. This is a non-fatal error, but certain annotation " +
-                    "metadata may be unavailable.", ex);
+        AnnotationTypeDescriptor descriptor = this.introspector.getDescriptor(this.annotationType);
+        if (descriptor != null) {
+            this.doVisitEnd(descriptor);
+            if (classHookOverridden.get(getClass()) && isReflective(this.introspector)) {
+                try {
+                    this.doVisitEnd(this.classLoader.loadClass(this.annotationType));
+                }
+                catch (ClassNotFoundException ex) {
+                    this.logger.debug("Failed to classload type while reading annotation " +
+                            "metadata. This is a non-fatal error, but certain annotation " +
+                            "metadata may be unavailable.", ex);
+                }
+            }
         }
     }
 
+    /**
+     * 读取完注解后调用, 将注解类型中声明的属性默认值补充到读取到的属性中. 子类可以覆盖以进一步处理属性.
+     * 
+     * @since 1.1
+     */
+    protected void doVisitEnd(AnnotationTypeDescriptor descriptor) {
+        descriptor.applyDefaultValues(this.attributes);
+    }
+
+    /**
+     * 基于反射读取注解类型时, 在{@link #doVisitEnd(AnnotationTypeDescriptor)}之后以加载的注解类型调用; 直接读取注解类型的类文件时不调用.
+     * 属性默认值此时已经补充, 默认实现不做任何事.
+     * 
+     * @deprecated 覆盖{@link #doVisitEnd(AnnotationTypeDescriptor)}代替, 它在两种读取方式下都会被调用
+     */
+    @Deprecated
     protected void doVisitEnd(Class<?> annotationClass) {
-        registerDefaultValues(annotationClass);
     }
 
-    private void registerDefaultValues(Class<?> annotationClass) {
-        // Check declared default values of attributes in the annotation type.
-        Method[] annotationAttributes = annotationClass.getMethods();
-        for (Method annotationAttribute : annotationAttributes) {
-            String attributeName = annotationAttribute.getName();
-            Object defaultValue = annotationAttribute.getDefaultValue();
-            if (defaultValue != null && !this.attributes.containsKey(attributeName)) {
-                if (defaultValue instanceof Annotation) {
-                    defaultValue = AnnotationAttributes.fromMap(
-                            AnnotationUtils.getAnnotationAttributes((Annotation)defaultValue, false, true));
-                }
-                else if (defaultValue instanceof Annotation[]) {
-                    Annotation[] realAnnotations = (Annotation[]) defaultValue;
-                    AnnotationAttributes[] mappedAnnotations = new AnnotationAttributes[realAnnotations.length];
-                    for (int i = 0; i < realAnnotations.length; i++) {
-                        mappedAnnotations[i] = AnnotationAttributes.fromMap(
-                                AnnotationUtils.getAnnotationAttributes(realAnnotations[i], false, true));
-                    }
-                    defaultValue = mappedAnnotations;
-                }
-                this.attributes.put(attributeName, defaultValue);
-            }
+    private static boolean isReflective(AnnotationTypeIntrospector introspector) {
+        if (introspector instanceof CachingAnnotationTypeIntrospector) {
+            introspector = ((CachingAnnotationTypeIntrospector) introspector).getTargetIntrospector();
         }
+        return (introspector instanceof ReflectionAnnotationTypeIntrospector);
     }
 }
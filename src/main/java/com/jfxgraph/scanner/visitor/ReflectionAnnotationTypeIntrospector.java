@@ -0,0 +1,132 @@
+package com.jfxgraph.scanner.visitor;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jfxgraph.asm.Type;
+import com.jfxgraph.scanner.util.AnnotationAttributes;
+import com.jfxgraph.scanner.util.AnnotationUtils;
+import com.jfxgraph.scanner.util.ReflectionUtils;
+
+/**
+ * 基于反射的{@link AnnotationTypeIntrospector}: 加载注解类型及枚举类型, 通过反射读取默认值和元注解.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class ReflectionAnnotationTypeIntrospector implements AnnotationTypeIntrospector
+{
+    private static final Logger logger = LoggerFactory.getLogger(ReflectionAnnotationTypeIntrospector.class);
+
+    private final ClassLoader classLoader;
+
+    public ReflectionAnnotationTypeIntrospector(ClassLoader classLoader)
+    {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public ClassLoader getClassLoader()
+    {
+        return this.classLoader;
+    }
+
+    @Override
+    public AnnotationTypeDescriptor getDescriptor(String annotationType)
+    {
+        Class<?> annotationClass;
+        try
+        {
+            annotationClass = this.classLoader.loadClass(annotationType);
+        } catch (ClassNotFoundException ex)
+        {
+            logger.debug("Failed to classload type while reading annotation metadata. "
+                    + "This is a non-fatal error, but certain annotation metadata may be unavailable.", ex);
+            return null;
+        }
+        return new AnnotationTypeDescriptor(annotationType, getDefaultValues(annotationClass), getMetaAnnotationTypes(annotationClass),
+                getMetaAnnotationAttributes(annotationClass));
+    }
+
+    @Override
+    public Object resolveEnumValue(String asmTypeDescriptor, String constantName)
+    {
+        try
+        {
+            Class<?> enumType = this.classLoader.loadClass(Type.getType(asmTypeDescriptor).getClassName());
+            Field enumConstant = ReflectionUtils.findField(enumType, constantName);
+            if (enumConstant != null)
+            {
+                return enumConstant.get(null);
+            }
+        } catch (ClassNotFoundException ex)
+        {
+            logger.debug("Failed to classload enum type while reading annotation metadata", ex);
+        } catch (IllegalAccessException ex)
+        {
+            logger.warn("Could not access enum value while reading annotation metadata", ex);
+        }
+        return constantName;
+    }
+
+    static AnnotationAttributes getDefaultValues(Class<?> annotationClass)
+    {
+        // Check declared default values of attributes in the annotation type.
+        AnnotationAttributes defaultValues = new AnnotationAttributes();
+        for (Method annotationAttribute : annotationClass.getMethods())
+        {
+            Object defaultValue = annotationAttribute.getDefaultValue();
+            if (defaultValue != null)
+            {
+                if (defaultValue instanceof Annotation)
+                {
+                    defaultValue = AnnotationAttributes.fromMap(AnnotationUtils.getAnnotationAttributes((Annotation) defaultValue, false, true));
+                } else if (defaultValue instanceof Annotation[])
+                {
+                    Annotation[] realAnnotations = (Annotation[]) defaultValue;
+                    AnnotationAttributes[] mappedAnnotations = new AnnotationAttributes[realAnnotations.length];
+                    for (int i = 0; i < realAnnotations.length; i++)
+                    {
+                        mappedAnnotations[i] = AnnotationAttributes.fromMap(AnnotationUtils.getAnnotationAttributes(realAnnotations[i], false, true));
+                    }
+                    defaultValue = mappedAnnotations;
+                }
+                defaultValues.put(annotationAttribute.getName(), defaultValue);
+            }
+        }
+        return defaultValues;
+    }
+
+    static Set<String> getMetaAnnotationTypes(Class<?> annotationClass)
+    {
+        // Register annotations that the annotation type is annotated with.
+        Set<String> metaAnnotationTypeNames = new LinkedHashSet<String>();
+        for (Annotation metaAnnotation : annotationClass.getAnnotations())
+        {
+            metaAnnotationTypeNames.add(metaAnnotation.annotationType().getName());
+            for (Annotation metaMetaAnnotation : metaAnnotation.annotationType().getAnnotations())
+            {
+                metaAnnotationTypeNames.add(metaMetaAnnotation.annotationType().getName());
+            }
+        }
+        return metaAnnotationTypeNames;
+    }
+
+    static Map<String, AnnotationAttributes> getMetaAnnotationAttributes(Class<?> annotationClass)
+    {
+        Map<String, AnnotationAttributes> metaAnnotationAttributes = new LinkedHashMap<String, AnnotationAttributes>();
+        for (Annotation metaAnnotation : annotationClass.getAnnotations())
+        {
+            metaAnnotationAttributes.put(metaAnnotation.annotationType().getName(), AnnotationUtils.getAnnotationAttributes(metaAnnotation, true, true));
+        }
+        return metaAnnotationAttributes;
+    }
+}
@@ -0,0 +1,202 @@
+package com.jfxgraph.scanner.io.loader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jfxgraph.scanner.util.AntPathMatcher;
+import com.jfxgraph.scanner.util.AntPathPattern;
+
+/**
+ * 在临时目录树上比较{@link DirectoryPatternWalker}的遍历结果与对每个条目的相对路径调用{@link AntPathMatcher#match}的结果.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class DirectoryPatternWalkerTest
+{
+    private static final String[] FILES = { "A.class", "b1.class", "com/B.class", "com/b1.class", "com/foo/A.class", "com/foo/foo",
+            "com/foo/bar/B.class", "com/foo/bar/baz/CTest.class", "com/fooX/deep/er/MyTest.class", "com/fooX/MyTest.class", "com/x/y/z",
+            "com/a/b/c/D.class", "com/a/c/D.class", "com/c/D.class", "a/x/b/y/z", "abc/d", "foo", "x/foo", "y/foo/foo.txt" };
+
+    private static final String[] DIRECTORIES = { "empty", "com/empty" };
+
+    private static final String[] PATTERNS = { "*", "**", "*.class", "**/*.class", "com/**", "com/*/B.class", "com/**/b?.class",
+            "com/foo*/**/*Test.class", "*/x/**/y/*", "**/**/*.class", "com/**/**/c/*.class", "a?c/**", "**/foo", "com/*", "com/{name}/*.class",
+            "com/f*o/*", "com/*oo/**", "**/x/**", "com/*/*/*", "*/*", "c*m/**/*.*", "com/**/empty", "**/bar" };
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private File root;
+
+    @Before
+    public void createTree() throws IOException
+    {
+        this.root = Files.createTempDirectory("walker").toFile();
+        for (String file : FILES)
+        {
+            Path path = this.root.toPath().resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.createFile(path);
+        }
+        for (String directory : DIRECTORIES)
+        {
+            Files.createDirectories(this.root.toPath().resolve(directory));
+        }
+    }
+
+    @After
+    public void deleteTree() throws IOException
+    {
+        Files.walkFileTree(this.root.toPath(), new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+            {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException
+            {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void walksLikeAntPathMatcher() throws IOException
+    {
+        List<String> entries = listEntries();
+        for (String pattern : PATTERNS)
+        {
+            Set<String> expected = new TreeSet<String>();
+            for (String entry : entries)
+            {
+                if (this.pathMatcher.match(pattern, entry))
+                {
+                    expected.add(entry);
+                }
+            }
+            assertEquals("pattern '" + pattern + "'", expected, walk(pattern));
+        }
+    }
+
+    @Test
+    public void walksWithSeveralPatterns() throws IOException
+    {
+        List<String> entries = listEntries();
+        for (int i = 0; i + 1 < PATTERNS.length; i++)
+        {
+            Set<String> expected = new TreeSet<String>();
+            for (String entry : entries)
+            {
+                if (this.pathMatcher.match(PATTERNS[i], entry) || this.pathMatcher.match(PATTERNS[i + 1], entry))
+                {
+                    expected.add(entry);
+                }
+            }
+            assertEquals("patterns '" + PATTERNS[i] + "', '" + PATTERNS[i + 1] + "'", expected, walk(PATTERNS[i], PATTERNS[i + 1]));
+        }
+    }
+
+    @Test
+    public void stopsWhenCallbackReturnsFalse() throws IOException
+    {
+        final List<Path> matches = new ArrayList<Path>();
+        boolean completed = new DirectoryPatternWalker(compile("**/*.class")).walk(this.root, new DirectoryPatternWalker.MatchCallback()
+        {
+            @Override
+            public boolean doWithMatch(Path path, BasicFileAttributes attributes)
+            {
+                matches.add(path);
+                return false;
+            }
+        });
+        assertFalse(completed);
+        assertEquals(1, matches.size());
+    }
+
+    private Set<String> walk(String... patterns) throws IOException
+    {
+        AntPathPattern[] compiled = new AntPathPattern[patterns.length];
+        for (int i = 0; i < patterns.length; i++)
+        {
+            compiled[i] = compile(patterns[i]);
+        }
+        final Set<String> matches = new TreeSet<String>();
+        final List<String> duplicates = new ArrayList<String>();
+        new DirectoryPatternWalker(compiled).walk(this.root, new DirectoryPatternWalker.MatchCallback()
+        {
+            @Override
+            public boolean doWithMatch(Path path, BasicFileAttributes attributes)
+            {
+                if (!matches.add(relativePath(path)))
+                {
+                    duplicates.add(relativePath(path));
+                }
+                return true;
+            }
+        });
+        assertEquals("duplicates", new ArrayList<String>(), duplicates);
+        return matches;
+    }
+
+    private AntPathPattern compile(String pattern)
+    {
+        AntPathPattern compiled = (AntPathPattern) this.pathMatcher.compile(pattern);
+        assertTrue(pattern, DirectoryPatternWalker.supports(compiled));
+        return compiled;
+    }
+
+    /**
+     * 返回根目录下所有文件和目录(不含根目录本身)的相对路径.
+     */
+    private List<String> listEntries() throws IOException
+    {
+        final List<String> entries = new ArrayList<String>();
+        Files.walkFileTree(this.root.toPath(), new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+            {
+                if (!dir.equals(root.toPath()))
+                {
+                    entries.add(relativePath(dir));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+            {
+                entries.add(relativePath(file));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return entries;
+    }
+
+    private String relativePath(Path path)
+    {
+        return this.root.toPath().relativize(path).toString().replace(File.separatorChar, '/');
+    }
+}
@@ -0,0 +1,301 @@
+package com.jfxgraph.scanner.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import com.jfxgraph.scanner.type.AnnotationMetadata;
+import com.jfxgraph.scanner.type.MethodMetadata;
+
+/**
+ * {@link MetadataCodec}的往返测试: 写出再读回的元数据与直接读取类文件得到的元数据一致.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class MetadataCodecTest
+{
+    private static final String[] CLASS_NAMES = { Annotated.class.getName(), Annotated.Inner.class.getName(), Marked.class.getName(),
+            Sample.class.getName(), Stereotype.class.getName(), Level.class.getName(), MetadataCodecTest.class.getName() };
+
+    private static final String[] ANNOTATION_TYPES = { Sample.class.getName(), Stereotype.class.getName(), Nested.class.getName() };
+
+    private final ClassLoader classLoader = MetadataCodecTest.class.getClassLoader();
+
+    @Test
+    public void roundTripPreservesMetadata() throws IOException
+    {
+        SimpleMetadataReaderFactory factory = new SimpleMetadataReaderFactory();
+        for (String className : CLASS_NAMES)
+        {
+            AnnotationMetadata expected = factory.getMetadataReader(className).getAnnotationMetadata();
+            assertSameMetadata(expected, MetadataCodec.readMetadata(input(write(expected)), this.classLoader));
+        }
+    }
+
+    @Test
+    public void roundTripWithClassNamePool() throws IOException
+    {
+        SimpleMetadataReaderFactory factory = new SimpleMetadataReaderFactory();
+        AnnotationMetadata expected = factory.getMetadataReader(Annotated.class.getName()).getAnnotationMetadata();
+        AnnotationMetadata actual = MetadataCodec.readMetadata(input(write(expected)), this.classLoader, factory.getClassNamePool());
+        assertSameMetadata(expected, actual);
+        assertTrue(actual.getClassName() == factory.getClassNamePool().canonicalName(Annotated.class.getName()));
+    }
+
+    @Test
+    public void lazySnapshotsKeepMethodMetadataDeferred() throws IOException
+    {
+        SimpleMetadataReaderFactory factory = new SimpleMetadataReaderFactory();
+        factory.setLazyMethodMetadata(true);
+        MetadataReader metadataReader = factory.getMetadataReader(Annotated.class.getName());
+        SimpleAnnotationMetadata metadata = (SimpleAnnotationMetadata) metadataReader.getAnnotationMetadata();
+        byte[] data = write(metadata);
+        assertTrue(metadata.isMethodMetadataDeferred());
+        try
+        {
+            MetadataCodec.readMetadata(input(data), this.classLoader);
+            fail("entry without method metadata decoded without a class file");
+        } catch (IOException ex)
+        {
+            // expected
+        }
+
+        SimpleAnnotationMetadata restored = (SimpleAnnotationMetadata) MetadataCodec.readMetadata(input(data), this.classLoader, null,
+                new SimpleMetadataReader.MethodMetadataPass(metadataReader.getResource(), factory.getAnnotationTypeIntrospector(), null));
+        assertTrue(restored.isMethodMetadataDeferred());
+        assertSameMetadata(new SimpleMetadataReaderFactory().getMetadataReader(Annotated.class.getName()).getAnnotationMetadata(), restored);
+        assertFalse(restored.isMethodMetadataDeferred());
+    }
+
+    @Test
+    public void truncatedEntryIsRejected() throws IOException
+    {
+        byte[] data = write(new SimpleMetadataReaderFactory().getMetadataReader(Annotated.class.getName()).getAnnotationMetadata());
+        for (int length : new int[] { 0, 1, data.length / 2, data.length - 1 })
+        {
+            try
+            {
+                MetadataCodec.readMetadata(input(Arrays.copyOf(data, length)), this.classLoader);
+                fail("truncated entry of " + length + " bytes decoded");
+            } catch (IOException ex)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void entryWithMissingEnumConstantIsRejected() throws IOException
+    {
+        byte[] data = write(new SimpleMetadataReaderFactory().getMetadataReader(Annotated.class.getName()).getAnnotationMetadata());
+        // 将枚举常量名HIGH替换为枚举类型中不存在的同长度名字
+        byte[] constant = { 0, 4, 'H', 'I', 'G', 'H' };
+        int replaced = 0;
+        for (int i = 0; i + constant.length <= data.length; i++)
+        {
+            if (Arrays.equals(constant, Arrays.copyOfRange(data, i, i + constant.length)))
+            {
+                data[i + 2] = 'G';
+                data[i + 3] = 'O';
+                data[i + 4] = 'N';
+                data[i + 5] = 'E';
+                replaced++;
+            }
+        }
+        assertTrue(replaced > 0);
+        try
+        {
+            MetadataCodec.readMetadata(input(data), this.classLoader);
+            fail("entry with a missing enum constant decoded");
+        } catch (IOException ex)
+        {
+            // expected
+        }
+    }
+
+    private static byte[] write(AnnotationMetadata metadata) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        MetadataCodec.writeMetadata(metadata, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] data)
+    {
+        return new DataInputStream(new ByteArrayInputStream(data));
+    }
+
+    private static void assertSameMetadata(AnnotationMetadata expected, AnnotationMetadata actual)
+    {
+        String className = expected.getClassName();
+        assertEquals(className, actual.getClassName());
+        assertEquals(className, expected.isInterface(), actual.isInterface());
+        assertEquals(className, expected.isAbstract(), actual.isAbstract());
+        assertEquals(className, expected.isFinal(), actual.isFinal());
+        assertEquals(className, expected.isIndependent(), actual.isIndependent());
+        assertEquals(className, expected.getEnclosingClassName(), actual.getEnclosingClassName());
+        assertEquals(className, expected.getSuperClassName(), actual.getSuperClassName());
+        assertEquals(className, Arrays.asList(expected.getInterfaceNames()), Arrays.asList(actual.getInterfaceNames()));
+        assertEquals(className, Arrays.asList(expected.getMemberClassNames()), Arrays.asList(actual.getMemberClassNames()));
+        assertEquals(className, expected.getAnnotationTypes(), actual.getAnnotationTypes());
+        for (String annotationType : expected.getAnnotationTypes())
+        {
+            assertEquals(className, expected.getMetaAnnotationTypes(annotationType), actual.getMetaAnnotationTypes(annotationType));
+        }
+        for (String annotationType : ANNOTATION_TYPES)
+        {
+            String message = className + " @" + annotationType;
+            assertEquals(message, expected.hasMetaAnnotation(annotationType), actual.hasMetaAnnotation(annotationType));
+            assertEquals(message, normalize(expected.getAnnotationAttributes(annotationType)),
+                    normalize(actual.getAnnotationAttributes(annotationType)));
+            assertEquals(message, normalize(expected.getAnnotationAttributes(annotationType, true)),
+                    normalize(actual.getAnnotationAttributes(annotationType, true)));
+            assertEquals(message, describeMethods(expected, annotationType), describeMethods(actual, annotationType));
+        }
+    }
+
+    private static Map<String, Object> describeMethods(AnnotationMetadata metadata, String annotationType)
+    {
+        Map<String, Object> methods = new TreeMap<String, Object>();
+        for (MethodMetadata method : metadata.getAnnotatedMethods(annotationType))
+        {
+            methods.put(method.getMethodName() + (method.isStatic() ? " static" : "") + (method.isFinal() ? " final" : ""),
+                    Arrays.asList(method.getDeclaringClassName(), normalize(method.getAnnotationAttributes(annotationType))));
+        }
+        return methods;
+    }
+
+    /**
+     * 将属性值中的数组(包括基本类型数组)递归转换为List, 以便按值比较.
+     */
+    private static Object normalize(Object value)
+    {
+        if (value instanceof Map)
+        {
+            Map<Object, Object> map = new LinkedHashMap<Object, Object>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+            {
+                map.put(entry.getKey(), normalize(entry.getValue()));
+            }
+            return map;
+        }
+        if (value != null && value.getClass().isArray())
+        {
+            List<Object> list = new ArrayList<Object>();
+            for (int i = 0; i < Array.getLength(value); i++)
+            {
+                list.add(normalize(Array.get(value, i)));
+            }
+            return Arrays.asList(value.getClass().getComponentType().getName(), list);
+        }
+        return value;
+    }
+
+    public enum Level
+    {
+        LOW, HIGH
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Nested
+    {
+        String name() default "nested";
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE })
+    public @interface Sample
+    {
+        String value() default "default";
+
+        int[] numbers() default { 1, 2 };
+
+        long longValue() default 3L;
+
+        double doubleValue() default 0.5;
+
+        float floatValue() default 1.5f;
+
+        boolean flag() default true;
+
+        char character() default 'c';
+
+        byte byteValue() default 7;
+
+        short shortValue() default 8;
+
+        Class<?> type() default Object.class;
+
+        Class<?>[] types() default {};
+
+        Level level() default Level.LOW;
+
+        Level[] levels() default {};
+
+        Nested nested() default @Nested;
+
+        Nested[] nestedArray() default {};
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Sample("stereotype")
+    public @interface Stereotype
+    {
+    }
+
+    interface Marked
+    {
+    }
+
+    @Sample(value = "annotated", numbers = { 3 }, longValue = Long.MAX_VALUE, type = String.class, types = { Integer.class, int[].class },
+            level = Level.HIGH, levels = { Level.LOW, Level.HIGH }, nested = @Nested(name = "x"), nestedArray = { @Nested, @Nested(name = "y") })
+    @Stereotype
+    abstract static class Annotated extends ArrayList<String> implements Marked, Serializable, Runnable
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        @Sample("run")
+        public void run()
+        {
+        }
+
+        @Sample(levels = Level.HIGH)
+        public static final void other()
+        {
+        }
+
+        @Deprecated
+        public void notSampled()
+        {
+        }
+
+        class Inner
+        {
+        }
+    }
+}
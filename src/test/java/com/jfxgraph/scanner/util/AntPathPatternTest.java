@@ -0,0 +1,82 @@
+package com.jfxgraph.scanner.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * 以{@link AntPathMatcher#doMatch}为准, 逐个比较{@link AntPathPattern}在模式 × 路径表上的{@link AntPathPattern#match}和
+ * {@link AntPathPattern#matchStart}结果.
+ *
+ * @author Albert
+ * @since 1.1
+ */
+public class AntPathPatternTest
+{
+    static final String[] PATTERNS = { "", "*", "**", "/**", "*.class", "**/*.class", "/**/*.class", "com/**", "com/**/", "com/*/B.class",
+            "com/**/b?.class", "com/foo*/**/*Test.class", "*/x/**/y/*", "**/**/*.class", "com/**/**/c/*.class", "a?c/**", "**/foo", "com/foo/",
+            "com/*", "com/{name}/*.class", "com/{name:[a-z]+}/A.class", "com/f*o/*", "com/*oo/**", "com/fo?/A.class", "com/**/foo/**",
+            "**/x/**", "com/*/*/*", "*/*", "c*m/**/*.*" };
+
+    static final String[] PATHS = { "", "/", "A.class", "/A.class", "com", "com/", "com/B.class", "com/b1.class", "com/foo", "com/foo/",
+            "com/foo/A.class", "/com/foo/A.class", "com//foo/A.class", "com/foo/bar/B.class", "com/foo/foo", "com/fooX/deep/er/MyTest.class",
+            "com/fooX/MyTest.class", "com/x/y/z", "a/x/b/y/z", "a/x/y/z", "abc/d", "abc", "com/a/b/c/D.class", "com/a/c/D.class",
+            "com/c/D.class", "foo", "x/foo", "com/fo/A.class", "com/FOO/A.class", "com/123/A.class", "com/a/b", "com/a/b/c", "x",
+            "x/y", "com.foo.A" };
+
+    @Test
+    public void matchesLikeAntPathMatcher()
+    {
+        assertEquivalent(new AntPathMatcher());
+    }
+
+    @Test
+    public void matchesLikeAntPathMatcherWithTrimmedTokens()
+    {
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        pathMatcher.setTrimTokens(true);
+        assertEquivalent(pathMatcher);
+    }
+
+    @Test
+    public void matchesLikeAntPathMatcherWithDotSeparator()
+    {
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        pathMatcher.setPathSeparator(".");
+        assertEquivalent(pathMatcher, new String[] { "com.**", "com.*.A", "**.A", "com.{name}.*", "com.f?o.**" }, new String[] { "com",
+                "com.foo.A", "com.foo.bar.A", "com.fo.A", "A", "com/foo/A" });
+    }
+
+    @Test
+    public void fallsBackForPatternsWithManySegments()
+    {
+        StringBuilder pattern = new StringBuilder("**");
+        StringBuilder path = new StringBuilder("a");
+        for (int i = 0; i < 70; i++)
+        {
+            pattern.append("/s").append(i % 3 == 0 ? "*" : String.valueOf(i));
+            path.append("/s").append(i);
+        }
+        assertEquivalent(new AntPathMatcher(), new String[] { pattern.toString() }, new String[] { path.toString(), path.substring(2),
+                "a/s0/s1" });
+    }
+
+    private static void assertEquivalent(AntPathMatcher pathMatcher)
+    {
+        assertEquivalent(pathMatcher, PATTERNS, PATHS);
+    }
+
+    private static void assertEquivalent(AntPathMatcher pathMatcher, String[] patterns, String[] paths)
+    {
+        for (String pattern : patterns)
+        {
+            PathPattern compiled = pathMatcher.compile(pattern);
+            for (String path : paths)
+            {
+                String message = "pattern '" + pattern + "', path '" + path + "'";
+                assertEquals("match: " + message, pathMatcher.doMatch(pattern, path, true, null), compiled.match(path));
+                assertEquals("matchStart: " + message, pathMatcher.doMatch(pattern, path, false, null), compiled.matchStart(path));
+            }
+        }
+    }
+}